@@ -1,5 +1,8 @@
 package no.spt.sdk;
 
+import no.spt.sdk.batch.Compression;
+import no.spt.sdk.batch.OverflowPolicy;
+
 /**
  * Defaults contains default values that can be used in the SDK
  */
@@ -44,8 +47,128 @@ public final class Defaults {
      */
     public static final int MAX_ACTIVITY_BATCH_SIZE = 20;
 
+    /**
+     * The maximum size in bytes of a batch of activities sent to the data collector
+     */
+    public static final int MAX_REQUEST_SIZE = 256 * 1024;
+
     /**
      * The maximum size of a batch of errors
      */
     public static final int MAX_ERROR_BATCH_SIZE = 5;
+
+    /**
+     * The maximum number of batches of activities that are sent to the data collector concurrently
+     */
+    public static final int MAX_IN_FLIGHT_BATCHES = 1;
+
+    /**
+     * The amount of milliseconds to wait for a batch of activities to fill up before it is sent
+     */
+    public static final int LINGER_TIME = 0;
+
+    /**
+     * The maximum amount of disk space in bytes the activity spool may use
+     */
+    public static final long MAX_SPOOL_SIZE = 1024L * 1024 * 1024;
+
+    /**
+     * The size in bytes of each file the activity spool is made up of
+     */
+    public static final int SPOOL_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * The policy used when an activity is enqueued while the activity queue is full
+     */
+    public static final OverflowPolicy OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+
+    /**
+     * The maximum amount of milliseconds to wait for room in the activity queue when enqueueing blocks
+     */
+    public static final int ENQUEUE_TIMEOUT = 100;
+
+    /**
+     * The maximum amount of milliseconds a flush blocks while waiting for activities to be sent
+     */
+    public static final int FLUSH_TIMEOUT = 2 * 60 * 1000;
+
+    /**
+     * The initial amount of milliseconds to wait before retrying a failed request
+     */
+    public static final int RETRY_BACKOFF = 100;
+
+    /**
+     * The maximum amount of milliseconds to wait before retrying a failed request
+     */
+    public static final int MAX_RETRY_BACKOFF = 10000;
+
+    /**
+     * The number of consecutive failed requests after which sending stops until the data collector has recovered
+     */
+    public static final int CIRCUIT_BREAKER_THRESHOLD = 5;
+
+    /**
+     * The amount of milliseconds to wait before checking if the data collector has recovered
+     */
+    public static final int CIRCUIT_BREAKER_RESET_TIMEOUT = 30000;
+
+    /**
+     * Whether activities are serialized on the thread that enqueues them instead of on the sender
+     */
+    public static final boolean SERIALIZE_ON_ENQUEUE = false;
+
+    /**
+     * How request bodies are compressed
+     */
+    public static final Compression COMPRESSION = Compression.NONE;
+
+    /**
+     * The minimum size in bytes of a request body before it is compressed
+     */
+    public static final int COMPRESSION_THRESHOLD = 1024;
+
+    /**
+     * The compression level, from 0 (no compression) to 9 (best compression)
+     */
+    public static final int COMPRESSION_LEVEL = 6;
+
+    /**
+     * The maximum number of connections the HTTP client keeps open in total
+     */
+    public static final int MAX_CONNECTIONS = 20;
+
+    /**
+     * The maximum number of connections the HTTP client keeps open to each host
+     */
+    public static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+
+    /**
+     * The amount of milliseconds an idle connection is kept alive for reuse
+     */
+    public static final int KEEP_ALIVE = 30000;
+
+    /**
+     * The amount of milliseconds a connection may be idle in the pool before it is closed
+     */
+    public static final int IDLE_CONNECTION_TIMEOUT = 10000;
+
+    /**
+     * Whether pooled connections are checked for being closed by the server before they are reused
+     */
+    public static final boolean STALE_CONNECTION_CHECK = true;
+
+    /**
+     * Whether Nagle's algorithm is disabled on connections
+     */
+    public static final boolean TCP_NO_DELAY = true;
+
+    /**
+     * The size in bytes of the buffer used when reading and writing to connections
+     */
+    public static final int SOCKET_BUFFER_SIZE = 8192;
+
+    /**
+     * The maximum number of bytes of a response body that are kept
+     */
+    public static final int MAX_RESPONSE_BODY_SIZE = 256 * 1024;
 }
@@ -1,5 +1,14 @@
 package no.spt.sdk;
 
+import no.spt.sdk.batch.BatchStage;
+import no.spt.sdk.batch.Compression;
+import no.spt.sdk.batch.OverflowPolicy;
+import no.spt.sdk.batch.QueueWatermarkListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Options contains settings used to configure the behaviour of the data collector SDK
  */
@@ -13,10 +22,47 @@ public class Options {
     private final int timeout;
     private final int retries;
     private final int maxActivityBatchSize;
+    private final int maxRequestSize;
     private final int maxErrorBatchSize;
+    private final int maxInFlightBatches;
+    private final int lingerTime;
+    private final String spoolDirectory;
+    private final long maxSpoolSize;
+    private final int spoolSegmentSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int enqueueTimeout;
+    private final int queueHighWatermark;
+    private final int queueLowWatermark;
+    private final QueueWatermarkListener queueWatermarkListener;
+    private final int flushTimeout;
+    private final int retryBackoff;
+    private final int maxRetryBackoff;
+    private final int circuitBreakerThreshold;
+    private final int circuitBreakerResetTimeout;
+    private final List<BatchStage> batchStages;
+    private final boolean serializeOnEnqueue;
+    private final Compression compression;
+    private final int compressionThreshold;
+    private final int compressionLevel;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final int keepAlive;
+    private final int idleConnectionTimeout;
+    private final boolean staleConnectionCheck;
+    private final boolean tcpNoDelay;
+    private final int socketBufferSize;
+    private final int maxResponseBodySize;
 
-    private Options(String clientId, String dataCollectorUrl, String CISUrl, String errorReportingUrl, int
-            maxQueueSize, int timeout, int retries, int maxActivityBatchSize, int maxErrorBatchSize) {
+    private Options(String clientId, String dataCollectorUrl, String CISUrl, String errorReportingUrl,
+            int maxQueueSize, int timeout, int retries, int maxActivityBatchSize, int maxRequestSize,
+            int maxErrorBatchSize, int maxInFlightBatches, int lingerTime, String spoolDirectory, long maxSpoolSize,
+            int spoolSegmentSize, OverflowPolicy overflowPolicy, int enqueueTimeout, int queueHighWatermark,
+            int queueLowWatermark, QueueWatermarkListener queueWatermarkListener, int flushTimeout, int retryBackoff,
+            int maxRetryBackoff, int circuitBreakerThreshold, int circuitBreakerResetTimeout,
+            List<BatchStage> batchStages, boolean serializeOnEnqueue, Compression compression,
+            int compressionThreshold, int compressionLevel, int maxConnections, int maxConnectionsPerRoute,
+            int keepAlive, int idleConnectionTimeout, boolean staleConnectionCheck, boolean tcpNoDelay,
+            int socketBufferSize, int maxResponseBodySize) {
         this.clientId = clientId;
         this.dataCollectorUrl = dataCollectorUrl;
         this.CISUrl = CISUrl;
@@ -25,7 +71,36 @@ public class Options {
         this.timeout = timeout;
         this.retries = retries;
         this.maxActivityBatchSize = maxActivityBatchSize;
+        this.maxRequestSize = maxRequestSize;
         this.maxErrorBatchSize = maxErrorBatchSize;
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.lingerTime = lingerTime;
+        this.spoolDirectory = spoolDirectory;
+        this.maxSpoolSize = maxSpoolSize;
+        this.spoolSegmentSize = spoolSegmentSize;
+        this.overflowPolicy = overflowPolicy;
+        this.enqueueTimeout = enqueueTimeout;
+        this.queueHighWatermark = queueHighWatermark;
+        this.queueLowWatermark = queueLowWatermark;
+        this.queueWatermarkListener = queueWatermarkListener;
+        this.flushTimeout = flushTimeout;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+        this.circuitBreakerResetTimeout = circuitBreakerResetTimeout;
+        this.batchStages = batchStages;
+        this.serializeOnEnqueue = serializeOnEnqueue;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+        this.compressionLevel = compressionLevel;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAlive = keepAlive;
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        this.staleConnectionCheck = staleConnectionCheck;
+        this.tcpNoDelay = tcpNoDelay;
+        this.socketBufferSize = socketBufferSize;
+        this.maxResponseBodySize = maxResponseBodySize;
     }
 
     /**
@@ -101,6 +176,17 @@ public class Options {
         return maxActivityBatchSize;
     }
 
+    /**
+     * Gets the maximum size in bytes of a batch of activities that is sent to the data collector. Batches are cut
+     * when either this size or the maximum activity batch size is reached. A single activity that is larger than this
+     * size is sent on its own.
+     *
+     * @return The maximum size in bytes of a batch of activities that is sent to the data collector.
+     */
+    public int getMaxRequestSize() {
+        return maxRequestSize;
+    }
+
     /**
      * Gets the maximum size of a batch of errors that is sent to the central error collector.
      *
@@ -110,6 +196,273 @@ public class Options {
         return maxErrorBatchSize;
     }
 
+    /**
+     * Gets the maximum number of batches of activities that are sent to the data collector concurrently by the
+     * automatic activity sender.
+     *
+     * @return The maximum number of batches of activities that are sent to the data collector concurrently
+     */
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    /**
+     * Gets the amount of milliseconds the automatic activity sender waits for more activities to fill up a batch
+     * before it is sent. A full batch, or a batch containing activities that are being flushed, is sent immediately.
+     *
+     * @return The amount of milliseconds to wait for a batch of activities to fill up before it is sent
+     */
+    public int getLingerTime() {
+        return lingerTime;
+    }
+
+    /**
+     * Gets the directory the automatic activity sender spools activities to before they are sent. Spooled activities
+     * survive restarts of the application and are sent when the SDK is started again. If null, activities are only
+     * queued in memory.
+     *
+     * @return The directory activities are spooled to, or null if spooling is disabled
+     */
+    public String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * Gets the maximum amount of disk space in bytes the spool may use. If the spool has reached the maximum size it
+     * will no longer accept new activities and those will be dropped.
+     *
+     * @return The maximum amount of disk space in bytes the spool may use
+     */
+    public long getMaxSpoolSize() {
+        return maxSpoolSize;
+    }
+
+    /**
+     * Gets the size in bytes of each file the spool is made up of. Disk space is reclaimed one file at a time once
+     * all activities in it have been sent.
+     *
+     * @return The size in bytes of each spool file
+     */
+    public int getSpoolSegmentSize() {
+        return spoolSegmentSize;
+    }
+
+    /**
+     * Gets the policy that decides what happens to an activity that is enqueued while the activity queue is full
+     *
+     * @return The policy used when the activity queue is full
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Gets the maximum amount of milliseconds to wait for room in the activity queue when the overflow policy is
+     * {@link OverflowPolicy#BLOCK}
+     *
+     * @return The maximum amount of milliseconds to wait for room in the activity queue
+     */
+    public int getEnqueueTimeout() {
+        return enqueueTimeout;
+    }
+
+    /**
+     * Gets the queue depth at which the queue watermark listener is told to reduce the number of activities produced.
+     * Also the depth at which {@link OverflowPolicy#SHED} starts dropping activities. If 0, watermarks are disabled.
+     *
+     * @return The high watermark of the activity queue
+     */
+    public int getQueueHighWatermark() {
+        return queueHighWatermark;
+    }
+
+    /**
+     * Gets the queue depth at which the queue watermark listener is told that the queue has drained after the high
+     * watermark was reached
+     *
+     * @return The low watermark of the activity queue
+     */
+    public int getQueueLowWatermark() {
+        return queueLowWatermark;
+    }
+
+    /**
+     * Gets the listener that is notified when the activity queue crosses the high and low watermarks
+     *
+     * @return The queue watermark listener, or null if none is set
+     */
+    public QueueWatermarkListener getQueueWatermarkListener() {
+        return queueWatermarkListener;
+    }
+
+    /**
+     * Gets the maximum amount of milliseconds a flush blocks while waiting for activities to be sent
+     *
+     * @return The maximum amount of milliseconds a flush blocks
+     */
+    public int getFlushTimeout() {
+        return flushTimeout;
+    }
+
+    /**
+     * Gets the initial amount of milliseconds to wait before retrying a failed request. The wait doubles for every
+     * retry, and a random part of it is used so that clients do not retry at the same time.
+     *
+     * @return The initial amount of milliseconds to wait before retrying a failed request
+     */
+    public int getRetryBackoff() {
+        return retryBackoff;
+    }
+
+    /**
+     * Gets the maximum amount of milliseconds to wait before retrying a failed request
+     *
+     * @return The maximum amount of milliseconds to wait before retrying a failed request
+     */
+    public int getMaxRetryBackoff() {
+        return maxRetryBackoff;
+    }
+
+    /**
+     * Gets the number of consecutive failed requests after which no more activities are sent to the data collector
+     * until it has recovered. Activities stay in the queue in the meantime.
+     *
+     * @return The number of consecutive failed requests that opens the circuit breaker
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    /**
+     * Gets the amount of milliseconds to wait after the circuit breaker has opened before a single request is sent to
+     * check if the data collector has recovered
+     *
+     * @return The amount of milliseconds before the data collector is checked again
+     */
+    public int getCircuitBreakerResetTimeout() {
+        return circuitBreakerResetTimeout;
+    }
+
+    /**
+     * Gets the custom stages that batches of activities go through before they are sent to the data collector
+     *
+     * @return The custom batch stages, in the order they run
+     */
+    public List<BatchStage> getBatchStages() {
+        return batchStages;
+    }
+
+    /**
+     * Gets whether activities are serialized to JSON on the thread that enqueues them, so the sender only has to join
+     * the serialized activities into batches
+     *
+     * @return true if activities are serialized when they are enqueued
+     */
+    public boolean isSerializeOnEnqueue() {
+        return serializeOnEnqueue;
+    }
+
+    /**
+     * Gets how request bodies sent to the data collector are compressed
+     *
+     * @return The compression used for request bodies
+     */
+    public Compression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Gets the minimum size in bytes a request body must have before it is compressed
+     *
+     * @return The compression threshold in bytes
+     */
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    /**
+     * Gets the level used when compressing request bodies, from 0 (no compression) to 9 (best compression)
+     *
+     * @return The compression level
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Gets the maximum number of connections the HTTP client keeps open in total
+     *
+     * @return The maximum number of connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Gets the maximum number of connections the HTTP client keeps open to each host
+     *
+     * @return The maximum number of connections per host
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Gets the amount of milliseconds an idle connection is kept alive for reuse, unless the server asks for less with
+     * a Keep-Alive header
+     *
+     * @return The keep-alive duration in milliseconds
+     */
+    public int getKeepAlive() {
+        return keepAlive;
+    }
+
+    /**
+     * Gets the amount of milliseconds a connection may be idle in the pool before it is closed by the background
+     * evictor
+     *
+     * @return The idle connection timeout in milliseconds, or 0 if idle connections are not evicted
+     */
+    public int getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     * Gets whether pooled connections are checked for being closed by the server before they are reused
+     *
+     * @return true if stale connections are checked for
+     */
+    public boolean isStaleConnectionCheck() {
+        return staleConnectionCheck;
+    }
+
+    /**
+     * Gets whether Nagle's algorithm is disabled on connections, so small requests are sent without delay
+     *
+     * @return true if TCP_NODELAY is set on connections
+     */
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    /**
+     * Gets the size in bytes of the buffer used when reading and writing to connections
+     *
+     * @return The socket buffer size in bytes
+     */
+    public int getSocketBufferSize() {
+        return socketBufferSize;
+    }
+
+    /**
+     * Gets the maximum number of bytes of a response body that are kept. The rest of a larger body is discarded.
+     *
+     * @return The maximum response body size in bytes
+     */
+    public int getMaxResponseBodySize() {
+        return maxResponseBodySize;
+    }
+
     /**
      * Builder used to constructs a new Option. It has some sensible defaults which can be overridden.
      */
@@ -123,7 +476,36 @@ public class Options {
         private int timeout = Defaults.TIMEOUT;
         private int retries = Defaults.RETRIES;
         private int maxActivityBatchSize = Defaults.MAX_ACTIVITY_BATCH_SIZE;
+        private int maxRequestSize = Defaults.MAX_REQUEST_SIZE;
         private int maxErrorBatchSize = Defaults.MAX_ERROR_BATCH_SIZE;
+        private int maxInFlightBatches = Defaults.MAX_IN_FLIGHT_BATCHES;
+        private int lingerTime = Defaults.LINGER_TIME;
+        private String spoolDirectory = null;
+        private long maxSpoolSize = Defaults.MAX_SPOOL_SIZE;
+        private int spoolSegmentSize = Defaults.SPOOL_SEGMENT_SIZE;
+        private OverflowPolicy overflowPolicy = Defaults.OVERFLOW_POLICY;
+        private int enqueueTimeout = Defaults.ENQUEUE_TIMEOUT;
+        private int queueHighWatermark = 0;
+        private int queueLowWatermark = 0;
+        private QueueWatermarkListener queueWatermarkListener = null;
+        private int flushTimeout = Defaults.FLUSH_TIMEOUT;
+        private int retryBackoff = Defaults.RETRY_BACKOFF;
+        private int maxRetryBackoff = Defaults.MAX_RETRY_BACKOFF;
+        private int circuitBreakerThreshold = Defaults.CIRCUIT_BREAKER_THRESHOLD;
+        private int circuitBreakerResetTimeout = Defaults.CIRCUIT_BREAKER_RESET_TIMEOUT;
+        private List<BatchStage> batchStages = new ArrayList<BatchStage>();
+        private boolean serializeOnEnqueue = Defaults.SERIALIZE_ON_ENQUEUE;
+        private Compression compression = Defaults.COMPRESSION;
+        private int compressionThreshold = Defaults.COMPRESSION_THRESHOLD;
+        private int compressionLevel = Defaults.COMPRESSION_LEVEL;
+        private int maxConnections = Defaults.MAX_CONNECTIONS;
+        private int maxConnectionsPerRoute = Defaults.MAX_CONNECTIONS_PER_ROUTE;
+        private int keepAlive = Defaults.KEEP_ALIVE;
+        private int idleConnectionTimeout = Defaults.IDLE_CONNECTION_TIMEOUT;
+        private boolean staleConnectionCheck = Defaults.STALE_CONNECTION_CHECK;
+        private boolean tcpNoDelay = Defaults.TCP_NO_DELAY;
+        private int socketBufferSize = Defaults.SOCKET_BUFFER_SIZE;
+        private int maxResponseBodySize = Defaults.MAX_RESPONSE_BODY_SIZE;
 
         public Builder(String clientId) {
             this.clientId = clientId;
@@ -188,11 +570,255 @@ public class Options {
             return this;
         }
 
+        /**
+         * @param maxRequestSize The maximum size in bytes of a batch of activities sent to the data collector
+         * @return This builder instance for chaining
+         */
+        public Builder setMaxRequestSize(int maxRequestSize) {
+            this.maxRequestSize = maxRequestSize;
+            return this;
+        }
+
         public Builder setMaxErrorBatchSize(int maxErrorBatchSize) {
             this.maxErrorBatchSize = maxErrorBatchSize;
             return this;
         }
 
+        /**
+         * @param maxInFlightBatches The maximum number of batches of activities that are sent to the data collector
+         *                           concurrently
+         * @return This builder instance for chaining
+         */
+        public Builder setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * @param lingerTime The amount of milliseconds to wait for a batch of activities to fill up before it is sent
+         * @return This builder instance for chaining
+         */
+        public Builder setLingerTime(int lingerTime) {
+            this.lingerTime = lingerTime;
+            return this;
+        }
+
+        /**
+         * @param spoolDirectory The directory to spool activities to before they are sent, or null to only queue
+         *                       activities in memory
+         * @return This builder instance for chaining
+         */
+        public Builder setSpoolDirectory(String spoolDirectory) {
+            this.spoolDirectory = spoolDirectory;
+            return this;
+        }
+
+        /**
+         * @param maxSpoolSize The maximum amount of disk space in bytes the spool may use
+         * @return This builder instance for chaining
+         */
+        public Builder setMaxSpoolSize(long maxSpoolSize) {
+            this.maxSpoolSize = maxSpoolSize;
+            return this;
+        }
+
+        /**
+         * @param spoolSegmentSize The size in bytes of each file the spool is made up of
+         * @return This builder instance for chaining
+         */
+        public Builder setSpoolSegmentSize(int spoolSegmentSize) {
+            this.spoolSegmentSize = spoolSegmentSize;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy The policy used when an activity is enqueued while the activity queue is full
+         * @return This builder instance for chaining
+         */
+        public Builder setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param enqueueTimeout The maximum amount of milliseconds to wait for room in the activity queue when the
+         *                       overflow policy is {@link OverflowPolicy#BLOCK}
+         * @return This builder instance for chaining
+         */
+        public Builder setEnqueueTimeout(int enqueueTimeout) {
+            this.enqueueTimeout = enqueueTimeout;
+            return this;
+        }
+
+        /**
+         * @param queueHighWatermark The queue depth at which the listener is notified, or 0 to disable watermarks
+         * @param queueLowWatermark  The queue depth at which the listener is notified that the queue has drained
+         * @param listener           The listener to notify when the watermarks are crossed
+         * @return This builder instance for chaining
+         */
+        public Builder setQueueWatermarks(int queueHighWatermark, int queueLowWatermark,
+                                          QueueWatermarkListener listener) {
+            this.queueHighWatermark = queueHighWatermark;
+            this.queueLowWatermark = queueLowWatermark;
+            this.queueWatermarkListener = listener;
+            return this;
+        }
+
+        /**
+         * @param flushTimeout The maximum amount of milliseconds a flush blocks while waiting for activities to be
+         *                     sent
+         * @return This builder instance for chaining
+         */
+        public Builder setFlushTimeout(int flushTimeout) {
+            this.flushTimeout = flushTimeout;
+            return this;
+        }
+
+        /**
+         * @param retryBackoff    The initial amount of milliseconds to wait before retrying a failed request
+         * @param maxRetryBackoff The maximum amount of milliseconds to wait before retrying a failed request
+         * @return This builder instance for chaining
+         */
+        public Builder setRetryBackoff(int retryBackoff, int maxRetryBackoff) {
+            this.retryBackoff = retryBackoff;
+            this.maxRetryBackoff = maxRetryBackoff;
+            return this;
+        }
+
+        /**
+         * @param circuitBreakerThreshold    The number of consecutive failed requests that stops sending
+         * @param circuitBreakerResetTimeout The amount of milliseconds to wait before checking if the data collector
+         *                                   has recovered
+         * @return This builder instance for chaining
+         */
+        public Builder setCircuitBreaker(int circuitBreakerThreshold, int circuitBreakerResetTimeout) {
+            this.circuitBreakerThreshold = circuitBreakerThreshold;
+            this.circuitBreakerResetTimeout = circuitBreakerResetTimeout;
+            return this;
+        }
+
+        /**
+         * @param batchStage A custom stage, like enrichment or sampling, that batches of activities go through before
+         *                   they are sent. Stages run in the order they are added.
+         * @return This builder instance for chaining
+         */
+        public Builder addBatchStage(BatchStage batchStage) {
+            this.batchStages.add(batchStage);
+            return this;
+        }
+
+        /**
+         * @param serializeOnEnqueue true to serialize activities on the thread that enqueues them instead of on the
+         *                           sender. This spreads the serialization cost over the threads that track
+         *                           activities, but makes tracking an activity take longer.
+         * @return This builder instance for chaining
+         */
+        public Builder setSerializeOnEnqueue(boolean serializeOnEnqueue) {
+            this.serializeOnEnqueue = serializeOnEnqueue;
+            return this;
+        }
+
+        /**
+         * @param compression How request bodies are compressed before they are sent to the data collector. The
+         *                    data collector is told through the Content-Encoding header.
+         * @return This builder instance for chaining
+         */
+        public Builder setCompression(Compression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * @param compressionThreshold The minimum size in bytes a request body must have before it is compressed.
+         *                             Small bodies are sent as is, since compressing them saves little.
+         * @return This builder instance for chaining
+         */
+        public Builder setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * @param compressionLevel The level used when compressing request bodies, from 0 (no compression) to 9 (best
+         *                         compression). Higher levels give smaller requests but use more CPU.
+         * @return This builder instance for chaining
+         */
+        public Builder setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * @param maxConnections         The maximum number of connections the HTTP client keeps open in total
+         * @param maxConnectionsPerRoute The maximum number of connections the HTTP client keeps open to each host.
+         *                               Should be at least maxInFlightBatches so batches do not wait for a connection.
+         * @return This builder instance for chaining
+         */
+        public Builder setMaxConnections(int maxConnections, int maxConnectionsPerRoute) {
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param keepAlive The amount of milliseconds an idle connection is kept alive for reuse, unless the server
+         *                  asks for less with a Keep-Alive header
+         * @return This builder instance for chaining
+         */
+        public Builder setKeepAlive(int keepAlive) {
+            this.keepAlive = keepAlive;
+            return this;
+        }
+
+        /**
+         * @param idleConnectionTimeout The amount of milliseconds a connection may be idle in the pool before it is
+         *                              closed by a background thread. 0 disables the background thread.
+         * @return This builder instance for chaining
+         */
+        public Builder setIdleConnectionTimeout(int idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        /**
+         * @param staleConnectionCheck true to check that a pooled connection has not been closed by the server before
+         *                             it is reused. The check costs up to a millisecond per request.
+         * @return This builder instance for chaining
+         */
+        public Builder setStaleConnectionCheck(boolean staleConnectionCheck) {
+            this.staleConnectionCheck = staleConnectionCheck;
+            return this;
+        }
+
+        /**
+         * @param tcpNoDelay true to disable Nagle's algorithm, so small requests are sent without delay
+         * @return This builder instance for chaining
+         */
+        public Builder setTcpNoDelay(boolean tcpNoDelay) {
+            this.tcpNoDelay = tcpNoDelay;
+            return this;
+        }
+
+        /**
+         * @param socketBufferSize The size in bytes of the buffer used when reading and writing to connections
+         * @return This builder instance for chaining
+         */
+        public Builder setSocketBufferSize(int socketBufferSize) {
+            this.socketBufferSize = socketBufferSize;
+            return this;
+        }
+
+        /**
+         * @param maxResponseBodySize The maximum number of bytes of a response body that are kept. The rest of a
+         *                            larger body is read and discarded, so large error responses do not use a lot of
+         *                            memory.
+         * @return This builder instance for chaining
+         */
+        public Builder setMaxResponseBodySize(int maxResponseBodySize) {
+            this.maxResponseBodySize = maxResponseBodySize;
+            return this;
+        }
+
         private void validateClientId(String clientId) {
             if (clientId == null || clientId.isEmpty()) {
                 throw new IllegalArgumentException("Data-collector-sdk#options#clientId must be a valid client ID.");
@@ -241,9 +867,12 @@ public class Options {
                 throw new IllegalArgumentException("Data-collector-sdk#options#maxActivityBatchSize must be greater " +
                         "than 0.");
             }
-            if (maxActivityBatchSize > 20) {
-                throw new IllegalArgumentException("Data-collector-sdk#options#maxActivityBatchSize must be less than" +
-                        " 20.");
+        }
+
+        private void validateMaxRequestSize(int maxRequestSize) {
+            if (maxRequestSize < 1024) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxRequestSize must be at least 1024 " +
+                        "bytes.");
             }
         }
 
@@ -258,9 +887,149 @@ public class Options {
             }
         }
 
+        private void validateMaxInFlightBatches(int maxInFlightBatches) {
+            if (maxInFlightBatches < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxInFlightBatches must be greater " +
+                        "than 0.");
+            }
+        }
+
+        private void validateLingerTime(int lingerTime) {
+            if (lingerTime < 0) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#lingerTime must be greater or equal " +
+                        "to 0.");
+            }
+        }
+
+        private void validateSpool(String spoolDirectory, long maxSpoolSize, int spoolSegmentSize) {
+            if (spoolDirectory == null) {
+                return;
+            }
+            if (spoolDirectory.isEmpty()) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#spoolDirectory must be a valid " +
+                        "directory.");
+            }
+            if (spoolSegmentSize < 64 * 1024) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#spoolSegmentSize must be at least " +
+                        "65536 bytes.");
+            }
+            if (maxSpoolSize < spoolSegmentSize) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxSpoolSize must be at least " +
+                        "spoolSegmentSize.");
+            }
+        }
+
+        private void validateOverflowPolicy(OverflowPolicy overflowPolicy, int enqueueTimeout) {
+            if (overflowPolicy == null) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#overflowPolicy must be set.");
+            }
+            if (enqueueTimeout < 0) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#enqueueTimeout must be greater or " +
+                        "equal to 0.");
+            }
+        }
+
+        private void validateQueueWatermarks(int queueHighWatermark, int queueLowWatermark, int maxQueueSize) {
+            if (queueHighWatermark == 0) {
+                return;
+            }
+            if (queueHighWatermark < 0 || queueHighWatermark > maxQueueSize) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#queueHighWatermark must be between 0 " +
+                        "and maxQueueSize.");
+            }
+            if (queueLowWatermark < 0 || queueLowWatermark >= queueHighWatermark) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#queueLowWatermark must be greater or " +
+                        "equal to 0 and less than queueHighWatermark.");
+            }
+        }
+
+        private void validateFlushTimeout(int flushTimeout) {
+            if (flushTimeout < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#flushTimeout must be greater than 0.");
+            }
+        }
+
+        private void validateRetryBackoff(int retryBackoff, int maxRetryBackoff) {
+            if (retryBackoff < 0) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#retryBackoff must be greater or equal " +
+                        "to 0.");
+            }
+            if (maxRetryBackoff < retryBackoff) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxRetryBackoff must be greater or " +
+                        "equal to retryBackoff.");
+            }
+        }
+
+        private void validateBatchStages(List<BatchStage> batchStages) {
+            if (batchStages.contains(null)) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#batchStages must not contain null.");
+            }
+        }
+
+        private void validateCompression(Compression compression, int compressionThreshold, int compressionLevel) {
+            if (compression == null) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#compression must be set.");
+            }
+            if (compressionThreshold < 0) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#compressionThreshold must be greater " +
+                        "or equal to 0.");
+            }
+            if (compressionLevel < 0 || compressionLevel > 9) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#compressionLevel must be between 0 " +
+                        "and 9.");
+            }
+        }
+
+        private void validateConnectionPool(int maxConnections, int maxConnectionsPerRoute, int keepAlive,
+                                            int idleConnectionTimeout, int socketBufferSize) {
+            if (maxConnectionsPerRoute < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxConnectionsPerRoute must be " +
+                        "greater than 0.");
+            }
+            if (maxConnections < maxConnectionsPerRoute) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxConnections must be greater or " +
+                        "equal to maxConnectionsPerRoute.");
+            }
+            if (keepAlive < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#keepAlive must be greater than 0.");
+            }
+            if (idleConnectionTimeout < 0) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#idleConnectionTimeout must be greater " +
+                        "or equal to 0.");
+            }
+            if (socketBufferSize < 1024) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#socketBufferSize must be at least " +
+                        "1024 bytes.");
+            }
+        }
+
+        private void validateMaxResponseBodySize(int maxResponseBodySize) {
+            if (maxResponseBodySize < 1024) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#maxResponseBodySize must be at least " +
+                        "1024 bytes.");
+            }
+        }
+
+        private void validateCircuitBreaker(int circuitBreakerThreshold, int circuitBreakerResetTimeout) {
+            if (circuitBreakerThreshold < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#circuitBreakerThreshold must be " +
+                        "greater than 0.");
+            }
+            if (circuitBreakerResetTimeout < 1) {
+                throw new IllegalArgumentException("Data-collector-sdk#options#circuitBreakerResetTimeout must be " +
+                        "greater than 0.");
+            }
+        }
+
         public Options build() {
             Options options = new Options(clientId, dataCollectorUrl, CISUrl, errorReportingUrl, maxQueueSize, timeout,
-                retries, maxActivityBatchSize, maxErrorBatchSize);
+                retries, maxActivityBatchSize, maxRequestSize, maxErrorBatchSize, maxInFlightBatches, lingerTime,
+                spoolDirectory, maxSpoolSize, spoolSegmentSize, overflowPolicy, enqueueTimeout, queueHighWatermark,
+                queueLowWatermark, queueWatermarkListener, flushTimeout, retryBackoff, maxRetryBackoff,
+                circuitBreakerThreshold, circuitBreakerResetTimeout,
+                Collections.unmodifiableList(new ArrayList<BatchStage>(batchStages)), serializeOnEnqueue, compression,
+                compressionThreshold, compressionLevel, maxConnections, maxConnectionsPerRoute, keepAlive,
+                idleConnectionTimeout, staleConnectionCheck, tcpNoDelay, socketBufferSize, maxResponseBodySize);
             validateClientId(options.getClientId());
             validateDataCollectorUrl(options.getDataCollectorUrl());
             validateCISUrl(options.getCISUrl());
@@ -269,7 +1038,23 @@ public class Options {
             validateTimeout(options.getTimeout());
             validateRetries(options.getRetries());
             validateMaxActivityBatchSize(options.getMaxActivityBatchSize());
+            validateMaxRequestSize(options.getMaxRequestSize());
             validateMaxErrorBatchSize(options.getMaxErrorBatchSize());
+            validateMaxInFlightBatches(options.getMaxInFlightBatches());
+            validateLingerTime(options.getLingerTime());
+            validateSpool(options.getSpoolDirectory(), options.getMaxSpoolSize(), options.getSpoolSegmentSize());
+            validateOverflowPolicy(options.getOverflowPolicy(), options.getEnqueueTimeout());
+            validateQueueWatermarks(options.getQueueHighWatermark(), options.getQueueLowWatermark(),
+                    options.getMaxQueueSize());
+            validateFlushTimeout(options.getFlushTimeout());
+            validateRetryBackoff(options.getRetryBackoff(), options.getMaxRetryBackoff());
+            validateCircuitBreaker(options.getCircuitBreakerThreshold(), options.getCircuitBreakerResetTimeout());
+            validateBatchStages(options.getBatchStages());
+            validateCompression(options.getCompression(), options.getCompressionThreshold(),
+                    options.getCompressionLevel());
+            validateConnectionPool(options.getMaxConnections(), options.getMaxConnectionsPerRoute(),
+                    options.getKeepAlive(), options.getIdleConnectionTimeout(), options.getSocketBufferSize());
+            validateMaxResponseBodySize(options.getMaxResponseBodySize());
             return options;
         }
     }
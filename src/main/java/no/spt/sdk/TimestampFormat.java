@@ -0,0 +1,144 @@
+package no.spt.sdk;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Formats timestamps as ISO 8601, the same way as the pattern {@code yyyy-MM-dd'T'HH:mm:ss.SSSXXX}, in the default
+ * time zone. It can be used from any thread without locking.
+ * <p>
+ * The part of the timestamp up to the seconds, and the time zone offset, are cached for the last second that was
+ * formatted, so most timestamps only need the milliseconds to be formatted.
+ */
+public final class TimestampFormat {
+
+    /**
+     * The maximum length of a formatted timestamp
+     */
+    public static final int MAX_LENGTH = 40;
+
+    private static final TimestampFormat DEFAULT = new TimestampFormat(TimeZone.getDefault());
+
+    private final TimeZone timeZone;
+    private volatile CachedSecond cachedSecond;
+
+    TimestampFormat(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.cachedSecond = createCachedSecond(0L);
+    }
+
+    /**
+     * Formats the current time
+     *
+     * @return The current time as an ISO 8601 timestamp
+     */
+    public static String now() {
+        return DEFAULT.format(System.currentTimeMillis());
+    }
+
+    /**
+     * Formats a date
+     *
+     * @param date The date to format
+     * @return The date as an ISO 8601 timestamp
+     */
+    public static String format(Date date) {
+        return DEFAULT.format(date.getTime());
+    }
+
+    /**
+     * Formats a number of milliseconds since the epoch into a buffer, without creating a String
+     *
+     * @param millis The milliseconds since the epoch
+     * @param chars  The buffer to write the timestamp to, at least {@link #MAX_LENGTH} long
+     * @return The number of characters written
+     */
+    public static int format(long millis, char[] chars) {
+        return DEFAULT.write(millis, chars);
+    }
+
+    /**
+     * Formats a number of milliseconds since the epoch
+     *
+     * @param millis The milliseconds since the epoch
+     * @return The time as an ISO 8601 timestamp
+     */
+    String format(long millis) {
+        char[] chars = new char[MAX_LENGTH];
+        return new String(chars, 0, write(millis, chars));
+    }
+
+    private int write(long millis, char[] chars) {
+        long second = floorDiv(millis, 1000L);
+        CachedSecond cached = cachedSecond;
+        if (cached.second != second) {
+            cached = createCachedSecond(second);
+            cachedSecond = cached;
+        }
+        int millisOfSecond = (int) (millis - second * 1000L);
+        System.arraycopy(cached.prefix, 0, chars, 0, cached.prefix.length);
+        int position = cached.prefix.length;
+        chars[position++] = (char) ('0' + millisOfSecond / 100);
+        chars[position++] = (char) ('0' + millisOfSecond / 10 % 10);
+        chars[position++] = (char) ('0' + millisOfSecond % 10);
+        System.arraycopy(cached.offset, 0, chars, position, cached.offset.length);
+        return position + cached.offset.length;
+    }
+
+    private CachedSecond createCachedSecond(long second) {
+        long millis = second * 1000L;
+        Calendar calendar = new GregorianCalendar(timeZone, Locale.US);
+        calendar.setTimeInMillis(millis);
+        StringBuilder prefix = new StringBuilder(24);
+        pad(prefix, calendar.get(Calendar.YEAR), 4).append('-');
+        pad(prefix, calendar.get(Calendar.MONTH) + 1, 2).append('-');
+        pad(prefix, calendar.get(Calendar.DAY_OF_MONTH), 2).append('T');
+        pad(prefix, calendar.get(Calendar.HOUR_OF_DAY), 2).append(':');
+        pad(prefix, calendar.get(Calendar.MINUTE), 2).append(':');
+        pad(prefix, calendar.get(Calendar.SECOND), 2).append('.');
+        return new CachedSecond(second, prefix.toString().toCharArray(), formatOffset(timeZone.getOffset(millis))
+                .toCharArray());
+    }
+
+    private static String formatOffset(int offsetMillis) {
+        if (offsetMillis == 0) {
+            return "Z";
+        }
+        int offsetMinutes = Math.abs(offsetMillis) / 60000;
+        StringBuilder offset = new StringBuilder(6).append(offsetMillis < 0 ? '-' : '+');
+        pad(offset, offsetMinutes / 60, 2).append(':');
+        return pad(offset, offsetMinutes % 60, 2).toString();
+    }
+
+    private static StringBuilder pad(StringBuilder builder, int value, int digits) {
+        String string = String.valueOf(value);
+        for (int i = string.length(); i < digits; i++) {
+            builder.append('0');
+        }
+        return builder.append(string);
+    }
+
+    private static long floorDiv(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        return (dividend % divisor != 0 && (dividend < 0) != (divisor < 0)) ? quotient - 1 : quotient;
+    }
+
+    /**
+     * The formatted parts of a second. It is immutable, so it can be shared between threads through a volatile field.
+     */
+    private static final class CachedSecond {
+
+        private final long second;
+        private final char[] prefix;
+        private final char[] offset;
+
+        private CachedSecond(long second, char[] prefix, char[] offset) {
+            this.second = second;
+            this.prefix = prefix;
+            this.offset = offset;
+        }
+    }
+}
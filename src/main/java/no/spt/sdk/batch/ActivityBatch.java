@@ -0,0 +1,155 @@
+package no.spt.sdk.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of serialized activities that is bounded both by the number of activities and by the size of the JSON
+ * array they are sent as. A single activity that is larger than the size limit is accepted into an empty batch, so it
+ * can still be sent on its own.
+ */
+public class ActivityBatch {
+
+    private final int maxActivities;
+    private final long maxBytes;
+    private final List<String> activities;
+    private long byteSize = 2;
+    private boolean closed;
+
+    /**
+     * Constructs a new ActivityBatch
+     *
+     * @param maxActivities The maximum number of activities in the batch
+     * @param maxBytes      The maximum size of the batch as a UTF-8 encoded JSON array
+     */
+    public ActivityBatch(int maxActivities, long maxBytes) {
+        this.maxActivities = maxActivities;
+        this.maxBytes = maxBytes;
+        this.activities = new ArrayList<String>(Math.min(maxActivities, 64));
+    }
+
+    /**
+     * Adds a serialized activity to the batch if it fits. If it does not fit, the batch is closed for further
+     * activities.
+     *
+     * @param json The activity serialized as a JSON object
+     * @return true if the activity was added, false if the batch is full
+     */
+    public boolean add(String json) {
+        if (isFull()) {
+            return false;
+        }
+        long size = utf8Length(json) + (activities.isEmpty() ? 0 : 1);
+        if (!activities.isEmpty() && byteSize + size > maxBytes) {
+            closed = true;
+            return false;
+        }
+        activities.add(json);
+        byteSize += size;
+        return true;
+    }
+
+    /**
+     * Returns true if no more activities can be added to the batch
+     *
+     * @return true if no more activities can be added to the batch
+     */
+    public boolean isFull() {
+        return closed || activities.size() >= maxActivities || byteSize >= maxBytes;
+    }
+
+    /**
+     * Returns true if the batch contains no activities
+     *
+     * @return true if the batch contains no activities
+     */
+    public boolean isEmpty() {
+        return activities.isEmpty();
+    }
+
+    /**
+     * Returns the number of activities in the batch
+     *
+     * @return The number of activities in the batch
+     */
+    public int size() {
+        return activities.size();
+    }
+
+    /**
+     * Returns the size of the batch as a UTF-8 encoded JSON array
+     *
+     * @return The size of the batch in bytes
+     */
+    public long getByteSize() {
+        return byteSize;
+    }
+
+    /**
+     * Returns the serialized activities in the batch
+     *
+     * @return The serialized activities in the batch
+     */
+    public List<String> getActivities() {
+        return activities;
+    }
+
+    /**
+     * Returns the activities in the batch as a JSON array
+     *
+     * @return The activities in the batch as a JSON array
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder((int) Math.min(byteSize, Integer.MAX_VALUE));
+        json.append('[');
+        for (int i = 0; i < activities.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(activities.get(i));
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Returns the size of serialized activities as a UTF-8 encoded JSON array
+     *
+     * @param activities The activities, each serialized as a JSON object
+     * @return The number of bytes
+     */
+    static long byteSize(List<String> activities) {
+        long size = 2;
+        for (int i = 0; i < activities.size(); i++) {
+            size += utf8Length(activities.get(i)) + (i > 0 ? 1 : 0);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the length of a String encoded as UTF-8. A surrogate that is not part of a pair is encoded as a single
+     * replacement character.
+     *
+     * @param value The String to measure
+     * @return The number of bytes
+     */
+    static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
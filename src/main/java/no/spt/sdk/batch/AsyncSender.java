@@ -0,0 +1,35 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.exceptions.DataTrackingException;
+import no.spt.sdk.models.ActivityRecord;
+
+import java.util.concurrent.Future;
+
+/**
+ * A sender that can start sending the activities in its queue without blocking the caller, and enqueue reusable
+ * activity records. Senders that only implement {@link Sender} are flushed synchronously by
+ * {@link no.spt.sdk.client.DataTrackingClient#sendAsync()}, and are given records as an
+ * {@link no.spt.sdk.models.Activity}.
+ */
+public interface AsyncSender extends Sender {
+
+    /**
+     * A method that starts sending all activities in the queue to the data collector without waiting for them to be
+     * sent
+     *
+     * @return A future that completes when every activity enqueued before the call has been handled. Senders that
+     * report errors to the caller fail the future with the {@link no.spt.sdk.exceptions.DataTrackingException} that
+     * {@link #flush()} would have thrown.
+     */
+    public Future<Void> flushAsync();
+
+    /**
+     * Enqueue an activity record to be sent to the data collector. The record is serialized before this method
+     * returns, so it can be reused afterwards.
+     * If the queue is full, the activity will be dropped
+     *
+     * @param record An activity record to enqueue
+     * @throws DataTrackingException If the record cannot be serialized, or if the queue has reached it's max size
+     */
+    public void enqueue(ActivityRecord record) throws DataTrackingException;
+}
@@ -1,38 +1,75 @@
 package no.spt.sdk.batch;
 
 import no.spt.sdk.Options;
-import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
-import no.spt.sdk.client.DataTrackingPostRequest;
-import no.spt.sdk.client.DataTrackingResponse;
 import no.spt.sdk.connection.HttpConnection;
 import no.spt.sdk.exceptions.CommunicationDataTrackingException;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.exceptions.ErrorCollector;
 import no.spt.sdk.exceptions.error.ActivitySendingError;
 import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
 import no.spt.sdk.serializers.ASJsonConverter;
+import no.spt.sdk.spool.ActivitySpool;
 import no.spt.sdk.stats.DataTrackingStats;
-import org.apache.http.HttpStatus;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A sender that automatically sends activities from the queue to the data collector.
- * It sends batches of activities to the data collector on a separate thread.
+ * It collects batches of activities on a separate thread, which is parked while the queue is empty and woken up when
+ * new activities are enqueued, and sends up to {@link no.spt.sdk.Options#getMaxInFlightBatches()} batches to the
+ * data collector concurrently through the {@link BatchStage send pipeline}.
+ * A batch that could not be sent is retried after an exponential backoff with jitter, without blocking the sender
+ * thread or a worker thread while waiting. Responses that ask the client to come back later, like 503 and 429, are
+ * retried the same way, and a Retry-After header pauses sending of all batches for as long as it asks. If a
+ * multi-status response reports that only some activities failed for transient reasons, only those activities are
+ * retried. If requests keep failing, a circuit breaker stops the sender thread from taking more activities from the
+ * queue, and holds back retries, until a probe request succeeds.
+ * If a spool directory is configured, activities are serialized and appended to a spool on disk when they are
+ * enqueued instead of being queued in memory. The spool read position is committed once the batches read from it
+ * have been handled, so activities that were not sent before the application stopped are sent when it starts again.
+ * With {@link Options#isSerializeOnEnqueue()} activities that are queued in memory are serialized when they are
+ * enqueued as well, so the sender thread only has to join them into batches.
  */
-public class AutomaticBatchSender implements Runnable, Sender {
+public class AutomaticBatchSender implements Runnable, AsyncSender {
 
-    private static final Object fileLock = new Object();
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
     private final Thread thread;
-    private LinkedBlockingQueue<Activity> activityQueue;
+    private final RingBuffer<Object> activityQueue;
+    private final ActivitySpool spool;
+    private final SequenceTracker sequenceTracker;
+    private final Backpressure backpressure;
+    private final ScheduledExecutorService batchExecutor;
+    private final Backoff backoff;
+    private final CircuitBreaker circuitBreaker;
+    private final SendPipeline pipeline;
+    private final Semaphore inFlightPermits;
+    private final Map<Future<?>, BatchTask> scheduledRetries = new HashMap<Future<?>, BatchTask>();
+    private final AtomicLong flushSequence = new AtomicLong();
+    private final AtomicLong resumeTime = new AtomicLong(System.nanoTime());
     private volatile boolean shouldSend;
+    private volatile boolean waitingForActivities;
+    private String pending;
+    private long pendingSequence;
+    private long pendingCheckpoint;
     private HttpConnection client;
-    private volatile CountDownLatch latch;
     private Options options;
     private ErrorCollector errorCollector;
     private ASJsonConverter jsonConverter;
@@ -47,15 +84,43 @@ public class AutomaticBatchSender implements Runnable, Sender {
                                 ASJsonConverter jsonConverter, DataTrackingStats stats) {
         this.client = client;
         this.errorCollector = errorCollector;
-        this.activityQueue = new LinkedBlockingQueue<Activity>();
+        this.activityQueue = new RingBuffer<Object>(options.getMaxQueueSize());
+        this.spool = openSpool(options, errorCollector);
+        this.sequenceTracker = new SequenceTracker();
+        this.backpressure = new Backpressure(options);
+        this.batchExecutor = Executors.newScheduledThreadPool(options.getMaxInFlightBatches());
+        this.backoff = new Backoff(options.getRetryBackoff(), options.getMaxRetryBackoff());
+        this.circuitBreaker = new CircuitBreaker(options.getCircuitBreakerThreshold(),
+                options.getCircuitBreakerResetTimeout());
+        this.pipeline = SendPipeline.create(options, client, jsonConverter, stats);
+        this.inFlightPermits = new Semaphore(options.getMaxInFlightBatches());
         this.shouldSend = true;
-        this.latch = new CountDownLatch(0);
         this.options = options;
         this.thread = new Thread(this);
         this.jsonConverter = jsonConverter;
         this.stats = stats;
     }
 
+    /**
+     * Opens the spool in the configured spool directory. If the spool cannot be opened the error is collected and
+     * activities are queued in memory instead.
+     *
+     * @return The spool, or null if spooling is disabled or the spool could not be opened
+     */
+    private static ActivitySpool openSpool(Options options, ErrorCollector errorCollector) {
+        if (options.getSpoolDirectory() == null) {
+            return null;
+        }
+        try {
+            return new ActivitySpool(new File(options.getSpoolDirectory()), options.getMaxSpoolSize(),
+                    options.getSpoolSegmentSize());
+        } catch (IOException e) {
+            errorCollector.collect(new DataTrackingException("Unable to open spool, queueing activities in memory.",
+                    e, ActivitySendingError.SPOOL_ERROR));
+            return null;
+        }
+    }
+
     /**
      * Initializes the sender and starts the thread that is responsible for polling activities from the queue
      * and sending them to the data collector
@@ -68,125 +133,312 @@ public class AutomaticBatchSender implements Runnable, Sender {
     @Override
     public void run() {
         while (shouldSend) {
-            List<Activity> current = new LinkedList<Activity>();
-
-            do {
-                if (activityQueue.size() == 0) {
-                    latch.countDown();
+            ActivityBatch current = new ActivityBatch(options.getMaxActivityBatchSize(), options.getMaxRequestSize());
+            long batchStart = getBatchedSequence();
+            fill(current);
+            backpressure.update(getQueueDepth());
+            if (current.isEmpty()) {
+                // Activities that could not be serialized were dropped without a batch, so they are acknowledged
+                // here. This waits for batches in flight, which wake the sender thread when they complete.
+                sequenceTracker.skipTo(getBatchedSequence());
+                awaitActivities();
+                continue;
+            }
+            if (options.getLingerTime() > 0) {
+                linger(current, batchStart);
+            }
+            SequenceTracker.Ticket ticket = sequenceTracker.start(getBatchedSequence(), getBatchedCheckpoint());
+            inFlightPermits.acquireUninterruptibly();
+            awaitDispatch();
+            batchExecutor.execute(new BatchTask(current, ticket));
+        }
+        try {
+            inFlightPermits.tryAcquire(options.getMaxInFlightBatches(), options.getFlushTimeout(),
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            // Stop waiting for batches that are being retried
+        }
+        List<BatchTask> abandoned = new ArrayList<BatchTask>();
+        synchronized (scheduledRetries) {
+            for (Runnable task : batchExecutor.shutdownNow()) {
+                BatchTask batchTask = scheduledRetries.remove(task);
+                if (batchTask != null) {
+                    abandoned.add(batchTask);
                 }
+            }
+        }
+        for (BatchTask batchTask : abandoned) {
+            batchTask.abandon();
+        }
+        pending = null;
+        if (spool != null) {
+            sequenceTracker.abandonAll(spool.getAppendedCount());
+            spool.close();
+        } else {
+            activityQueue.clear();
+            sequenceTracker.abandonAll(activityQueue.getConsumerSequence());
+        }
+    }
 
-                Activity activity = null;
-                try {
-                    activity = activityQueue.poll(500, TimeUnit.MILLISECONDS);
-                } catch (InterruptedException e) {
-                    errorCollector.collect(new DataTrackingException("Interrupted while trying to flush activity " +
-                            "queue.", e, ActivitySendingError.INTERRUPTED_ERROR));
+    /**
+     * Moves activities from the queue into the batch until the batch is full or the queue is empty. An activity that
+     * does not fit into the batch is kept for the next batch.
+     *
+     * @param batch The batch to fill
+     */
+    private void fill(ActivityBatch batch) {
+        while (!batch.isFull()) {
+            if (pending == null && spool != null) {
+                pendingSequence = spool.getReadCount();
+                pendingCheckpoint = spool.getReadPosition();
+                byte[] record = spool.read();
+                if (record == null) {
+                    return;
                 }
-
-                if (activity != null) {
-                    synchronized (fileLock) {
-                        if (latch.getCount() == 0) {
-                            latch = new CountDownLatch(1);
-                        }
-                    }
-                    current.add(activity);
+                pending = new String(record, UTF_8);
+            } else if (pending == null) {
+                pendingSequence = activityQueue.getConsumerSequence();
+                Object element = activityQueue.poll();
+                if (element == null) {
+                    return;
+                }
+                pending = element instanceof String ? (String) element : serialize((Activity) element);
+                if (pending == null) {
+                    continue;
                 }
-            } while (shouldSend && activityQueue.size() > 0 && current.size() < options.getMaxActivityBatchSize());
-
-            try {
-                sendBatch(current);
-            } catch (DataTrackingException e) {
-                errorCollector.collect(e);
             }
-            try {
-                Thread.sleep(0);
-            } catch (InterruptedException e) {
-                // Interrupted while sleeping flushing thread
+            if (!batch.add(pending)) {
+                return;
             }
+            pending = null;
         }
     }
 
-    private void sendBatch(List<Activity> current) throws DataTrackingException {
-        boolean success = true;
-        int retryCount = 0;
-        long currentSize = current.size();
-        do {
-            try {
-                if (current.size() > 0) {
-                    DataTrackingPostRequest request = new DataTrackingPostRequest(options.getDataCollectorUrl(),
-                            null, jsonConverter.serialize(current));
-                    DataTrackingResponse response = client.send(request);
-                    stats.incrementSentBatches();
-                    current = new LinkedList<Activity>();
-                    if (response.getResponseCode() == HttpStatus.SC_BAD_REQUEST) {
-                        DataCollectorResponse resp = jsonConverter.deserializeDataCollectorResponse(response
-                            .getRawBody());
-                        if(resp.getErrors().size() > 0) {
-                            stats.addToValidationFailed(resp.getErrors().size());
-                        } else {
-                            stats.addToSendingFailed(currentSize);
-                        }
-                        throw new CommunicationDataTrackingException("Response from Data Collector was not OK",
-                                response, request, ActivitySendingError.BAD_REQUEST);
-                    } else if (response.getResponseCode() == HttpStatus.SC_MULTI_STATUS) {
-                        DataCollectorResponse resp = jsonConverter.deserializeDataCollectorResponse(response.getRawBody());
-                        stats.addToValidationFailed(resp.getErrors().size());
-                        stats.addToSuccessful(resp.getSuccess().size());
-                        throw new CommunicationDataTrackingException("Some of the activities could not be validated " +
-                                "by Data Collector", response, request, ActivitySendingError.VALIDATION_ERROR);
-                    } else if (response.getResponseCode() != HttpStatus.SC_OK) {
-                        stats.addToSendingFailed(currentSize);
-                        throw new CommunicationDataTrackingException("Unexpected response from Data Collector",
-                                response, request, ActivitySendingError.UNEXPECTED_RESPONSE);
-                    }
-                    stats.addToSuccessful(currentSize);
-                }
-                success = true;
-            } catch (IOException e) {
-                retryCount++;
-                success = false;
+    /**
+     * Serializes a single activity. If the activity cannot be serialized it is dropped and the error is collected.
+     *
+     * @param activity The activity to serialize
+     * @return The activity serialized as a JSON object, or null if it could not be serialized
+     */
+    private String serialize(Activity activity) {
+        try {
+            return jsonConverter.serialize(activity);
+        } catch (IOException e) {
+            stats.incrementSendingFailed();
+            errorCollector.collect(new DataTrackingException("Unable to serialize activity, dropping activity.", e,
+                    ActivitySendingError.SERIALIZATION_ERROR));
+            return null;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the first activity that has not been added to a batch. Activities that are
+     * evicted from the queue by {@link OverflowPolicy#DROP_OLDEST} while an activity is pending may have been taken
+     * before the pending activity, so the sequence read before it was taken is used as a lower bound.
+     *
+     * @return The sequence number of the first activity that has not been added to a batch
+     */
+    private long getBatchedSequence() {
+        if (pending != null) {
+            return pendingSequence;
+        }
+        return spool != null ? spool.getReadCount() : activityQueue.getConsumerSequence();
+    }
+
+    /**
+     * Returns the spool read position of the first activity that has not been added to a batch
+     *
+     * @return The spool read position of the first activity that has not been added to a batch, or -1 if activities
+     * are not spooled
+     */
+    private long getBatchedCheckpoint() {
+        if (spool == null) {
+            return -1;
+        }
+        return pending == null ? spool.getReadPosition() : pendingCheckpoint;
+    }
+
+    /**
+     * Returns the sequence number of the next activity that is enqueued
+     *
+     * @return The sequence number of the next activity that is enqueued
+     */
+    private long getEnqueuedSequence() {
+        return spool != null ? spool.getAppendedCount() : activityQueue.getProducerSequence();
+    }
+
+    private boolean isQueueEmpty() {
+        return spool != null ? spool.size() == 0 : activityQueue.isEmpty();
+    }
+
+    /**
+     * Waits up to the linger time for the batch to fill up. Returns early if the batch is full, if the sender is
+     * closed or if any activity in the batch is being flushed.
+     *
+     * @param batch      The batch to fill up
+     * @param batchStart The sequence number of the first activity in the batch
+     */
+    private void linger(ActivityBatch batch, long batchStart) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getLingerTime());
+        while (shouldSend && !batch.isFull() && flushSequence.get() <= batchStart) {
+            fill(batch);
+            long remaining = deadline - System.nanoTime();
+            if (batch.isFull() || remaining <= 0) {
+                return;
+            }
+            waitingForActivities = true;
+            if (shouldSend && isQueueEmpty() && flushSequence.get() <= batchStart) {
+                LockSupport.parkNanos(this, remaining);
             }
-        } while (!success && retryCount <= options.getRetries());
+            waitingForActivities = false;
+        }
+    }
+
+    /**
+     * Parks the sender thread while sending is paused by a Retry-After header, and while the circuit breaker does not
+     * allow requests. The sender thread is woken up when a batch completes, since that may close the circuit. A batch
+     * that is taken while the sender is closing is sent anyway.
+     */
+    private void awaitDispatch() {
+        long remainingPause;
+        while (shouldSend && (remainingPause = resumeTime.get() - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remainingPause);
+        }
+        while (shouldSend && !circuitBreaker.allowRequest()) {
+            long remaining = circuitBreaker.getRemainingOpenMillis();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(remaining > 0 ? remaining : options
+                    .getCircuitBreakerResetTimeout()));
+        }
+    }
 
-        if (!success) {
-            stats.addToSendingFailed(currentSize);
-            throw new DataTrackingException(String.format("Unable to send batch after %s tries. Giving up on this" +
-                    " batch.", retryCount), ActivitySendingError.HTTP_CONNECTION_ERROR);
+    /**
+     * Pauses sending of new batches until the given amount of milliseconds has passed, unless sending is already
+     * paused for longer
+     *
+     * @param millis The amount of milliseconds to pause for
+     */
+    private void pause(long millis) {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        long current = resumeTime.get();
+        while (until - current > 0 && !resumeTime.compareAndSet(current, until)) {
+            current = resumeTime.get();
         }
+    }
 
+    /**
+     * Parks the sender thread until an activity is enqueued or the sender is closed
+     */
+    private void awaitActivities() {
+        waitingForActivities = true;
+        if (shouldSend && isQueueEmpty()) {
+            LockSupport.park(this);
+        }
+        waitingForActivities = false;
     }
 
     /**
-     * Sends all activities in the queue to the data collector. Blocks until all activities are sent, maximum 2 minutes.
+     * Sends all activities in the queue to the data collector. Blocks until all activities that were enqueued before
+     * this call are sent, maximum {@link Options#getFlushTimeout()} milliseconds.
      *
-     * @throws DataTrackingException If interrupted while waiting
+     * @throws DataTrackingException If interrupted or timed out while waiting
      */
     @Override
     public void flush() throws DataTrackingException {
         try {
-            latch.await(2, TimeUnit.MINUTES);
+            flushAsync().get(options.getFlushTimeout(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
             throw new DataTrackingException(e, ActivitySendingError.INTERRUPTED_ERROR);
+        } catch (ExecutionException e) {
+            throw new DataTrackingException(e.getCause(), ActivitySendingError.GENERAL_ACTIVITY_SENDING_ERROR);
+        } catch (TimeoutException e) {
+            throw new DataTrackingException(String.format("Activities were not sent within %s milliseconds.",
+                    options.getFlushTimeout()), e, ActivitySendingError.FLUSH_TIMEOUT_ERROR);
+        }
+    }
+
+    /**
+     * Starts sending all activities in the queue to the data collector without waiting for them to be sent.
+     * Activities that are being flushed are sent without waiting for the linger time. Only activities enqueued before
+     * this call are waited for, and callers that flush at the same time share the same future. Errors are collected
+     * by the error collector, so the future never fails.
+     *
+     * @return A future that completes when every activity enqueued before the call has been handled
+     */
+    @Override
+    public Future<Void> flushAsync() {
+        long target = getEnqueuedSequence();
+        Future<Void> future = sequenceTracker.whenAcknowledged(target);
+        if (!future.isDone()) {
+            requestFlush(target);
+        }
+        return future;
+    }
+
+    /**
+     * Makes sure activities before the given sequence number are sent without lingering
+     *
+     * @param target The sequence number of the first activity that is not being flushed
+     */
+    private void requestFlush(long target) {
+        long current = flushSequence.get();
+        while (current < target && !flushSequence.compareAndSet(current, target)) {
+            current = flushSequence.get();
         }
+        LockSupport.unpark(thread);
     }
 
     /**
      * Enqueue an activity to be sent to the data collector.
-     * If the queue is full, the activity will be dropped
+     * If the queue is full, the configured {@link OverflowPolicy} decides whether the activity is dropped
      *
      * @param activity an activity to enqueue
-     * @throws DataTrackingException if the queue has reached it's max size
+     * @throws DataTrackingException if the activity is dropped
      */
     @Override
     public void enqueue(Activity activity) throws DataTrackingException {
-        if (activityQueue.size() < options.getMaxQueueSize()) {
-            synchronized (fileLock) {
-                if (latch.getCount() == 0) {
-                    latch = new CountDownLatch(1);
-                }
-                this.activityQueue.add(activity);
-                stats.incrementQueuedActivities();
+        checkShedding();
+        if (spool != null) {
+            add(activity, toJson(activity).getBytes(UTF_8));
+        } else {
+            add(options.isSerializeOnEnqueue() ? toJson(activity) : activity, null);
+        }
+    }
+
+    /**
+     * Enqueue an activity record to be sent to the data collector. The record is always serialized when it is
+     * enqueued, so it can be reused.
+     * If the queue is full, the configured {@link OverflowPolicy} decides whether the activity is dropped
+     *
+     * @param record an activity record to enqueue
+     * @throws DataTrackingException if the activity is dropped
+     */
+    @Override
+    public void enqueue(ActivityRecord record) throws DataTrackingException {
+        checkShedding();
+        String json = toJson(record);
+        add(json, spool != null ? json.getBytes(UTF_8) : null);
+    }
+
+    private void checkShedding() throws DataTrackingException {
+        if (backpressure.shouldShed(getQueueDepth())) {
+            stats.incrementDropped();
+            throw new DataTrackingException("Queue is shedding load, dropping activity.", ActivitySendingError
+                    .QUEUE_LOAD_SHED);
+        }
+    }
+
+    /**
+     * Adds an activity, or the activity serialized as JSON, to the queue, or its record to the spool
+     *
+     * @throws DataTrackingException if the activity is dropped
+     */
+    private void add(Object element, byte[] record) throws DataTrackingException {
+        if (offer(element, record)) {
+            stats.incrementQueuedActivities();
+            if (waitingForActivities) {
+                LockSupport.unpark(thread);
             }
+            backpressure.update(getQueueDepth());
         } else {
             stats.incrementDropped();
             throw new DataTrackingException("Queue has reached maxSize, dropping activity.", ActivitySendingError
@@ -194,6 +446,72 @@ public class AutomaticBatchSender implements Runnable, Sender {
         }
     }
 
+    /**
+     * Adds an activity, or the activity serialized as JSON, to the queue, or its record to the spool, applying the
+     * overflow policy if there is no room
+     *
+     * @return true if the activity was added
+     */
+    private boolean offer(Object element, byte[] record) throws DataTrackingException {
+        if (tryOffer(element, record)) {
+            return true;
+        }
+        switch (options.getOverflowPolicy()) {
+            case BLOCK:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.getEnqueueTimeout());
+                while (deadline - System.nanoTime() > 0 && !Thread.currentThread().isInterrupted()) {
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (tryOffer(element, record)) {
+                        return true;
+                    }
+                }
+                return false;
+            case DROP_OLDEST:
+                if (spool != null) {
+                    return false;
+                }
+                do {
+                    if (activityQueue.poll() != null) {
+                        stats.incrementDropped();
+                    }
+                } while (!activityQueue.offer(element));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private boolean tryOffer(Object element, byte[] record) throws DataTrackingException {
+        if (spool == null) {
+            return activityQueue.offer(element);
+        }
+        try {
+            return spool.append(record);
+        } catch (IOException e) {
+            stats.incrementDropped();
+            throw new DataTrackingException("Unable to write activity to spool, dropping activity.", e,
+                    ActivitySendingError.SPOOL_ERROR);
+        }
+    }
+
+    /**
+     * Serializes an activity or an activity record on the thread that enqueues it, before it is appended to the spool
+     * or queued
+     *
+     * @param activity an activity or an activity record to serialize
+     * @return the activity as JSON
+     * @throws DataTrackingException if the activity cannot be serialized
+     */
+    private String toJson(Object activity) throws DataTrackingException {
+        try {
+            return jsonConverter.serialize(activity);
+        } catch (IOException e) {
+            stats.incrementDropped();
+            throw new DataTrackingException("Unable to serialize activity, dropping activity.", e,
+                    ActivitySendingError.SERIALIZATION_ERROR);
+        }
+    }
+
     /**
      * This method closes the sender after flushing and clearing the queue.
      *
@@ -201,9 +519,24 @@ public class AutomaticBatchSender implements Runnable, Sender {
      */
     @Override
     public void close() throws DataTrackingException {
-        flush();
+        DataTrackingException flushError = null;
+        try {
+            flush();
+        } catch (DataTrackingException e) {
+            flushError = e;
+        }
         shouldSend = false;
-        activityQueue.clear();
+        LockSupport.unpark(thread);
+        try {
+            // The sender thread waits at most the flush timeout for batches in flight, so the spool is closed and
+            // pending flushes are released before this returns
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new DataTrackingException(e, ActivitySendingError.INTERRUPTED_ERROR);
+        }
+        if (flushError != null) {
+            throw flushError;
+        }
     }
 
     /**
@@ -213,7 +546,165 @@ public class AutomaticBatchSender implements Runnable, Sender {
      */
     @Override
     public int getQueueDepth() {
-        return activityQueue.size();
+        return spool != null ? spool.size() : activityQueue.size();
+    }
+
+    /**
+     * Sends one batch of activities through the send pipeline on a worker thread and acknowledges it when it has been
+     * handled. A failed attempt is rescheduled after a backoff, so no thread is blocked while waiting to retry. If only
+     * some of the activities failed for transient reasons, only those activities are sent again.
+     */
+    private class BatchTask implements Runnable {
+
+        private final SequenceTracker.Ticket ticket;
+        private List<String> activities;
+        private long byteSize;
+        private int attempts;
+        private Future<?> retryFuture;
+
+        private BatchTask(ActivityBatch batch, SequenceTracker.Ticket ticket) {
+            this.activities = batch.getActivities();
+            this.byteSize = batch.getByteSize();
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void run() {
+            if (attempts > 0) {
+                synchronized (scheduledRetries) {
+                    scheduledRetries.remove(retryFuture);
+                }
+                if (!awaitCircuitBreaker()) {
+                    return;
+                }
+            }
+            attempts++;
+            boolean outcomeRecorded = false;
+            try {
+                BatchContext context = pipeline.send(activities, byteSize);
+                circuitBreaker.recordSuccess();
+                outcomeRecorded = true;
+                if (context.getError() != null) {
+                    errorCollector.collect(context.getError());
+                }
+                if (!context.getRetryActivities().isEmpty()) {
+                    activities = context.getRetryActivities();
+                    byteSize = -1;
+                    if (attempts <= options.getRetries() && retry(0)) {
+                        return;
+                    }
+                    stats.addToSendingFailed(activities.size());
+                    errorCollector.collect(new DataTrackingException(String.format("Unable to send %s activities " +
+                            "after %s tries. Giving up on these activities.", activities.size(), attempts),
+                            ActivitySendingError.UNEXPECTED_RESPONSE));
+                }
+            } catch (RetryableResponseException e) {
+                circuitBreaker.recordFailure();
+                outcomeRecorded = true;
+                long retryAfter = Math.min(e.getRetryAfterMillis(), options.getFlushTimeout());
+                if (retryAfter > 0) {
+                    pause(retryAfter);
+                }
+                if (attempts <= options.getRetries() && retry(retryAfter)) {
+                    return;
+                }
+                stats.addToSendingFailed(activities.size());
+                errorCollector.collect(new CommunicationDataTrackingException(String.format("Data Collector " +
+                        "responded with status %s after %s tries. Giving up on this batch.", e.getResponse()
+                        .getResponseCode(), attempts), e.getResponse(), e.getRequest(), ActivitySendingError
+                        .UNEXPECTED_RESPONSE));
+            } catch (IOException e) {
+                circuitBreaker.recordFailure();
+                outcomeRecorded = true;
+                if (attempts <= options.getRetries() && retry(0)) {
+                    return;
+                }
+                stats.addToSendingFailed(activities.size());
+                errorCollector.collect(new DataTrackingException(String.format("Unable to send batch after %s " +
+                        "tries. Giving up on this batch.", attempts), ActivitySendingError.HTTP_CONNECTION_ERROR));
+            } catch (DataTrackingException e) {
+                errorCollector.collect(e);
+            } catch (RuntimeException e) {
+                errorCollector.collect(new DataTrackingException(e, ActivitySendingError
+                        .GENERAL_ACTIVITY_SENDING_ERROR));
+            } finally {
+                if (!outcomeRecorded) {
+                    circuitBreaker.releaseProbe();
+                }
+            }
+            complete();
+        }
+
+        /**
+         * Checks that the circuit breaker allows a retry. While the circuit is open, or while another request probes
+         * it, the retry is scheduled again for when a probe may be sent, without counting as an attempt.
+         *
+         * @return true if the retry may be sent now
+         */
+        private boolean awaitCircuitBreaker() {
+            if (circuitBreaker.allowRequest()) {
+                return true;
+            }
+            long remaining = circuitBreaker.getRemainingOpenMillis();
+            if (!schedule(remaining > 0 ? remaining : options.getCircuitBreakerResetTimeout())) {
+                stats.addToSendingFailed(activities.size());
+                errorCollector.collect(new DataTrackingException(String.format("Data Collector is unavailable. " +
+                        "Giving up on %s activities.", activities.size()), ActivitySendingError
+                        .CIRCUIT_BREAKER_OPEN));
+                complete();
+            }
+            return false;
+        }
+
+        /**
+         * Schedules the next attempt after the backoff, or after the delay the data collector asked for if that is
+         * longer
+         *
+         * @param minimumDelay The minimum amount of milliseconds to wait
+         * @return true if the next attempt was scheduled
+         */
+        private boolean retry(long minimumDelay) {
+            return schedule(Math.max(minimumDelay, backoff.delayMillis(attempts)));
+        }
+
+        /**
+         * Schedules this task to run again after the given delay
+         *
+         * @param delay The amount of milliseconds to wait
+         * @return true if the task was scheduled
+         */
+        private boolean schedule(long delay) {
+            try {
+                synchronized (scheduledRetries) {
+                    retryFuture = batchExecutor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                    scheduledRetries.put(retryFuture, this);
+                }
+                return true;
+            } catch (RejectedExecutionException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Gives up on a batch whose retry was scheduled but never ran because the sender was closed. Its ticket is
+         * left in flight until the sender abandons every ticket, so no spool position after it is committed and
+         * spooled activities are read again the next time the spool is opened.
+         */
+        private void abandon() {
+            stats.addToSendingFailed(activities.size());
+            errorCollector.collect(new DataTrackingException(String.format("Sender was closed before %s activities " +
+                    "could be sent again. Giving up on these activities.", activities.size()), ActivitySendingError
+                    .GENERAL_ACTIVITY_SENDING_ERROR));
+        }
+
+        private void complete() {
+            long checkpoint = sequenceTracker.complete(ticket);
+            if (spool != null && checkpoint >= 0) {
+                spool.commit(checkpoint);
+            }
+            inFlightPermits.release();
+            LockSupport.unpark(thread);
+        }
     }
 
 }
@@ -0,0 +1,44 @@
+package no.spt.sdk.batch;
+
+import java.util.Random;
+
+/**
+ * Calculates how long to wait before retrying a request, using exponential backoff with full jitter. The delay before
+ * a retry is a random value between 0 and the initial backoff doubled for every previous attempt, capped at the
+ * maximum backoff, so clients that failed at the same time do not retry at the same time.
+ */
+class Backoff {
+
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final long initialMillis;
+    private final long maxMillis;
+
+    Backoff(long initialMillis, long maxMillis) {
+        this.initialMillis = initialMillis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Returns the amount of milliseconds to wait before the given retry
+     *
+     * @param retry The number of the retry, starting at 1
+     * @return The amount of milliseconds to wait
+     */
+    long delayMillis(int retry) {
+        long ceiling = initialMillis;
+        for (int i = 1; i < retry && ceiling < maxMillis; i++) {
+            ceiling <<= 1;
+        }
+        ceiling = Math.min(ceiling, maxMillis);
+        if (ceiling <= 0) {
+            return 0;
+        }
+        return (long) (RANDOM.get().nextDouble() * ceiling);
+    }
+}
@@ -0,0 +1,74 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.Options;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies the load shedding and queue watermark settings in {@link Options} to the queue depth of a sender
+ */
+class Backpressure {
+
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private final boolean shedding;
+    private final int maxQueueSize;
+    private final int shedThreshold;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final QueueWatermarkListener listener;
+    private final AtomicBoolean aboveHighWatermark = new AtomicBoolean();
+
+    Backpressure(Options options) {
+        this.shedding = options.getOverflowPolicy() == OverflowPolicy.SHED;
+        this.maxQueueSize = options.getMaxQueueSize();
+        this.highWatermark = options.getQueueHighWatermark();
+        this.lowWatermark = options.getQueueLowWatermark();
+        this.shedThreshold = highWatermark > 0 ? highWatermark : maxQueueSize / 2;
+        this.listener = options.getQueueWatermarkListener();
+    }
+
+    /**
+     * Decides whether a new activity should be dropped to shed load
+     *
+     * @param queueDepth The current queue depth
+     * @return true if the activity should be dropped
+     */
+    boolean shouldShed(int queueDepth) {
+        if (!shedding || queueDepth < shedThreshold) {
+            return false;
+        }
+        if (queueDepth >= maxQueueSize) {
+            return true;
+        }
+        double probability = (double) (queueDepth - shedThreshold) / (maxQueueSize - shedThreshold);
+        return RANDOM.get().nextDouble() < probability;
+    }
+
+    /**
+     * Notifies the listener if the queue depth has crossed a watermark. Each watermark is only reported once until
+     * the other watermark has been crossed.
+     *
+     * @param queueDepth The current queue depth
+     */
+    void update(int queueDepth) {
+        if (listener == null || highWatermark <= 0) {
+            return;
+        }
+        if (queueDepth >= highWatermark) {
+            if (aboveHighWatermark.compareAndSet(false, true)) {
+                listener.onHighWatermark(queueDepth);
+            }
+        } else if (queueDepth <= lowWatermark) {
+            if (aboveHighWatermark.compareAndSet(true, false)) {
+                listener.onLowWatermark(queueDepth);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.client.RequestBody;
+import no.spt.sdk.exceptions.DataTrackingException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds a single attempt to send a batch of activities as it moves through the stages of the send pipeline
+ */
+public class BatchContext {
+
+    private final Options options;
+    private final List<String> activities;
+    private final List<String> sourceActivities;
+    private final long sourceByteSize;
+    private final Map<String, String> headers = new HashMap<String, String>();
+    private RequestBody body;
+    private DataTrackingPostRequest request;
+    private DataTrackingResponse response;
+    private long accepted;
+    private long rejected;
+    private long failed;
+    private List<String> retryActivities = Collections.emptyList();
+    private DataTrackingException error;
+    private RetryableResponseException retryableFailure;
+
+    /**
+     * Constructs a new BatchContext
+     *
+     * @param options    The options of the sender
+     * @param activities The serialized activities to send. The list is copied, so stages can change it.
+     */
+    public BatchContext(Options options, List<String> activities) {
+        this(options, activities, -1);
+    }
+
+    /**
+     * @param options    The options of the sender
+     * @param activities The serialized activities to send. The list is copied, so stages can change it.
+     * @param byteSize   The size of the activities as a UTF-8 encoded JSON array, or -1 if it is not known
+     */
+    BatchContext(Options options, List<String> activities, long byteSize) {
+        this.options = options;
+        this.activities = new ArrayList<String>(activities);
+        this.sourceActivities = activities;
+        this.sourceByteSize = byteSize;
+    }
+
+    /**
+     * Returns the options of the sender
+     *
+     * @return The options of the sender
+     */
+    public Options getOptions() {
+        return options;
+    }
+
+    /**
+     * Returns the activities in the batch, each serialized as a JSON object. Stages that run before the batch is
+     * encoded may change the list.
+     *
+     * @return The activities in the batch
+     */
+    public List<String> getActivities() {
+        return activities;
+    }
+
+    /**
+     * Returns the size of the activities as a UTF-8 encoded JSON array. The size measured when the batch was filled is
+     * used as long as no stage has changed the activities, so they are only measured again if they have changed.
+     *
+     * @return The size of the activities in bytes
+     */
+    long getActivitiesByteSize() {
+        if (sourceByteSize >= 0 && activities.size() == sourceActivities.size()) {
+            boolean unchanged = true;
+            for (int i = 0; i < activities.size() && unchanged; i++) {
+                unchanged = activities.get(i) == sourceActivities.get(i);
+            }
+            if (unchanged) {
+                return sourceByteSize;
+            }
+        }
+        return ActivityBatch.byteSize(activities);
+    }
+
+    /**
+     * Returns the HTTP headers to send with the request. Stages may add headers.
+     *
+     * @return The HTTP headers of the request
+     */
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the encoded request body
+     *
+     * @return The request body, or null if the batch has not been encoded or there is nothing to send
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * Sets the encoded request body
+     *
+     * @param body The request body
+     */
+    public void setBody(RequestBody body) {
+        this.body = body;
+    }
+
+    /**
+     * Returns the request that was sent to the data collector
+     *
+     * @return The request, or null if it has not been sent
+     */
+    public DataTrackingPostRequest getRequest() {
+        return request;
+    }
+
+    void setRequest(DataTrackingPostRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Returns the response from the data collector
+     *
+     * @return The response, or null if the request has not been sent
+     */
+    public DataTrackingResponse getResponse() {
+        return response;
+    }
+
+    void setResponse(DataTrackingResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Returns the number of activities the data collector accepted
+     *
+     * @return The number of activities the data collector accepted
+     */
+    public long getAccepted() {
+        return accepted;
+    }
+
+    /**
+     * Returns the number of activities the data collector rejected because they were not valid
+     *
+     * @return The number of activities that were rejected
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of activities that could not be sent and will not be retried
+     *
+     * @return The number of activities that failed
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    void setOutcome(long accepted, long rejected, long failed) {
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.failed = failed;
+    }
+
+    /**
+     * Returns the activities that failed for transient reasons and should be sent again
+     *
+     * @return The activities to send again, which may be empty
+     */
+    public List<String> getRetryActivities() {
+        return retryActivities;
+    }
+
+    void setRetryActivities(List<String> retryActivities) {
+        this.retryActivities = retryActivities;
+    }
+
+    /**
+     * Returns the error the data collector responded with
+     *
+     * @return The error, or null if the response did not contain an error
+     */
+    public DataTrackingException getError() {
+        return error;
+    }
+
+    void setError(DataTrackingException error) {
+        this.error = error;
+    }
+
+    RetryableResponseException getRetryableFailure() {
+        return retryableFailure;
+    }
+
+    void setRetryableFailure(RetryableResponseException retryableFailure) {
+        this.retryableFailure = retryableFailure;
+    }
+}
@@ -0,0 +1,26 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.exceptions.DataTrackingException;
+
+import java.io.IOException;
+
+/**
+ * A stage in the pipeline that both senders send batches of activities through. The pipeline encodes the batch into
+ * a request body, sends it, interprets the response and updates the stats, each in its own stage. Custom stages added
+ * with {@link no.spt.sdk.Options.Builder#addBatchStage(BatchStage)} run before the batch is encoded, so they can
+ * enrich, filter or sample the serialized activities in {@link BatchContext#getActivities()}. If a stage removes all
+ * activities, nothing is sent.
+ *
+ * The stages run on every attempt to send a batch, on the sender's threads, so a stage must be thread safe.
+ */
+public interface BatchStage {
+
+    /**
+     * Processes a batch on its way to the data collector
+     *
+     * @param context The batch and everything the previous stages have added to it
+     * @throws IOException           If the batch could not be sent, and should be retried
+     * @throws DataTrackingException If the batch should not be sent
+     */
+    void process(BatchContext context) throws IOException, DataTrackingException;
+}
@@ -0,0 +1,97 @@
+package no.spt.sdk.batch;
+
+/**
+ * Stops requests to the data collector while it is unhealthy.
+ *
+ * The circuit opens after a number of consecutive failed requests. While it is open no requests are allowed, so
+ * activities stay in the queue or spool. When the reset timeout has elapsed, a single probe request is allowed. If the
+ * probe succeeds the circuit closes again, and if it fails the circuit stays open for another reset timeout.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long resetTimeoutMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    /**
+     * @param failureThreshold   The number of consecutive failed requests that opens the circuit
+     * @param resetTimeoutMillis The amount of milliseconds the circuit stays open before a probe request is allowed
+     */
+    CircuitBreaker(int failureThreshold, long resetTimeoutMillis) {
+        this.failureThreshold = failureThreshold;
+        this.resetTimeoutMillis = resetTimeoutMillis;
+    }
+
+    /**
+     * Returns true if a request may be sent. When the reset timeout has elapsed, the first caller is allowed to send
+     * a probe request and the circuit becomes half-open.
+     *
+     * @return true if a request may be sent
+     */
+    synchronized boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= resetTimeoutMillis) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            probing = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a request that reached the data collector
+     */
+    synchronized void recordSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    /**
+     * Records a request that failed because the data collector was unavailable
+     */
+    synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            probing = false;
+        }
+    }
+
+    /**
+     * Ends a request whose outcome was neither recorded as a success nor a failure, for example because a stage refused
+     * the batch before it was sent. If the request was the probe, another probe may be sent.
+     */
+    synchronized void releaseProbe() {
+        probing = false;
+    }
+
+    /**
+     * Returns the amount of milliseconds until a probe request may be sent
+     *
+     * @return The amount of milliseconds until a probe request may be sent, or 0 if requests are allowed or a probe
+     * is in flight
+     */
+    synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, resetTimeoutMillis - (System.currentTimeMillis() - openedAt));
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
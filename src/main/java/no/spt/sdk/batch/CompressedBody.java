@@ -0,0 +1,109 @@
+package no.spt.sdk.batch;
+
+import com.google.common.io.CountingOutputStream;
+import no.spt.sdk.client.RequestBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A request body that compresses another body while it is written to the connection. The length of the compressed
+ * body is not known before it is written, so it is sent with chunked transfer encoding. The number of bytes before and
+ * after compression is recorded every time the body is written.
+ */
+class CompressedBody implements RequestBody {
+
+    private static final int BUFFER_SIZE = 8192;
+    private final RequestBody source;
+    private final Compression compression;
+    private final int level;
+    private volatile long uncompressedBytes;
+    private volatile long compressedBytes;
+
+    CompressedBody(RequestBody source, Compression compression, int level) {
+        this.source = source;
+        this.compression = compression;
+        this.level = level;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        CountingOutputStream counted = new CountingOutputStream(out);
+        if (compression == Compression.GZIP) {
+            GzipStream gzip = new GzipStream(counted, level);
+            try {
+                source.writeTo(gzip);
+                gzip.finish();
+                uncompressedBytes = gzip.getBytesRead();
+            } finally {
+                gzip.end();
+            }
+        } else {
+            Deflater deflater = new Deflater(level);
+            try {
+                DeflaterOutputStream deflate = new DeflaterOutputStream(counted, deflater, BUFFER_SIZE);
+                source.writeTo(deflate);
+                deflate.finish();
+                uncompressedBytes = deflater.getBytesRead();
+            } finally {
+                deflater.end();
+            }
+        }
+        compressedBytes = counted.getCount();
+    }
+
+    /**
+     * Returns the body before compression
+     *
+     * @return The uncompressed body
+     */
+    RequestBody getSource() {
+        return source;
+    }
+
+    /**
+     * Returns the size of the body before compression the last time it was written
+     *
+     * @return The number of uncompressed bytes
+     */
+    long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Returns the size of the body after compression the last time it was written
+     *
+     * @return The number of compressed bytes
+     */
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * A gzip stream with a configurable compression level that frees its deflater when it is done, without closing
+     * the connection stream
+     */
+    private static class GzipStream extends GZIPOutputStream {
+
+        private GzipStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+
+        private long getBytesRead() {
+            return def.getBytesRead();
+        }
+
+        private void end() {
+            def.end();
+        }
+    }
+}
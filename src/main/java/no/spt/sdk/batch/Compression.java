@@ -0,0 +1,37 @@
+package no.spt.sdk.batch;
+
+/**
+ * How request bodies are compressed before they are sent to the data collector
+ */
+public enum Compression {
+
+    /**
+     * Request bodies are sent uncompressed
+     */
+    NONE(null),
+
+    /**
+     * Request bodies are compressed with gzip and sent with Content-Encoding: gzip
+     */
+    GZIP("gzip"),
+
+    /**
+     * Request bodies are compressed in the zlib format and sent with Content-Encoding: deflate
+     */
+    DEFLATE("deflate");
+
+    private final String contentEncoding;
+
+    private Compression(String contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
+    /**
+     * Returns the value of the Content-Encoding header for compressed request bodies
+     *
+     * @return The content encoding, or null if request bodies are not compressed
+     */
+    public String getContentEncoding() {
+        return contentEncoding;
+    }
+}
@@ -0,0 +1,26 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.client.RequestBody;
+
+/**
+ * Compresses request bodies that are at least {@link Options#getCompressionThreshold()} bytes, and sets the
+ * Content-Encoding header
+ */
+class CompressionStage implements BatchStage {
+
+    @Override
+    public void process(BatchContext context) {
+        Options options = context.getOptions();
+        RequestBody body = context.getBody();
+        if (body == null || options.getCompression() == Compression.NONE) {
+            return;
+        }
+        long length = body.getContentLength();
+        if (length >= 0 && length < options.getCompressionThreshold()) {
+            return;
+        }
+        context.setBody(new CompressedBody(body, options.getCompression(), options.getCompressionLevel()));
+        context.getHeaders().put("Content-Encoding", options.getCompression().getContentEncoding());
+    }
+}
@@ -0,0 +1,92 @@
+package no.spt.sdk.batch;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A future that completes when a flush has finished. The same future may be shared by several callers that flushed
+ * at the same time, so it cannot be cancelled.
+ */
+public class FlushFuture implements Future<Void> {
+
+    static final FlushFuture COMPLETED = new FlushFuture();
+
+    static {
+        COMPLETED.complete();
+    }
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Throwable failure;
+
+    FlushFuture() {
+    }
+
+    /**
+     * Returns a future that has already completed
+     *
+     * @return A future that has already completed
+     */
+    public static FlushFuture completed() {
+        return COMPLETED;
+    }
+
+    /**
+     * Creates a future that has already failed
+     *
+     * @param failure The reason the flush failed
+     * @return A future that has already failed
+     */
+    public static FlushFuture failed(Throwable failure) {
+        FlushFuture future = new FlushFuture();
+        future.fail(failure);
+        return future;
+    }
+
+    void complete() {
+        done.countDown();
+    }
+
+    void fail(Throwable failure) {
+        this.failure = failure;
+        done.countDown();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return false;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public Void get() throws InterruptedException, ExecutionException {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private Void result() throws ExecutionException {
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.RequestBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * A request body that writes serialized activities as a JSON array straight to the connection, encoding them as UTF-8
+ * on the way, so the batch is never copied into a single String or byte array
+ */
+class JsonArrayBody implements RequestBody {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private final List<String> activities;
+    private final long contentLength;
+
+    JsonArrayBody(List<String> activities) {
+        this(activities, ActivityBatch.byteSize(activities));
+    }
+
+    /**
+     * @param activities    The activities, each serialized as a JSON object
+     * @param contentLength The size of the activities as a UTF-8 encoded JSON array, when it is already known
+     */
+    JsonArrayBody(List<String> activities, long contentLength) {
+        this.activities = activities;
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, UTF_8);
+        writer.write('[');
+        for (int i = 0; i < activities.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(activities.get(i));
+        }
+        writer.write(']');
+        writer.flush();
+    }
+}
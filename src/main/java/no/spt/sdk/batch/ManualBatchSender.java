@@ -2,34 +2,43 @@ package no.spt.sdk.batch;
 
 
 import no.spt.sdk.Options;
-import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
-import no.spt.sdk.client.DataTrackingPostRequest;
-import no.spt.sdk.client.DataTrackingResponse;
 import no.spt.sdk.connection.HttpConnection;
 import no.spt.sdk.exceptions.CommunicationDataTrackingException;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.exceptions.error.ActivitySendingError;
 import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.stats.DataTrackingStats;
-import org.apache.http.HttpStatus;
 
 import java.io.IOException;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
- * A sender that you manually have to flush to send activities from the queue to the data collector
+ * A sender that you manually have to flush to send activities from the queue to the data collector through the
+ * {@link BatchStage send pipeline}. With {@link Options#isSerializeOnEnqueue()} activities are serialized when they are
+ * enqueued instead of when the queue is flushed.
+ * A batch that could not be sent is retried after an exponential backoff with jitter. Responses that ask the client to
+ * come back later, like 503 and 429, are retried the same way, waiting at least as long as a Retry-After header asks.
+ * If the data collector reports that only some activities in a batch failed for transient reasons, only those
+ * activities are sent again. If requests keep failing, a circuit breaker makes flushes fail fast and leave the
+ * activities in the queue until the data collector has recovered.
  */
-public class ManualBatchSender implements Sender {
+public class ManualBatchSender implements AsyncSender {
 
-    private LinkedBlockingQueue<Activity> activityQueue;
+    private LinkedBlockingQueue<Object> activityQueue;
     private HttpConnection client;
     private Options options;
     private ASJsonConverter jsonConverter;
     private DataTrackingStats stats;
+    private Backpressure backpressure;
+    private Backoff backoff;
+    private CircuitBreaker circuitBreaker;
+    private SendPipeline pipeline;
+    private volatile String pending;
 
     /**
      * @param options options used to configure the behaviour of the sender
@@ -37,103 +46,197 @@ public class ManualBatchSender implements Sender {
      */
     public ManualBatchSender(Options options, HttpConnection client, ASJsonConverter jsonConverter, DataTrackingStats stats) {
         this.client = client;
-        this.activityQueue = new LinkedBlockingQueue<Activity>();
+        this.activityQueue = new LinkedBlockingQueue<Object>(options.getMaxQueueSize());
         this.options = options;
         this.jsonConverter = jsonConverter;
         this.stats = stats;
+        this.backpressure = new Backpressure(options);
+        this.backoff = new Backoff(options.getRetryBackoff(), options.getMaxRetryBackoff());
+        this.circuitBreaker = new CircuitBreaker(options.getCircuitBreakerThreshold(),
+                options.getCircuitBreakerResetTimeout());
+        this.pipeline = SendPipeline.create(options, client, jsonConverter, stats);
     }
 
     /**
      * Sends all activities in the queue to the data collector.
      * Blocks until all activities are sent.
      *
-     * @throws DataTrackingException If something goes wrong while sending activities
+     * @throws DataTrackingException If something goes wrong while sending activities, or if the circuit breaker is
+     * open
      * @throws CommunicationDataTrackingException If the Data Collector returns an error
      */
     @Override
     public void flush() throws DataTrackingException, CommunicationDataTrackingException {
         do {
-            List<Activity> current = new LinkedList<Activity>();
-            do {
-                if (activityQueue.size() == 0) {
-                    break;
+            if (getQueueDepth() > 0 && !circuitBreaker.allowRequest()) {
+                throw new DataTrackingException("Data Collector is unavailable, keeping activities in the queue.",
+                        ActivitySendingError.CIRCUIT_BREAKER_OPEN);
+            }
+            ActivityBatch current = new ActivityBatch(options.getMaxActivityBatchSize(), options.getMaxRequestSize());
+            fill(current);
+            backpressure.update(getQueueDepth());
+            List<String> activities = current.getActivities();
+            long byteSize = current.getByteSize();
+            int retryCount = 0;
+            IOException failure = null;
+            DataTrackingException error = null;
+            while (!activities.isEmpty()) {
+                if (retryCount > 0) {
+                    awaitRetry(retryCount, failure instanceof RetryableResponseException ?
+                            ((RetryableResponseException) failure).getRetryAfterMillis() : 0);
                 }
-
-                Activity activity = null;
+                retryCount++;
+                boolean outcomeRecorded = false;
                 try {
-                    activity = activityQueue.poll(500, TimeUnit.MILLISECONDS);
-                } catch (InterruptedException e) {
-                    throw new DataTrackingException(e, ActivitySendingError.INTERRUPTED_ERROR);
+                    BatchContext context = pipeline.send(activities, byteSize);
+                    circuitBreaker.recordSuccess();
+                    outcomeRecorded = true;
+                    failure = null;
+                    if (context.getError() != null) {
+                        error = context.getError();
+                    }
+                    activities = context.getRetryActivities();
+                    byteSize = -1;
+                } catch (IOException e) {
+                    circuitBreaker.recordFailure();
+                    outcomeRecorded = true;
+                    failure = e;
+                } finally {
+                    if (!outcomeRecorded) {
+                        circuitBreaker.releaseProbe();
+                    }
                 }
+                if (!activities.isEmpty() && retryCount >= options.getRetries()) {
+                    stats.addToSendingFailed(activities.size());
+                    if (failure instanceof RetryableResponseException) {
+                        RetryableResponseException retryableResponse = (RetryableResponseException) failure;
+                        throw new CommunicationDataTrackingException(String.format("Data Collector responded with " +
+                                "status %s after %s tries. Giving up on this batch.", retryableResponse.getResponse()
+                                .getResponseCode(), retryCount), retryableResponse.getResponse(), retryableResponse
+                                .getRequest(), ActivitySendingError.UNEXPECTED_RESPONSE);
+                    }
+                    throw new DataTrackingException(String.format("Unable to send batch after %s tries. Giving up " +
+                            "on this batch.", retryCount), ActivitySendingError.HTTP_CONNECTION_ERROR);
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+        } while (getQueueDepth() > 0);
+    }
 
-                if (activity != null) {
-                    current.add(activity);
+    /**
+     * Sends all activities in the queue to the data collector on the calling thread, like {@link #flush()}
+     *
+     * @return A future that has already completed, or failed with the exception thrown by {@link #flush()}
+     */
+    @Override
+    public Future<Void> flushAsync() {
+        try {
+            flush();
+            return FlushFuture.COMPLETED;
+        } catch (DataTrackingException e) {
+            return FlushFuture.failed(e);
+        }
+    }
+
+    /**
+     * Sleeps for the backoff before the given retry, or for the delay the data collector asked for if that is longer
+     *
+     * @param retry      The number of the retry, starting at 1
+     * @param retryAfter The amount of milliseconds the data collector asked the client to wait, or -1
+     * @throws DataTrackingException If interrupted while sleeping
+     */
+    private void awaitRetry(int retry, long retryAfter) throws DataTrackingException {
+        try {
+            Thread.sleep(Math.max(Math.min(retryAfter, options.getFlushTimeout()), backoff.delayMillis(retry)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataTrackingException(e, ActivitySendingError.INTERRUPTED_ERROR);
+        }
+    }
+
+    /**
+     * Moves activities from the queue into the batch until the batch is full or the queue is empty. An activity that
+     * does not fit into the batch is kept for the next batch. Activities are taken from the queue before they are
+     * added, so an activity that is sent is never also dropped by the overflow policy.
+     *
+     * @param batch The batch to fill
+     * @throws DataTrackingException If an activity cannot be serialized. The activity is dropped.
+     */
+    private synchronized void fill(ActivityBatch batch) throws DataTrackingException {
+        while (!batch.isFull()) {
+            String json = pending;
+            pending = null;
+            if (json == null) {
+                Object element = activityQueue.poll();
+                if (element == null) {
+                    return;
                 }
-            } while (activityQueue.size() > 0 && current.size() < options.getMaxActivityBatchSize());
-            boolean success = true;
-            int retryCount = 0;
-            long currentSize = current.size();
-            do {
                 try {
-                    if (current.size() > 0) {
-                        DataTrackingPostRequest request = new DataTrackingPostRequest(options.getDataCollectorUrl(),
-                                null, jsonConverter.serialize(current));
-                        DataTrackingResponse response = client.send(request);
-                        stats.incrementSentBatches();
-                        current = new LinkedList<Activity>();
-                        if (response.getResponseCode() == HttpStatus.SC_BAD_REQUEST) {
-                            DataCollectorResponse resp = jsonConverter.deserializeDataCollectorResponse(response
-                                .getRawBody());
-                            if(resp.getErrors().size() > 0) {
-                                stats.addToValidationFailed(resp.getErrors().size());
-                            } else {
-                                stats.addToSendingFailed(currentSize);
-                            }
-                            throw new CommunicationDataTrackingException("Response from Data Collector was not OK",
-                                    response, request, ActivitySendingError.BAD_REQUEST);
-                        } else if (response.getResponseCode() == HttpStatus.SC_MULTI_STATUS) {
-                            DataCollectorResponse resp = jsonConverter.deserializeDataCollectorResponse(response.getRawBody());
-                            stats.addToValidationFailed(resp.getErrors().size());
-                            stats.addToSuccessful(resp.getSuccess().size());
-                            throw new CommunicationDataTrackingException("Some of the activities could not be " +
-                                    "validated by Data Collector", response, request, ActivitySendingError
-                                    .VALIDATION_ERROR);
-                        } else if (response.getResponseCode() != HttpStatus.SC_OK) {
-                            stats.addToSendingFailed(currentSize);
-                            throw new CommunicationDataTrackingException("Unexpected response from Data Collector",
-                                    response, request, ActivitySendingError.UNEXPECTED_RESPONSE);
-                        }
-                        stats.addToSuccessful(currentSize);
-                    }
-                    success = true;
+                    json = element instanceof String ? (String) element : jsonConverter.serialize((Activity) element);
                 } catch (IOException e) {
-                    retryCount++;
-                    success = false;
+                    stats.incrementSendingFailed();
+                    throw new DataTrackingException("Unable to serialize activity, dropping activity.", e,
+                            ActivitySendingError.SERIALIZATION_ERROR);
                 }
-            } while (!success && retryCount < options.getRetries());
-
-            if (!success) {
-                stats.addToSendingFailed(currentSize);
-                throw new DataTrackingException(String.format("Unable to send batch after %s tries. Giving up on " +
-                        "this" + " batch.", retryCount), ActivitySendingError.HTTP_CONNECTION_ERROR);
             }
-        } while (activityQueue.size() > 0);
+            if (!batch.add(json)) {
+                pending = json;
+                return;
+            }
+        }
     }
 
     /**
      * Enqueue an activity to be sent to the data collector.
-     * If the queue is full, the activity will be dropped
+     * If the queue is full, the configured {@link OverflowPolicy} decides whether the activity is dropped
      *
      * @param activity an activity to enqueue
-     * @throws DataTrackingException if the queue has reached it's max size
+     * @throws DataTrackingException if the activity is dropped
      */
     @Override
     public void enqueue(Activity activity) throws DataTrackingException {
-        int maxQueueSize = options.getMaxQueueSize();
-        int currentQueueSize = activityQueue.size();
-        if (currentQueueSize < maxQueueSize) {
-            this.activityQueue.add(activity);
+        checkShedding();
+        add(options.isSerializeOnEnqueue() ? toJson(activity) : activity);
+    }
+
+    /**
+     * Enqueue an activity record to be sent to the data collector. The record is always serialized when it is
+     * enqueued, so it can be reused.
+     * If the queue is full, the configured {@link OverflowPolicy} decides whether the activity is dropped
+     *
+     * @param record an activity record to enqueue
+     * @throws DataTrackingException if the activity is dropped
+     */
+    @Override
+    public void enqueue(ActivityRecord record) throws DataTrackingException {
+        checkShedding();
+        add(toJson(record));
+    }
+
+    private void checkShedding() throws DataTrackingException {
+        if (backpressure.shouldShed(getQueueDepth())) {
+            stats.incrementDropped();
+            throw new DataTrackingException("Queue is shedding load, dropping activity.", ActivitySendingError
+                    .QUEUE_LOAD_SHED);
+        }
+    }
+
+    private String toJson(Object activity) throws DataTrackingException {
+        try {
+            return jsonConverter.serialize(activity);
+        } catch (IOException e) {
+            stats.incrementDropped();
+            throw new DataTrackingException("Unable to serialize activity, dropping activity.", e,
+                    ActivitySendingError.SERIALIZATION_ERROR);
+        }
+    }
+
+    private void add(Object element) throws DataTrackingException {
+        if (offer(element)) {
             stats.incrementQueuedActivities();
+            backpressure.update(getQueueDepth());
         } else {
             stats.incrementDropped();
             throw new DataTrackingException("Queue has reached maxSize, dropping activity.", ActivitySendingError
@@ -141,6 +244,34 @@ public class ManualBatchSender implements Sender {
         }
     }
 
+    /**
+     * Adds an activity, or the activity serialized as JSON, to the queue, applying the overflow policy if there is no
+     * room
+     *
+     * @return true if the activity was added
+     */
+    private boolean offer(Object element) throws DataTrackingException {
+        switch (options.getOverflowPolicy()) {
+            case BLOCK:
+                try {
+                    return activityQueue.offer(element, options.getEnqueueTimeout(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    stats.incrementDropped();
+                    throw new DataTrackingException(e, ActivitySendingError.INTERRUPTED_ERROR);
+                }
+            case DROP_OLDEST:
+                while (!activityQueue.offer(element)) {
+                    if (activityQueue.poll() != null) {
+                        stats.incrementDropped();
+                    }
+                }
+                return true;
+            default:
+                return activityQueue.offer(element);
+        }
+    }
+
     /**
      * This method flushes the queue and closes the sender.
      *
@@ -158,7 +289,7 @@ public class ManualBatchSender implements Sender {
      */
     @Override
     public int getQueueDepth() {
-        return activityQueue.size();
+        return activityQueue.size() + (pending != null ? 1 : 0);
     }
 
     @Override
@@ -0,0 +1,33 @@
+package no.spt.sdk.batch;
+
+/**
+ * Decides what happens to an activity that is enqueued while the activity queue is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * The new activity is dropped. Favours request latency and the oldest data.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest activity in the queue is dropped to make room for the new activity. Favours request latency and the
+     * newest data. Activities that are spooled to disk are never dropped to make room, so with a spool this behaves
+     * like {@link #DROP_NEWEST}.
+     */
+    DROP_OLDEST,
+
+    /**
+     * The enqueueing thread waits up to {@link no.spt.sdk.Options#getEnqueueTimeout()} milliseconds for room in the
+     * queue before the new activity is dropped. Favours data completeness over request latency.
+     */
+    BLOCK,
+
+    /**
+     * Once the queue depth passes the high watermark, new activities are dropped with a probability that rises
+     * linearly from 0 at the high watermark to 1 when the queue is full. If no high watermark is configured, shedding
+     * starts when the queue is half full. Spreads the loss over time instead of losing everything after the queue
+     * fills up.
+     */
+    SHED
+}
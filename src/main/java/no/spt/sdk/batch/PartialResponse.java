@@ -0,0 +1,84 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorError;
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the per-activity results of a multi-status response back to the activities in the batch that was sent. An
+ * error with the index of an activity and a status code that is retryable, like 503, is a transient failure, and the
+ * activity is kept so it can be sent again. Any other error is a validation error.
+ */
+class PartialResponse {
+
+    private final List<String> retryActivities;
+    private final int rejected;
+    private final int accepted;
+
+    private PartialResponse(List<String> retryActivities, int rejected, int accepted) {
+        this.retryActivities = retryActivities;
+        this.rejected = rejected;
+        this.accepted = accepted;
+    }
+
+    /**
+     * Sorts the activities of a batch by the results in a multi-status response
+     *
+     * @param activities The serialized activities in the batch that was sent
+     * @param response   The multi-status response from the data collector
+     * @return The results of the batch
+     */
+    static PartialResponse of(List<String> activities, DataCollectorResponse response) {
+        List<String> retryActivities = new ArrayList<String>();
+        boolean[] retried = new boolean[activities.size()];
+        int rejected = 0;
+        if (response.getErrors() != null) {
+            for (DataCollectorError error : response.getErrors()) {
+                if (isTransient(error, activities.size())) {
+                    if (!retried[error.getIndex()]) {
+                        retried[error.getIndex()] = true;
+                        retryActivities.add(activities.get(error.getIndex()));
+                    }
+                } else {
+                    rejected++;
+                }
+            }
+        }
+        int accepted = response.getSuccess() == null ? 0 : response.getSuccess().size();
+        return new PartialResponse(retryActivities, rejected, accepted);
+    }
+
+    private static boolean isTransient(DataCollectorError error, int batchSize) {
+        return error.getIndex() != null && error.getIndex() >= 0 && error.getIndex() < batchSize
+                && error.getCode() != null && RetryableResponseException.isRetryable(error.getCode());
+    }
+
+    /**
+     * Returns the activities that failed for transient reasons and may be sent again
+     *
+     * @return The activities to send again, which may be empty
+     */
+    List<String> getRetryActivities() {
+        return retryActivities;
+    }
+
+    /**
+     * Returns the number of activities that were rejected by validation
+     *
+     * @return The number of activities that were rejected
+     */
+    int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of activities that were accepted
+     *
+     * @return The number of activities that were accepted
+     */
+    int getAccepted() {
+        return accepted;
+    }
+}
@@ -0,0 +1,23 @@
+package no.spt.sdk.batch;
+
+/**
+ * Listener that is notified when the depth of the activity queue crosses the configured watermarks, so the
+ * application can reduce the number of activities it produces before the queue is full. Callbacks are made on the
+ * thread that enqueued or sent the activities, so they should return quickly.
+ */
+public interface QueueWatermarkListener {
+
+    /**
+     * Called when the queue depth reaches the high watermark
+     *
+     * @param queueDepth The current queue depth
+     */
+    void onHighWatermark(int queueDepth);
+
+    /**
+     * Called when the queue depth falls to the low watermark after the high watermark was reached
+     *
+     * @param queueDepth The current queue depth
+     */
+    void onLowWatermark(int queueDepth);
+}
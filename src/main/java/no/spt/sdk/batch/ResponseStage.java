@@ -0,0 +1,110 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.exceptions.CommunicationDataTrackingException;
+import no.spt.sdk.exceptions.error.ActivitySendingError;
+import com.google.common.io.CharStreams;
+import no.spt.sdk.serializers.ASJsonConverter;
+import no.spt.sdk.serializers.StreamingASJsonConverter;
+import org.apache.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Interprets the response from the data collector. Counts the activities that were accepted, rejected and failed, and
+ * records which activities should be sent again.
+ */
+class ResponseStage implements BatchStage {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ASJsonConverter jsonConverter;
+
+    ResponseStage(ASJsonConverter jsonConverter) {
+        this.jsonConverter = jsonConverter;
+    }
+
+    @Override
+    public void process(BatchContext context) throws IOException {
+        DataTrackingResponse response = context.getResponse();
+        if (response == null) {
+            return;
+        }
+        int size = context.getActivities().size();
+        DataTrackingPostRequest request = getReportedRequest(context);
+        if (RetryableResponseException.isRetryable(response.getResponseCode())) {
+            context.setRetryableFailure(new RetryableResponseException(response, request));
+        } else if (response.isBodyTruncated() && (response.getResponseCode() == HttpStatus.SC_BAD_REQUEST ||
+                response.getResponseCode() == HttpStatus.SC_MULTI_STATUS)) {
+            context.setOutcome(0, 0, size);
+            context.setError(new CommunicationDataTrackingException(String.format("Response from Data Collector " +
+                    "was larger than %s bytes", context.getOptions().getMaxResponseBodySize()), response, request,
+                    ActivitySendingError.UNEXPECTED_RESPONSE));
+        } else if (response.getResponseCode() == HttpStatus.SC_MULTI_STATUS && response.getBodyStream() == null) {
+            context.setOutcome(0, 0, size);
+            context.setError(new CommunicationDataTrackingException("Multi-status response from Data Collector has " +
+                    "no body", response, request, ActivitySendingError.UNEXPECTED_RESPONSE));
+        } else if (response.getResponseCode() == HttpStatus.SC_BAD_REQUEST) {
+            DataCollectorResponse resp = parse(response);
+            if (resp != null && resp.getErrors().size() > 0) {
+                context.setOutcome(0, resp.getErrors().size(), 0);
+            } else {
+                context.setOutcome(0, 0, size);
+            }
+            context.setError(new CommunicationDataTrackingException("Response from Data Collector was not OK",
+                    response, request, ActivitySendingError.BAD_REQUEST));
+        } else if (response.getResponseCode() == HttpStatus.SC_MULTI_STATUS) {
+            DataCollectorResponse resp = parse(response);
+            PartialResponse partial = PartialResponse.of(context.getActivities(), resp);
+            context.setOutcome(partial.getAccepted(), partial.getRejected(), 0);
+            context.setRetryActivities(partial.getRetryActivities());
+            if (partial.getRejected() > 0) {
+                context.setError(new CommunicationDataTrackingException("Some of the activities could not be " +
+                        "validated by Data Collector", response, request, ActivitySendingError
+                        .VALIDATION_ERROR));
+            }
+        } else if (response.getResponseCode() != HttpStatus.SC_OK) {
+            context.setOutcome(0, 0, size);
+            context.setError(new CommunicationDataTrackingException("Unexpected response from Data Collector",
+                    response, request, ActivitySendingError.UNEXPECTED_RESPONSE));
+        } else {
+            context.setOutcome(size, 0, 0);
+        }
+    }
+
+    /**
+     * Parses the body of a response from the stream of bytes that was read from the connection. The body is only
+     * decoded into a String first if the converter is not a {@link StreamingASJsonConverter}.
+     *
+     * @return The parsed response, or null if the response has no body
+     */
+    private DataCollectorResponse parse(DataTrackingResponse response) throws IOException {
+        InputStream body = response.getBodyStream();
+        if (body == null) {
+            return null;
+        }
+        if (jsonConverter instanceof StreamingASJsonConverter) {
+            return ((StreamingASJsonConverter) jsonConverter).deserializeDataCollectorResponse(body);
+        }
+        return jsonConverter.deserializeDataCollectorResponse(CharStreams.toString(new InputStreamReader(body,
+                UTF_8)));
+    }
+
+    /**
+     * Returns the request to attach to errors. A compressed request is replaced by the same request with the
+     * uncompressed body, so the body of the request can be read from the error.
+     */
+    private static DataTrackingPostRequest getReportedRequest(BatchContext context) {
+        DataTrackingPostRequest request = context.getRequest();
+        if (context.getBody() instanceof CompressedBody) {
+            return new DataTrackingPostRequest(request.getUrl(), request.getHeaders(), ((CompressedBody) context
+                    .getBody()).getSource());
+        }
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.utils.DateUtils;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Thrown when the data collector responds with a status that means the request may succeed if it is sent again, like
+ * 503 Service Unavailable or 429 Too Many Requests. It is an IOException so that senders retry it like a connection
+ * failure. If the response has a Retry-After header, the delay it asks for is kept so the sender can wait at least
+ * that long before sending again.
+ */
+class RetryableResponseException extends IOException {
+
+    private final DataTrackingResponse response;
+    private final DataTrackingPostRequest request;
+    private final long retryAfterMillis;
+
+    RetryableResponseException(DataTrackingResponse response, DataTrackingPostRequest request) {
+        super(String.format("Data Collector responded with status %s", response.getResponseCode()));
+        this.response = response;
+        this.request = request;
+        this.retryAfterMillis = parseRetryAfter(response.getHeader("Retry-After"), System.currentTimeMillis());
+    }
+
+    /**
+     * Returns true if a request that got a response with the given status may succeed if it is sent again
+     *
+     * @param status The HTTP status code of the response
+     * @return true if the request should be retried
+     */
+    static boolean isRetryable(int status) {
+        switch (status) {
+            case HttpStatus.SC_REQUEST_TIMEOUT:
+            case 429:
+            case HttpStatus.SC_INTERNAL_SERVER_ERROR:
+            case HttpStatus.SC_BAD_GATEWAY:
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+            case HttpStatus.SC_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses the value of a Retry-After header, which is either an amount of seconds or an HTTP date
+     *
+     * @param value The value of the header
+     * @param now   The current time in milliseconds
+     * @return The amount of milliseconds to wait before retrying, or -1 if the value is missing or invalid
+     */
+    static long parseRetryAfter(String value, long now) {
+        if (value == null) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds < 0 ? -1 : seconds * 1000;
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            if (date == null) {
+                return -1;
+            }
+            return Math.max(0, date.getTime() - now);
+        }
+    }
+
+    DataTrackingResponse getResponse() {
+        return response;
+    }
+
+    DataTrackingPostRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Returns the amount of milliseconds the data collector asked the client to wait before retrying
+     *
+     * @return The amount of milliseconds to wait, or -1 if the response did not have a valid Retry-After header
+     */
+    long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
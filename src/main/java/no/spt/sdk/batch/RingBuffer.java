@@ -0,0 +1,181 @@
+package no.spt.sdk.batch;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, pre-allocated multi-producer ring buffer.
+ *
+ * Producers claim a slot with a single CAS on the tail sequence and publish the element by advancing the sequence of
+ * that slot, so offering an element never takes a lock or allocates. Elements are normally consumed by a single
+ * thread, but {@link #poll()} claims the head slot with a CAS as well, so producers may evict the oldest element to
+ * make room for a new one.
+ *
+ * @param <E> The type of elements held in the buffer
+ */
+public class RingBuffer<E> {
+
+    private final int limit;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Constructs a new RingBuffer
+     *
+     * @param limit The maximum number of elements the buffer can hold
+     */
+    public RingBuffer(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("RingBuffer limit must be greater than 0.");
+        }
+        int capacity = 1;
+        while (capacity < limit) {
+            capacity <<= 1;
+        }
+        this.limit = limit;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<E>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element to the buffer if there is room for it. Can be called from any thread.
+     *
+     * @param element The element to add
+     * @return true if the element was added, false if the buffer is full
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("RingBuffer does not accept null elements.");
+        }
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (position - head.get() >= limit) {
+                    return false;
+                }
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+        elements.lazySet(index, element);
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element from the buffer. Can be called from any thread.
+     *
+     * @return The oldest element, or null if no element is available
+     */
+    public E poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long available = sequences.get(index) - (position + 1);
+            if (available == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return element;
+                }
+            } else if (available < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Moves up to maxElements of the oldest elements to the given collection. Must only be called from the consumer
+     * thread.
+     *
+     * @param collection  The collection to add elements to
+     * @param maxElements The maximum number of elements to move
+     * @return The number of elements moved
+     */
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        int drained = 0;
+        while (drained < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            collection.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Removes all published elements from the buffer. Must only be called from the consumer thread.
+     */
+    public void clear() {
+        while (poll() != null) {
+            // Discard
+        }
+    }
+
+    /**
+     * Returns the number of elements currently in the buffer
+     *
+     * @return The number of elements currently in the buffer
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, limit));
+    }
+
+    /**
+     * Returns true if there are no elements in the buffer
+     *
+     * @return true if there are no elements in the buffer
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the sequence number of the next element that will be offered, which is the total number of elements
+     * that have been added to the buffer
+     *
+     * @return The total number of elements that have been added to the buffer
+     */
+    public long getProducerSequence() {
+        return tail.get();
+    }
+
+    /**
+     * Returns the sequence number of the next element that will be polled, which is the total number of elements
+     * that have been removed from the buffer
+     *
+     * @return The total number of elements that have been removed from the buffer
+     */
+    public long getConsumerSequence() {
+        return head.get();
+    }
+
+    /**
+     * Returns the maximum number of elements the buffer can hold
+     *
+     * @return The maximum number of elements the buffer can hold
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,83 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.connection.HttpConnection;
+import no.spt.sdk.exceptions.DataTrackingException;
+import no.spt.sdk.serializers.ASJsonConverter;
+import no.spt.sdk.stats.DataTrackingStats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The stages a batch of serialized activities goes through to be sent to the data collector: the custom stages from
+ * the options, then serialization, compression, transport, response handling and stats. Both senders send their
+ * batches through a pipeline, and handle retries and the circuit breaker themselves based on the outcome.
+ */
+class SendPipeline {
+
+    private final Options options;
+    private final List<BatchStage> stages;
+
+    SendPipeline(Options options, List<BatchStage> stages) {
+        this.options = options;
+        this.stages = stages;
+    }
+
+    /**
+     * Creates the default pipeline for the given options
+     *
+     * @param options       The options of the sender
+     * @param client        The connection to send requests with
+     * @param jsonConverter The converter used to read responses
+     * @param stats         The stats to update
+     * @return A pipeline
+     */
+    static SendPipeline create(Options options, HttpConnection client, ASJsonConverter jsonConverter,
+                               DataTrackingStats stats) {
+        List<BatchStage> stages = new ArrayList<BatchStage>(options.getBatchStages());
+        stages.add(new SerializationStage());
+        if (options.getCompression() != Compression.NONE) {
+            stages.add(new CompressionStage());
+        }
+        stages.add(new TransportStage(client));
+        stages.add(new ResponseStage(jsonConverter));
+        stages.add(new StatsStage(stats));
+        return new SendPipeline(options, stages);
+    }
+
+    /**
+     * Makes a single attempt to send a batch of activities
+     *
+     * @param activities The activities to send, each serialized as a JSON object
+     * @return The outcome of the attempt
+     * @throws IOException           If the data collector could not be reached, or responded with a status that
+     *                               should be retried
+     * @throws DataTrackingException If a stage refused to send the batch
+     */
+    BatchContext send(List<String> activities) throws IOException, DataTrackingException {
+        return send(activities, -1);
+    }
+
+    /**
+     * Makes a single attempt to send a batch of activities whose size is already known
+     *
+     * @param activities The activities to send, each serialized as a JSON object
+     * @param byteSize   The size of the activities as a UTF-8 encoded JSON array, or -1 if it is not known
+     * @return The outcome of the attempt
+     * @throws IOException           If the data collector could not be reached, or responded with a status that
+     *                               should be retried
+     * @throws DataTrackingException If a stage refused to send the batch
+     */
+    BatchContext send(List<String> activities, long byteSize) throws IOException, DataTrackingException {
+        BatchContext context = new BatchContext(options, activities, byteSize);
+        for (BatchStage stage : stages) {
+            stage.process(context);
+        }
+        if (context.getRetryableFailure() != null) {
+            throw context.getRetryableFailure();
+        }
+        return context;
+    }
+}
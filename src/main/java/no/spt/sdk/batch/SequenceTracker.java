@@ -0,0 +1,135 @@
+package no.spt.sdk.batch;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps track of batches that are in flight and the sequence number up to which every enqueued activity has been
+ * handled. Batches may complete in any order, but the acknowledged sequence only advances past a batch once every
+ * batch that was started before it has completed as well. Callers waiting for the same sequence number share one
+ * future, so concurrent flushes are coalesced.
+ */
+class SequenceTracker {
+
+    private final Deque<Ticket> inFlight = new ArrayDeque<Ticket>();
+    private final TreeMap<Long, FlushFuture> waiters = new TreeMap<Long, FlushFuture>();
+    private long acknowledgedSequence;
+
+    /**
+     * Registers a batch that contains all unacknowledged activities up to the given sequence number. Batches must be
+     * started in sequence order.
+     *
+     * @param endSequence The sequence number of the first activity after the batch
+     * @param checkpoint  An opaque position, such as a spool read position, that becomes safe to persist once the
+     *                    batch and every batch before it have been handled
+     * @return A ticket used to complete the batch
+     */
+    synchronized Ticket start(long endSequence, long checkpoint) {
+        Ticket ticket = new Ticket(endSequence, checkpoint);
+        inFlight.addLast(ticket);
+        return ticket;
+    }
+
+    /**
+     * Marks a batch as handled and advances the acknowledged sequence past every batch that is done
+     *
+     * @param ticket The ticket of the batch that has been handled
+     * @return The checkpoint of the last batch the acknowledged sequence advanced past, or -1 if it did not advance
+     */
+    synchronized long complete(Ticket ticket) {
+        ticket.done = true;
+        long checkpoint = -1;
+        while (!inFlight.isEmpty() && inFlight.peekFirst().done) {
+            Ticket acknowledged = inFlight.pollFirst();
+            checkpoint = acknowledged.checkpoint;
+            advanceTo(acknowledged.endSequence);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Acknowledges all activities up to the given sequence number without sending them. Used when activities are
+     * discarded while no batches are in flight.
+     *
+     * @param sequence The sequence number of the first activity that has not been handled
+     */
+    synchronized void skipTo(long sequence) {
+        if (inFlight.isEmpty() && sequence > acknowledgedSequence) {
+            advanceTo(sequence);
+        }
+    }
+
+    /**
+     * Gives up on every batch in flight and acknowledges all activities up to the given sequence number. Used when the
+     * sender is closed, so callers waiting for batches that will never complete are released. Batches that complete
+     * after this no longer advance the acknowledged sequence.
+     *
+     * @param sequence The sequence number of the first activity that has not been handled
+     */
+    synchronized void abandonAll(long sequence) {
+        inFlight.clear();
+        if (sequence > acknowledgedSequence) {
+            advanceTo(sequence);
+        }
+    }
+
+    private void advanceTo(long sequence) {
+        acknowledgedSequence = sequence;
+        Map<Long, FlushFuture> acknowledged = waiters.headMap(sequence, true);
+        for (FlushFuture future : acknowledged.values()) {
+            future.complete();
+        }
+        acknowledged.clear();
+    }
+
+    /**
+     * Returns a future that completes when all activities before the given sequence number have been handled
+     *
+     * @param sequence The sequence number to wait for
+     * @return A future that completes when all activities before the sequence number have been handled
+     */
+    synchronized Future<Void> whenAcknowledged(long sequence) {
+        if (acknowledgedSequence >= sequence) {
+            return FlushFuture.COMPLETED;
+        }
+        FlushFuture future = waiters.get(sequence);
+        if (future == null) {
+            future = new FlushFuture();
+            waiters.put(sequence, future);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the sequence number of the first activity that has not been handled
+     *
+     * @return The sequence number of the first activity that has not been handled
+     */
+    synchronized long getAcknowledgedSequence() {
+        return acknowledgedSequence;
+    }
+
+    /**
+     * Returns the number of batches that are currently in flight
+     *
+     * @return The number of batches that are currently in flight
+     */
+    synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    static final class Ticket {
+
+        private final long endSequence;
+        private final long checkpoint;
+        private boolean done;
+
+        private Ticket(long endSequence, long checkpoint) {
+            this.endSequence = endSequence;
+            this.checkpoint = checkpoint;
+        }
+    }
+}
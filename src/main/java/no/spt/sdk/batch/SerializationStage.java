@@ -0,0 +1,17 @@
+package no.spt.sdk.batch;
+
+/**
+ * Turns the serialized activities of a batch into a request body that writes them as a JSON array straight to the
+ * connection
+ */
+class SerializationStage implements BatchStage {
+
+    @Override
+    public void process(BatchContext context) {
+        if (context.getActivities().isEmpty()) {
+            context.setBody(null);
+            return;
+        }
+        context.setBody(new JsonArrayBody(context.getActivities(), context.getActivitiesByteSize()));
+    }
+}
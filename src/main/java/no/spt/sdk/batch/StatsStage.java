@@ -0,0 +1,40 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.stats.DataTrackingStats;
+
+/**
+ * Adds the outcome of a batch to the stats
+ */
+class StatsStage implements BatchStage {
+
+    private final DataTrackingStats stats;
+
+    StatsStage(DataTrackingStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void process(BatchContext context) {
+        if (context.getResponse() == null) {
+            return;
+        }
+        stats.incrementSentBatches();
+        if (context.getBody() instanceof CompressedBody) {
+            CompressedBody body = (CompressedBody) context.getBody();
+            stats.addToUncompressedBytes(body.getUncompressedBytes());
+            stats.addToCompressedBytes(body.getCompressedBytes());
+        } else if (context.getBody() != null && context.getBody().getContentLength() > 0) {
+            stats.addToUncompressedBytes(context.getBody().getContentLength());
+            stats.addToCompressedBytes(context.getBody().getContentLength());
+        }
+        if (context.getAccepted() > 0) {
+            stats.addToSuccessful(context.getAccepted());
+        }
+        if (context.getRejected() > 0) {
+            stats.addToValidationFailed(context.getRejected());
+        }
+        if (context.getFailed() > 0) {
+            stats.addToSendingFailed(context.getFailed());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.connection.HttpConnection;
+
+import java.io.IOException;
+
+/**
+ * Sends the encoded batch to the data collector
+ */
+class TransportStage implements BatchStage {
+
+    private final HttpConnection client;
+
+    TransportStage(HttpConnection client) {
+        this.client = client;
+    }
+
+    @Override
+    public void process(BatchContext context) throws IOException {
+        if (context.getBody() == null) {
+            return;
+        }
+        DataTrackingPostRequest request = new DataTrackingPostRequest(context.getOptions().getDataCollectorUrl(),
+                context.getHeaders().isEmpty() ? null : context.getHeaders(), context.getBody());
+        request.setDiscardSuccessBody(true);
+        context.setRequest(request);
+        context.setResponse(client.send(request));
+    }
+}
@@ -4,11 +4,15 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Represents an error that was returned from the data collector
+ * Represents an error that was returned from the data collector. In a multi-status response the data collector may
+ * report which activity in the batch the error is for, and a status code that tells whether sending the activity
+ * again may succeed.
  */
 public class DataCollectorError {
 
     private String status;
+    private Integer code;
+    private Integer index;
     private List<Map<String, String>> errors;
 
     public String getStatus() {
@@ -19,6 +23,32 @@ public class DataCollectorError {
         this.status = status;
     }
 
+    /**
+     * Returns the HTTP status code for the activity the error is for
+     *
+     * @return the status code, or null if the data collector did not report one
+     */
+    public Integer getCode() {
+        return code;
+    }
+
+    public void setCode(Integer code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the position of the activity the error is for in the batch that was sent
+     *
+     * @return the position of the activity, starting at 0, or null if the data collector did not report it
+     */
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
     public List<Map<String, String>> getErrors() {
         return errors;
     }
@@ -2,9 +2,12 @@ package no.spt.sdk.client;
 
 
 import no.spt.sdk.Options;
+import no.spt.sdk.batch.AsyncSender;
 import no.spt.sdk.batch.AutomaticBatchSender;
+import no.spt.sdk.batch.FlushFuture;
 import no.spt.sdk.batch.ManualBatchSender;
 import no.spt.sdk.batch.Sender;
+import no.spt.sdk.connection.ConnectionPoolStats;
 import no.spt.sdk.connection.HttpClientConnection;
 import no.spt.sdk.connection.HttpConnection;
 import no.spt.sdk.exceptions.DataTrackingException;
@@ -12,13 +15,16 @@ import no.spt.sdk.exceptions.ErrorCollector;
 import no.spt.sdk.exceptions.ReportingErrorCollector;
 import no.spt.sdk.identity.*;
 import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
 import no.spt.sdk.models.TrackingIdentity;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.serializers.JacksonASJsonConverter;
 import no.spt.sdk.stats.DataTrackingClientStats;
 import no.spt.sdk.stats.DataTrackingStats;
+import no.spt.sdk.stats.DataTrackingStatsSnapshot;
 
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * The DataTrackingClient can be used to track activities. The client is an HTTP wrapper over a data collector API.
@@ -34,6 +40,12 @@ public class DataTrackingClient {
     private final Identifier identifier;
     private final HttpConnection httpConnection;
     private final DataTrackingStats stats;
+    private final ThreadLocal<ActivityRecord> activityRecords = new ThreadLocal<ActivityRecord>() {
+        @Override
+        protected ActivityRecord initialValue() {
+            return new ActivityRecord();
+        }
+    };
 
     /**
      * Builder for instantiating DataTrackingClients.
@@ -263,6 +275,39 @@ public class DataTrackingClient {
         }
     }
 
+    /**
+     * Returns the activity record of the current thread, cleared so it can be filled in for the next activity. The
+     * record is reused for every activity the thread tracks, so it must not be used after it has been tracked.
+     *
+     * @return the activity record of the current thread
+     */
+    public ActivityRecord activityRecord() {
+        return activityRecords.get().reset();
+    }
+
+    /**
+     * A method that enqueues an activity record to be sent to the data collector. The record is serialized and
+     * cleared before this method returns. If the sender is not an {@link no.spt.sdk.batch.AsyncSender}, the record is
+     * enqueued as an {@link Activity} with the same fields.
+     *
+     * @param record the activity record to track
+     * @throws IllegalStateException if the record is missing a type, provider, actor or object
+     */
+    public void track(ActivityRecord record) {
+        try {
+            record.validate();
+            if (this.activitySender instanceof AsyncSender) {
+                ((AsyncSender) this.activitySender).enqueue(record);
+            } else {
+                this.activitySender.enqueue(record.toActivity());
+            }
+        } catch (DataTrackingException e) {
+            handleError(e);
+        } finally {
+            record.reset();
+        }
+    }
+
     /**
      * Force the enqueued activities to be sent to the data collector
      */
@@ -284,6 +329,35 @@ public class DataTrackingClient {
         send();
     }
 
+    /**
+     * Start sending the enqueued activities to the data collector without waiting for them to be sent. If the sender
+     * is not an {@link no.spt.sdk.batch.AsyncSender}, the activities are sent before this method returns.
+     *
+     * @return a future that completes when every activity enqueued before the call has been sent
+     */
+    public Future<Void> sendAsync() {
+        if (this.activitySender instanceof AsyncSender) {
+            return ((AsyncSender) this.activitySender).flushAsync();
+        }
+        try {
+            this.activitySender.flush();
+            return FlushFuture.completed();
+        } catch (DataTrackingException e) {
+            return FlushFuture.failed(e);
+        }
+    }
+
+    /**
+     * Enqueue an activity and start sending it to the data collector without waiting for it to be sent
+     *
+     * @param activity an activity to enqueue
+     * @return a future that completes when the activity, and every activity enqueued before it, has been sent
+     */
+    public Future<Void> sendAsync(Activity activity) {
+        track(activity);
+        return sendAsync();
+    }
+
     /**
      * Close the client. This will block while internal queues are flushed.
      */
@@ -356,6 +430,28 @@ public class DataTrackingClient {
         return stats;
     }
 
+    /**
+     * Returns an immutable snapshot of the counters for events that occur in the tracking client, which can be
+     * compared with an earlier snapshot to get the number of events per second
+     *
+     * @return A snapshot of the counters for events that occur in the tracking client
+     */
+    public DataTrackingStatsSnapshot getStatsSnapshot() {
+        return stats.snapshot();
+    }
+
+    /**
+     * Returns a snapshot of the connections in the pool of the HTTP connection
+     *
+     * @return The connection pool stats, or null if the HTTP connection does not report pool stats
+     */
+    public ConnectionPoolStats getConnectionPoolStats() {
+        if (httpConnection instanceof HttpClientConnection) {
+            return ((HttpClientConnection) httpConnection).getPoolStats();
+        }
+        return null;
+    }
+
     /**
      * Handle errors that occur in the client
      *
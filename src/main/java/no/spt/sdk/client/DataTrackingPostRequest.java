@@ -1,15 +1,21 @@
 package no.spt.sdk.client;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 /**
- * An HTTP POST request representation
+ * An HTTP POST request representation. The body is either a String, or a {@link RequestBody} that is written straight
+ * to the connection.
  */
 public class DataTrackingPostRequest {
 
     private final String url;
     private final Map<String, String> headers;
-    private final String rawBody;
+    private final RequestBody body;
+    private String rawBody;
+    private boolean discardSuccessBody;
 
     /**
      * Constructs a new DataTrackingPostRequest
@@ -21,9 +27,23 @@ public class DataTrackingPostRequest {
     public DataTrackingPostRequest(String url, Map<String, String> headers, String rawBody) {
         this.url = url;
         this.headers = headers;
+        this.body = null;
         this.rawBody = rawBody;
     }
 
+    /**
+     * Constructs a new DataTrackingPostRequest with a body that is written straight to the connection
+     *
+     * @param url The URL that the request should be sent to
+     * @param headers The HTTP request headers to include
+     * @param body The request body
+     */
+    public DataTrackingPostRequest(String url, Map<String, String> headers, RequestBody body) {
+        this.url = url;
+        this.headers = headers;
+        this.body = body;
+    }
+
     /**
      * Returns the URL
      * @return the URL
@@ -41,10 +61,45 @@ public class DataTrackingPostRequest {
     }
 
     /**
-     * Returns the body of the request
+     * Returns the body of the request if it is written straight to the connection
+     * @return the body of the request, or null if the body is a String
+     */
+    public RequestBody getBody() {
+        return body;
+    }
+
+    /**
+     * Returns the body of the request. A body that is written straight to the connection is rendered as a UTF-8
+     * String the first time this is called.
      * @return the body of the request
      */
     public String getRawBody() {
+        if (rawBody == null && body != null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                body.writeTo(out);
+            } catch (IOException e) {
+                return null;
+            }
+            rawBody = new String(out.toByteArray(), Charset.forName("UTF-8"));
+        }
         return rawBody;
     }
+
+    /**
+     * Returns whether the body of a successful response is discarded instead of read, because it is not used
+     * @return true if the body of a successful response is discarded
+     */
+    public boolean isDiscardSuccessBody() {
+        return discardSuccessBody;
+    }
+
+    /**
+     * Sets whether the body of a successful response is discarded instead of read. Multi-status responses are always
+     * read, since they tell which parts of the request failed.
+     * @param discardSuccessBody true to discard the body of a successful response
+     */
+    public void setDiscardSuccessBody(boolean discardSuccessBody) {
+        this.discardSuccessBody = discardSuccessBody;
+    }
 }
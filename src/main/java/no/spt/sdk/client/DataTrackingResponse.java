@@ -1,15 +1,23 @@
 package no.spt.sdk.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.Map;
 
 /**
- * An HTTP response representation
+ * An HTTP response representation. The body is either a String, or the bytes that were read from the connection,
+ * which are only decoded when the body is asked for.
  */
 public class DataTrackingResponse {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private final Map<String, String> headers;
     private final int responseCode;
     private final String rawBody;
+    private final byte[] body;
+    private final Charset charset;
+    private final boolean bodyTruncated;
 
     /**
      * Constructs a new DataTrackingResponse
@@ -22,6 +30,28 @@ public class DataTrackingResponse {
         this.responseCode = responseCode;
         this.headers = headers;
         this.rawBody = rawBody;
+        this.body = null;
+        this.charset = UTF_8;
+        this.bodyTruncated = false;
+    }
+
+    /**
+     * Constructs a new DataTrackingResponse with a body that is decoded when it is asked for
+     *
+     * @param responseCode the HTTP status code of the response
+     * @param headers the HTTP headers of the response
+     * @param body the bytes of the HTTP body of the response, or null if the body was discarded
+     * @param charset the charset of the body
+     * @param bodyTruncated true if only the first part of the body was kept
+     */
+    public DataTrackingResponse(int responseCode, Map<String, String> headers, byte[] body, Charset charset,
+                                boolean bodyTruncated) {
+        this.responseCode = responseCode;
+        this.headers = headers;
+        this.rawBody = null;
+        this.body = body;
+        this.charset = charset;
+        this.bodyTruncated = bodyTruncated;
     }
 
     /**
@@ -32,6 +62,24 @@ public class DataTrackingResponse {
         return headers;
     }
 
+    /**
+     * Returns the value of an HTTP header of the response. Header names are matched case-insensitively.
+     *
+     * @param name the name of the header
+     * @return the value of the header, or null if the response does not have the header
+     */
+    public String getHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
     /**
      * Return the HTTP status code of the response
      * @return the HTTP status code of the response
@@ -41,12 +89,35 @@ public class DataTrackingResponse {
     }
 
     /**
-     * Return the body of the request response
-     * @return the body of the response
+     * Return the body of the request response. A body that was read from the connection is decoded every time this is
+     * called, so only the bytes are kept.
+     * @return the body of the response, or null if the response has no body or the body was discarded
      */
     public String getRawBody() {
+        if (body != null) {
+            return new String(body, charset);
+        }
         return rawBody;
     }
 
+    /**
+     * Returns the body of the response as a stream, so it can be parsed without decoding it into a String first
+     * @return a stream of the bytes of the body, or null if the response has no body or the body was discarded
+     */
+    public InputStream getBodyStream() {
+        if (body != null) {
+            return new ByteArrayInputStream(body);
+        }
+        return rawBody == null ? null : new ByteArrayInputStream(rawBody.getBytes(UTF_8));
+    }
+
+    /**
+     * Returns whether the body was larger than {@link no.spt.sdk.Options#getMaxResponseBodySize()}, so only the first
+     * part of it was kept
+     * @return true if the body was truncated
+     */
+    public boolean isBodyTruncated() {
+        return bodyTruncated;
+    }
 
 }
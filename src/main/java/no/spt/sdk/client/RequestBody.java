@@ -0,0 +1,27 @@
+package no.spt.sdk.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A request body that is written straight to the connection, so it does not have to be rendered into a String or a
+ * byte array before it is sent
+ */
+public interface RequestBody {
+
+    /**
+     * Returns the length of the body
+     *
+     * @return the length of the body in bytes, or -1 if it is not known
+     */
+    long getContentLength();
+
+    /**
+     * Writes the body to the given stream. The body may be written more than once, for example if the request is
+     * retried. The stream must not be closed.
+     *
+     * @param out the stream to write the body to
+     * @throws IOException if the body cannot be written
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
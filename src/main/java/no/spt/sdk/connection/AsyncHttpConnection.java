@@ -0,0 +1,23 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+
+import java.util.concurrent.Future;
+
+/**
+ * An {@link HttpConnection} that can also send requests without blocking the calling thread while waiting for the
+ * response, so many requests can be in flight at the same time without a thread for each of them.
+ */
+public interface AsyncHttpConnection extends HttpConnection {
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest} without waiting for the response
+     *
+     * @param request  The request to send
+     * @param callback A callback that is told when the response is received or sending fails, or null
+     * @return A future that completes with the {@link no.spt.sdk.client.DataTrackingResponse}, or fails with an
+     * {@link java.io.IOException} if sending fails
+     */
+    Future<DataTrackingResponse> sendAsync(DataTrackingPostRequest request, ResponseCallback callback);
+}
@@ -0,0 +1,65 @@
+package no.spt.sdk.connection;
+
+/**
+ * A snapshot of the connections in the pool of an HTTP connection
+ */
+public class ConnectionPoolStats {
+
+    private final int leased;
+    private final int pending;
+    private final int available;
+    private final int max;
+
+    public ConnectionPoolStats(int leased, int pending, int available, int max) {
+        this.leased = leased;
+        this.pending = pending;
+        this.available = available;
+        this.max = max;
+    }
+
+    /**
+     * Returns the number of connections that are being used by a request
+     *
+     * @return The number of leased connections
+     */
+    public int getLeased() {
+        return leased;
+    }
+
+    /**
+     * Returns the number of requests that are waiting for a connection
+     *
+     * @return The number of pending requests
+     */
+    public int getPending() {
+        return pending;
+    }
+
+    /**
+     * Returns the number of idle connections that are kept alive for reuse
+     *
+     * @return The number of available connections
+     */
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * Returns the maximum number of connections in the pool
+     *
+     * @return The maximum number of connections
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStats{" +
+                "leased=" + leased +
+                ", pending=" + pending +
+                ", available=" + available +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,70 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.Options;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates HTTP connections that prefer HTTP/2, built on the {@code java.net.http} client of the JDK. The connection is
+ * shipped in the Java 11 part of the multi-release jar, so the rest of the SDK keeps running on older JDKs. Concurrent
+ * batches, tracking ID lookups and error reports to the same host share a single connection instead of each opening
+ * their own.
+ */
+public final class Http2ConnectionFactory {
+
+    private static final String CONNECTION_CLASS = "no.spt.sdk.connection.Http2ClientConnection";
+
+    private Http2ConnectionFactory() {
+
+    }
+
+    /**
+     * Returns whether HTTP/2 connections can be created on this JDK
+     *
+     * @return true if running on Java 11 or later
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName(CONNECTION_CLASS);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates an HTTP connection that prefers HTTP/2
+     *
+     * @param options The options used to configure the connection
+     * @return The connection
+     * @throws UnsupportedOperationException If not running on Java 11 or later
+     */
+    public static AsyncHttpConnection create(Options options) {
+        Class<?> connectionClass;
+        try {
+            connectionClass = Class.forName(CONNECTION_CLASS);
+        } catch (ClassNotFoundException e) {
+            throw new UnsupportedOperationException("HTTP/2 connections require Java 11 or later.", e);
+        } catch (LinkageError e) {
+            throw new UnsupportedOperationException("HTTP/2 connections require Java 11 or later.", e);
+        }
+        try {
+            Constructor<?> constructor = connectionClass.getDeclaredConstructor(Options.class);
+            return (AsyncHttpConnection) constructor.newInstance(options);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to create HTTP/2 connection.", e.getCause());
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Unable to create HTTP/2 connection.", e);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException("Unable to create HTTP/2 connection.", e);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to create HTTP/2 connection.", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.exceptions.DataTrackingException;
+import no.spt.sdk.exceptions.error.ActivitySendingError;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * The HttpAsyncClientConnection wraps a {@link org.apache.http.impl.nio.client.CloseableHttpAsyncClient} and is
+ * responsible for HTTP connections. Requests are sent on a few non-blocking I/O threads, so a thread does not have to
+ * wait for each response. Pool sizes and keep-alive are taken from the {@link Options}.
+ */
+public class HttpAsyncClientConnection implements AsyncHttpConnection {
+
+    private CloseableHttpAsyncClient httpClient;
+    private RequestConfig requestConfig;
+    private int maxResponseBodySize;
+
+    /**
+     * Constructs an HttpAsyncClientConnection using the provided options and starts its I/O threads
+     *
+     * @param options The options used to configure the connector
+     */
+    public HttpAsyncClientConnection(Options options) {
+        this(options, HttpAsyncClients.custom()
+                .setMaxConnPerRoute(options.getMaxConnectionsPerRoute())
+                .setMaxConnTotal(options.getMaxConnections())
+                .setKeepAliveStrategy(new KeepAliveStrategy(options.getKeepAlive()))
+                .build());
+    }
+
+    /**
+     * Constructor used primarily for testing. The http client is started if it is not running.
+     *
+     * @param options    The options used to configure the connector
+     * @param httpClient The httpClient to use for communication with the data collector
+     */
+    protected HttpAsyncClientConnection(Options options, CloseableHttpAsyncClient httpClient) {
+        this.httpClient = httpClient;
+        this.requestConfig = HttpClientConnection.createRequestConfig(options);
+        this.maxResponseBodySize = options.getMaxResponseBodySize();
+        if (!httpClient.isRunning()) {
+            httpClient.start();
+        }
+    }
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest} and waits for the response
+     *
+     * @return a {@link no.spt.sdk.client.DataTrackingResponse}
+     * @throws IOException If sending fails
+     */
+    @Override
+    public DataTrackingResponse send(DataTrackingPostRequest request) throws IOException {
+        try {
+            return sendAsync(request, null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Request was cancelled");
+        } catch (ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest} without waiting for the response. The response body
+     * is read on an I/O thread before the future completes.
+     *
+     * @param request  The request to send
+     * @param callback A callback that is told when the response is received or sending fails, or null
+     * @return A future that completes with the {@link no.spt.sdk.client.DataTrackingResponse}
+     */
+    @Override
+    public Future<DataTrackingResponse> sendAsync(DataTrackingPostRequest request, ResponseCallback callback) {
+        ResponseFuture future = new ResponseFuture(new HttpClientConnection.DataTrackingResponseHandler(
+                maxResponseBodySize, request.isDiscardSuccessBody()), callback);
+        future.setExchange(httpClient.execute(HttpClientConnection.createPost(request, requestConfig), future));
+        return future;
+    }
+
+    /**
+     * Closes the CloseableHttpAsyncClient and stops its I/O threads
+     *
+     * @throws DataTrackingException if the CloseableHttpAsyncClient cannot be closed
+     */
+    @Override
+    public void close() throws DataTrackingException {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            throw new DataTrackingException(e, ActivitySendingError.CLOSING_CLIENT_ERROR);
+        }
+    }
+}
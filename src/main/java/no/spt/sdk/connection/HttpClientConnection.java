@@ -1,33 +1,46 @@
 package no.spt.sdk.connection;
 
+import no.spt.sdk.Defaults;
 import no.spt.sdk.Options;
 import no.spt.sdk.client.DataTrackingPostRequest;
 import no.spt.sdk.client.DataTrackingResponse;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.exceptions.error.ActivitySendingError;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.SocketConfig;
 import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * The HttpClientConnection wraps a {@link org.apache.http.impl.client.CloseableHttpClient} and is responsible for
- * HTTP connections.
+ * HTTP connections. Connections are pooled and kept alive for reuse, with pool sizes, keep-alive and socket options
+ * taken from the {@link Options}. Connections that have been idle for too long are closed on a background thread.
  */
 public class HttpClientConnection implements HttpConnection {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private CloseableHttpClient httpClient;
     private Options options;
+    private RequestConfig requestConfig;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private IdleConnectionEvictor idleConnectionEvictor;
 
     /**
      * Constructs an HttpClientConnection using the provided options
@@ -35,7 +48,14 @@ public class HttpClientConnection implements HttpConnection {
      * @param options The options used to configure the connector
      */
     public HttpClientConnection(Options options) {
-        this(options, HttpClients.createDefault());
+        this(options, createConnectionManager(options));
+    }
+
+    private HttpClientConnection(Options options, PoolingHttpClientConnectionManager connectionManager) {
+        this(options, HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(new KeepAliveStrategy(options.getKeepAlive()))
+                .build(), connectionManager);
     }
 
     /**
@@ -45,18 +65,88 @@ public class HttpClientConnection implements HttpConnection {
      * @param httpClient The httpClient to use for communication with the data collector
      */
     protected HttpClientConnection(Options options, CloseableHttpClient httpClient) {
+        this(options, httpClient, null);
+    }
+
+    /**
+     * @param options           The options used to configure the connector
+     * @param httpClient        The httpClient to use for communication with the data collector
+     * @param connectionManager The connection manager of the http client, or null if its connections are not evicted
+     *                          by this connection
+     */
+    HttpClientConnection(Options options, CloseableHttpClient httpClient,
+                         PoolingHttpClientConnectionManager connectionManager) {
         this.httpClient = httpClient;
         this.options = options;
+        this.requestConfig = createRequestConfig(options);
+        this.connectionManager = connectionManager;
+        if (connectionManager != null && options.getIdleConnectionTimeout() > 0) {
+            this.idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, options
+                    .getIdleConnectionTimeout());
+            this.idleConnectionEvictor.start();
+        }
     }
 
     /**
-     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest}
+     * Creates a pooling connection manager with the pool sizes and socket options from the options
+     *
+     * @param options The options used to configure the connection manager
+     * @return The connection manager
+     */
+    static PoolingHttpClientConnectionManager createConnectionManager(Options options) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(options.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(options.getMaxConnectionsPerRoute());
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom()
+                .setTcpNoDelay(options.isTcpNoDelay())
+                .setSoKeepAlive(true)
+                .setSoTimeout(options.getTimeout())
+                .build());
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setBufferSize(options.getSocketBufferSize())
+                .setCharset(UTF_8)
+                .build());
+        return connectionManager;
+    }
+
+    /**
+     * Creates the request config with timeouts and the stale connection check from the options. It is the same for
+     * every request, so it is created once.
+     *
+     * @param options The options used to configure the requests
+     * @return The request config
+     */
+    static RequestConfig createRequestConfig(Options options) {
+        return RequestConfig.custom()
+                .setSocketTimeout(options.getTimeout())
+                .setConnectTimeout(options.getTimeout())
+                .setConnectionRequestTimeout(options.getTimeout())
+                .setStaleConnectionCheckEnabled(options.isStaleConnectionCheck())
+                .build();
+    }
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest}. A {@link no.spt.sdk.client.RequestBody} is written
+     * straight to the connection without being copied into memory first.
      *
      * @return a {@link no.spt.sdk.client.DataTrackingResponse}
      * @throws IOException If sending fails
      */
     @Override
     public DataTrackingResponse send(DataTrackingPostRequest request) throws IOException {
+        ResponseHandler<DataTrackingResponse> responseHandler = new DataTrackingResponseHandler(options
+                .getMaxResponseBodySize(), request.isDiscardSuccessBody());
+        return httpClient.execute(createPost(request, requestConfig), responseHandler);
+    }
+
+    /**
+     * Creates the HTTP post for a {@link no.spt.sdk.client.DataTrackingPostRequest}
+     *
+     * @param request The request to send
+     * @param config  The request config with timeouts
+     * @return The HTTP post
+     */
+    static HttpPost createPost(DataTrackingPostRequest request, RequestConfig config) {
         HttpPost post = new HttpPost(request.getUrl());
         post.addHeader("Content-Type", "application/json; charset=utf-8");
         if (request.getHeaders() != null) {
@@ -65,30 +155,39 @@ public class HttpClientConnection implements HttpConnection {
                 post.addHeader(entry.getKey(), entry.getValue());
             }
         }
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        out.write(request.getRawBody()
-                .getBytes(Charset.forName("UTF-8")));
-        post.setEntity(new ByteArrayEntity(out.toByteArray()));
-
-        RequestConfig config = RequestConfig.custom()
-                .setSocketTimeout(options.getTimeout())
-                .setConnectTimeout(options.getTimeout())
-                .setConnectionRequestTimeout(options.getTimeout())
-                .build();
-
+        if (request.getBody() != null) {
+            post.setEntity(new RequestBodyEntity(request.getBody()));
+        } else {
+            post.setEntity(new ByteArrayEntity(request.getRawBody()
+                    .getBytes(UTF_8)));
+        }
         post.setConfig(config);
+        return post;
+    }
 
-        ResponseHandler<DataTrackingResponse> responseHandler = new DataTrackingResponseHandler();
-        return httpClient.execute(post, responseHandler);
+    /**
+     * Returns a snapshot of the connections in the pool
+     *
+     * @return The connection pool stats, or null if the http client was not created by this connection
+     */
+    public ConnectionPoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return null;
+        }
+        PoolStats stats = connectionManager.getTotalStats();
+        return new ConnectionPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
     }
 
     /**
-     * Closes the CloseableHttpClient
+     * Closes the CloseableHttpClient and stops evicting idle connections
      *
      * @throws DataTrackingException if the CloseableHttpClient cannot be closed
      */
     @Override
     public void close() throws DataTrackingException {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdown();
+        }
         try {
             httpClient.close();
         } catch (IOException e) {
@@ -97,23 +196,119 @@ public class HttpClientConnection implements HttpConnection {
     }
 
     /**
-     * Response handler for the HTTP client
+     * Response handler for the HTTP client. Response headers are kept so that pacing hints like Retry-After can be
+     * honored. Header names are case-insensitive, and headers that occur more than once are joined with a comma.
+     * The body is kept as bytes, up to a maximum size, and the body of a successful response can be discarded without
+     * being kept at all. The rest of the body is always read, so the connection can be reused.
      */
-    private static class DataTrackingResponseHandler implements ResponseHandler<DataTrackingResponse> {
+    static class DataTrackingResponseHandler implements ResponseHandler<DataTrackingResponse> {
+
+        private static final int BUFFER_SIZE = 4096;
+        private final int maxBodySize;
+        private final boolean discardSuccessBody;
+
+        DataTrackingResponseHandler() {
+            this(Defaults.MAX_RESPONSE_BODY_SIZE, false);
+        }
+
+        /**
+         * @param maxBodySize        The maximum number of bytes of the body to keep
+         * @param discardSuccessBody true to discard the body of a successful response
+         */
+        DataTrackingResponseHandler(int maxBodySize, boolean discardSuccessBody) {
+            this.maxBodySize = maxBodySize;
+            this.discardSuccessBody = discardSuccessBody;
+        }
 
         /**
          * Response handler for the HTTP client
          *
          * @param response the HTTP response
          * @return a DataTrackingResponse
-         * @throws IOException if the HTTP entity cannot be converted to a String
+         * @throws IOException if the HTTP entity cannot be read
          */
         public DataTrackingResponse handleResponse(final HttpResponse response) throws IOException {
             int status = response.getStatusLine()
                     .getStatusCode();
+            Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+            for (Header header : response.getAllHeaders()) {
+                String previous = headers.get(header.getName());
+                headers.put(header.getName(), previous == null ? header.getValue() : previous + ", " + header
+                        .getValue());
+            }
             HttpEntity entity = response.getEntity();
-            return new DataTrackingResponse(status, null, EntityUtils.toString(entity));
+            InputStream content = entity == null ? null : entity.getContent();
+            if (content == null) {
+                return new DataTrackingResponse(status, headers, null);
+            }
+            try {
+                if (isBodyDiscarded(status, discardSuccessBody)) {
+                    return new DataTrackingResponse(status, headers, null);
+                }
+                return readResponse(status, headers, content, getCharset(entity.getContentType() == null ? null :
+                        entity.getContentType().getValue()), maxBodySize);
+            } finally {
+                content.close();
+            }
+        }
+
+        /**
+         * Returns whether the body of a response is discarded. Only successful responses are discarded, and never
+         * multi-status responses, since they tell which parts of the request failed.
+         *
+         * @param status             The status code of the response
+         * @param discardSuccessBody true if the body of a successful response should be discarded
+         * @return true if the body is discarded
+         */
+        static boolean isBodyDiscarded(int status, boolean discardSuccessBody) {
+            return discardSuccessBody && status >= 200 && status < 300 && status != HttpStatus.SC_MULTI_STATUS;
+        }
+
+        /**
+         * Reads up to the maximum body size from the content into a response. The rest of the content is not read.
+         *
+         * @param status      The status code of the response
+         * @param headers     The headers of the response
+         * @param content     The body of the response
+         * @param charset     The charset of the body
+         * @param maxBodySize The maximum number of bytes to keep
+         * @return The response
+         * @throws IOException If the content cannot be read
+         */
+        static DataTrackingResponse readResponse(int status, Map<String, String> headers, InputStream content,
+                                                 Charset charset, int maxBodySize) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream(Math.min(BUFFER_SIZE, maxBodySize));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while (body.size() < maxBodySize && (read = content.read(buffer, 0, Math.min(buffer.length,
+                    maxBodySize - body.size()))) != -1) {
+                body.write(buffer, 0, read);
+            }
+            boolean truncated = body.size() == maxBodySize && content.read() != -1;
+            return new DataTrackingResponse(status, headers, body.toByteArray(), charset, truncated);
+        }
+
+        /**
+         * Returns the charset of a Content-Type header. JSON is UTF-8 unless another charset is given.
+         *
+         * @param contentType The value of the Content-Type header, or null
+         * @return The charset of the body
+         */
+        static Charset getCharset(String contentType) {
+            if (contentType != null) {
+                for (String parameter : contentType.split(";")) {
+                    String[] pair = parameter.trim().split("=", 2);
+                    if (pair.length == 2 && "charset".equalsIgnoreCase(pair[0].trim())) {
+                        try {
+                            return Charset.forName(pair[1].trim().replace("\"", ""));
+                        } catch (IllegalArgumentException e) {
+                            return UTF_8;
+                        }
+                    }
+                }
+            }
+            return UTF_8;
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package no.spt.sdk.connection;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closes pooled connections that have expired or have been idle for too long on a background thread, so connections
+ * closed by the server are not found by the next request
+ */
+class IdleConnectionEvictor implements Runnable {
+
+    private final HttpClientConnectionManager connectionManager;
+    private final long idleTimeout;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * @param connectionManager The connection manager to evict connections from
+     * @param idleTimeout       The amount of milliseconds a connection may be idle before it is closed
+     */
+    IdleConnectionEvictor(HttpClientConnectionManager connectionManager, long idleTimeout) {
+        this.connectionManager = connectionManager;
+        this.idleTimeout = idleTimeout;
+        this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "data-collector-idle-connection-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Starts checking for idle connections every half idle timeout
+     */
+    void start() {
+        long period = Math.max(idleTimeout / 2, 1);
+        executor.scheduleWithFixedDelay(this, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run() {
+        connectionManager.closeExpiredConnections();
+        connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the background thread
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,28 @@
+package no.spt.sdk.connection;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Keeps connections alive for as long as the server asks with a Keep-Alive header, but never longer than the
+ * configured keep-alive duration
+ */
+class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final long keepAlive;
+
+    /**
+     * @param keepAlive The maximum amount of milliseconds to keep an idle connection alive
+     */
+    KeepAliveStrategy(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        long requested = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return requested > 0 ? Math.min(requested, keepAlive) : keepAlive;
+    }
+}
@@ -0,0 +1,52 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.client.RequestBody;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An HTTP entity that writes a {@link RequestBody} straight to the connection
+ */
+class RequestBodyEntity extends AbstractHttpEntity {
+
+    private final RequestBody body;
+
+    RequestBodyEntity(RequestBody body) {
+        this.body = body;
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return body.getContentLength();
+    }
+
+    /**
+     * Renders the body into memory. The HTTP client writes the entity with {@link #writeTo(OutputStream)} instead.
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        body.writeTo(out);
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
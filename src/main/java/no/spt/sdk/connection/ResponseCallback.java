@@ -0,0 +1,26 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.client.DataTrackingResponse;
+
+import java.io.IOException;
+
+/**
+ * A callback for requests sent with {@link AsyncHttpConnection#sendAsync}. It is called on an I/O thread, so it
+ * should return quickly.
+ */
+public interface ResponseCallback {
+
+    /**
+     * Called when a response is received
+     *
+     * @param response The response
+     */
+    void completed(DataTrackingResponse response);
+
+    /**
+     * Called when sending fails or is cancelled
+     *
+     * @param e The reason sending failed
+     */
+    void failed(IOException e);
+}
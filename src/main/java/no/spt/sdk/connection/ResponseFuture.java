@@ -0,0 +1,127 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.client.DataTrackingResponse;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A future for a request sent by the {@link HttpAsyncClientConnection}. It turns the HTTP response into a
+ * {@link no.spt.sdk.client.DataTrackingResponse} on the I/O thread, and tells the callback, if any, when it is done.
+ */
+class ResponseFuture implements Future<DataTrackingResponse>, FutureCallback<HttpResponse> {
+
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final HttpClientConnection.DataTrackingResponseHandler handler;
+    private final ResponseCallback callback;
+    private volatile Future<HttpResponse> exchange;
+    private volatile DataTrackingResponse response;
+    private volatile IOException failure;
+    private volatile boolean cancelled;
+
+    ResponseFuture(HttpClientConnection.DataTrackingResponseHandler handler, ResponseCallback callback) {
+        this.handler = handler;
+        this.callback = callback;
+    }
+
+    /**
+     * Sets the future of the HTTP exchange, so cancelling this future cancels the request
+     *
+     * @param exchange The future of the HTTP exchange
+     */
+    void setExchange(Future<HttpResponse> exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    public void completed(HttpResponse result) {
+        try {
+            finish(handler.handleResponse(result), null);
+        } catch (IOException e) {
+            finish(null, e);
+        }
+    }
+
+    @Override
+    public void failed(Exception e) {
+        finish(null, e instanceof IOException ? (IOException) e : new IOException(e));
+    }
+
+    @Override
+    public void cancelled() {
+        cancelled = true;
+        finish(null, new InterruptedIOException("Request was cancelled"));
+    }
+
+    private void finish(DataTrackingResponse response, IOException failure) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        this.response = response;
+        this.failure = failure;
+        done.countDown();
+        if (callback == null) {
+            return;
+        }
+        if (failure == null) {
+            callback.completed(response);
+        } else {
+            callback.failed(failure);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        Future<HttpResponse> current = exchange;
+        if (current == null || !current.cancel(mayInterruptIfRunning)) {
+            return false;
+        }
+        cancelled();
+        return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public DataTrackingResponse get() throws InterruptedException, ExecutionException {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public DataTrackingResponse get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+            TimeoutException {
+        if (!done.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+        return result();
+    }
+
+    private DataTrackingResponse result() throws ExecutionException {
+        if (cancelled) {
+            throw new CancellationException();
+        }
+        if (failure != null) {
+            throw new ExecutionException(failure);
+        }
+        return response;
+    }
+}
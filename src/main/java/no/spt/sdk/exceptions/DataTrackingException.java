@@ -1,11 +1,8 @@
 package no.spt.sdk.exceptions;
 
+import no.spt.sdk.TimestampFormat;
 import no.spt.sdk.exceptions.error.DataTrackingError;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
-
 /**
  * An SDK specific exception
  */
@@ -73,7 +70,7 @@ public class DataTrackingException extends Exception {
     }
 
     private void setTimestampNow() {
-        timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US).format(new Date());
+        timestamp = TimestampFormat.now();
     }
 
 }
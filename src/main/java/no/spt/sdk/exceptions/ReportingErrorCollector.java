@@ -99,9 +99,10 @@ public class ReportingErrorCollector implements ErrorCollector {
             do {
                 try {
                     if (errors.size() > 0) {
-                        DataTrackingResponse response = httpConnection.send(
-                            new DataTrackingPostRequest(options.getErrorReportingUrl(), null,
-                                jsonConverter.serialize(convertToErrorReports(errors))));
+                        DataTrackingPostRequest request = new DataTrackingPostRequest(options
+                            .getErrorReportingUrl(), null, jsonConverter.serialize(convertToErrorReports(errors)));
+                        request.setDiscardSuccessBody(true);
+                        DataTrackingResponse response = httpConnection.send(request);
                         stats.addToErrorReports(errors.size());
                     }
                     success = true;
@@ -4,11 +4,16 @@ public enum ActivitySendingError implements DataTrackingError {
 
     GENERAL_ACTIVITY_SENDING_ERROR(10000),
     INTERRUPTED_ERROR(10020),
+    FLUSH_TIMEOUT_ERROR(10021),
+    SERIALIZATION_ERROR(10030),
     HTTP_CONNECTION_ERROR(10050),
     BAD_REQUEST(10051),
     VALIDATION_ERROR(10052),
     UNEXPECTED_RESPONSE(10053),
+    CIRCUIT_BREAKER_OPEN(10054),
     QUEUE_MAX_SIZE_REACHED(10070),
+    QUEUE_LOAD_SHED(10071),
+    SPOOL_ERROR(10080),
     CLOSING_CLIENT_ERROR(10100);
 
 
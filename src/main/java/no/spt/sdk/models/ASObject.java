@@ -1,9 +1,8 @@
 package no.spt.sdk.models;
 
 import com.google.common.collect.ImmutableMap;
+import no.spt.sdk.TimestampFormat;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 import static com.google.common.collect.Maps.newLinkedHashMap;
@@ -17,19 +16,28 @@ public class ASObject {
 
     public static final ASObject EMPTY = new ASObject(new Builder(null, null));
 
-    private static final DateFormat ISO_8601_FORMAT =
-            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
-
     protected final Map<String,Object> map;
+    private final boolean frozen;
 
     protected ASObject(ASObject.AbstractBuilder<?,?> builder) {
         this.map = ImmutableMap.copyOf(builder.map);
+        this.frozen = builder.frozen;
     }
 
     public Map<String, Object> getMap() {
         return this.map;
     }
 
+    /**
+     * Returns whether this object is a template that is reused by many activities. The converters serialize a
+     * template once and reuse its JSON.
+     *
+     * @return true if this object was built with {@link AbstractBuilder#freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
     public static class Builder extends AbstractBuilder<ASObject, Builder> {
 
         public Builder(String type, String id) {
@@ -47,6 +55,7 @@ public class ASObject {
 
     public static abstract class AbstractBuilder<A extends ASObject, B extends AbstractBuilder<A,B>> {
         private final Map<String, Object> map;
+        private boolean frozen;
 
         public AbstractBuilder(String type, String id) {
             map = newLinkedHashMap();
@@ -60,6 +69,40 @@ public class ASObject {
 
         public abstract A build();
 
+        /**
+         * Builds the object as a template that is reused by many activities, like the provider of a site. The
+         * converters serialize a template once and write the same JSON for every activity it is used in. Values
+         * that change between activities must not be kept in a template.
+         *
+         * @return The template
+         */
+        public A freeze() {
+            frozen = true;
+            try {
+                return build();
+            } finally {
+                frozen = false;
+            }
+        }
+
+        /**
+         * Copies all the properties of another object, typically a template, into this builder. Properties that are
+         * set afterwards replace the copied ones, so variants of a template can be built cheaply. The type and ID of
+         * the template are only copied if this builder has none, so the ones given to the constructor are kept.
+         *
+         * @param template The object to copy the properties of
+         * @return The builder
+         */
+        public B from(ASObject template) {
+            for (Map.Entry<String, Object> property : template.getMap().entrySet()) {
+                String key = property.getKey();
+                if (!map.containsKey(key) || !("@type".equals(key) || "@id".equals(key))) {
+                    map.put(key, property.getValue());
+                }
+            }
+            return (B)this;
+        }
+
         B set(String key, Object value) {
             if (value == null || EMPTY.equals(value)) {
                 return (B)this;
@@ -160,12 +203,11 @@ public class ASObject {
         }
 
         public B published(Date published) {
-            return published(ISO_8601_FORMAT.format(published));
+            return published(TimestampFormat.format(published));
         }
 
         public B publishedNow() {
-            Calendar currentTime = Calendar.getInstance();
-            return published(ISO_8601_FORMAT.format(currentTime.getTime()));
+            return published(TimestampFormat.now());
         }
 
     }
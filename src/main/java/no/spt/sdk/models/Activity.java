@@ -1,14 +1,13 @@
 package no.spt.sdk.models;
 
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import no.spt.sdk.TimestampFormat;
 import no.spt.sdk.TrackingUtil;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
-import static java.util.UUID.randomUUID;
-
 /**
  * Represents an Activity Streams 2.0 Activity
  *
@@ -17,7 +16,11 @@ import static java.util.UUID.randomUUID;
  */
 public class Activity {
 
-    private static final DateFormat ISO_8601_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+    /**
+     * The context of every activity. It does not change while the SDK is running, so it is created once and shared,
+     * and the converters encode it once.
+     */
+    public static final List<Object> CONTEXT = createContext();
 
     private final List<Object> context;
     private final String id;
@@ -31,6 +34,12 @@ public class Activity {
 
     private Activity(String type, String published, Actor actor, Provider provider, ASObject object, ASObject target,
                      ASObject result) {
+        this(IdGenerators.getDefault().generateId(), type, published, actor, provider, object, target, result);
+    }
+
+    Activity(String id, String type, String published, Actor actor, Provider provider, ASObject object,
+             ASObject target, ASObject result) {
+        this.id = id;
         this.type = type;
         this.published = published;
         this.actor = actor;
@@ -38,12 +47,15 @@ public class Activity {
         this.object = object;
         this.target = target;
         this.result = result;
+        context = CONTEXT;
+    }
+
+    private static List<Object> createContext() {
         Map<String, String> map = new HashMap<String, String>();
         map.put("spt", "http://schema.schibsted.com/activitystreams");
         map.put("spt:sdkType", "JAVA");
         map.put("spt:sdkVersion", TrackingUtil.getSdkVersion());
-        context = Arrays.asList("http://www.w3.org/ns/activitystreams", map);
-        id = randomUUID().toString();
+        return ImmutableList.<Object>of("http://www.w3.org/ns/activitystreams", ImmutableMap.copyOf(map));
     }
 
     public List<Object> getContext() {
@@ -155,13 +167,12 @@ public class Activity {
         }
 
         public Builder published(Date published) {
-            this.published = ISO_8601_FORMAT.format(published);
+            this.published = TimestampFormat.format(published);
             return this;
         }
 
         public Builder publishedNow() {
-            Calendar currentTime = Calendar.getInstance();
-            this.published = ISO_8601_FORMAT.format(currentTime.getTime());
+            this.published = TimestampFormat.now();
             return this;
         }
 
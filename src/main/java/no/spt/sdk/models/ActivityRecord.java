@@ -0,0 +1,186 @@
+package no.spt.sdk.models;
+
+import no.spt.sdk.TimestampFormat;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A mutable activity that is filled in, tracked and then reused for the next activity. Tracking a record does not
+ * create an {@link Activity}, its builder or its context, and its published time is written without creating a
+ * String. Combined with frozen templates for the objects that are the same for every activity, see
+ * {@link ASObject.AbstractBuilder#freeze()}, tracking an activity allocates little more than its JSON.
+ * <p>
+ * Records are not thread safe. Use the record of the current thread from
+ * {@link no.spt.sdk.client.DataTrackingClient#activityRecord()}, and do not use it again after it has been tracked
+ * until it is handed out again.
+ */
+public final class ActivityRecord {
+
+    private String type;
+    private String id;
+    private long published;
+    private boolean hasPublished;
+    private Actor actor;
+    private Provider provider;
+    private ASObject object;
+    private ASObject target;
+    private ASObject result;
+
+    /**
+     * Clears all the fields, so the record can be reused for the next activity
+     *
+     * @return The record
+     */
+    public ActivityRecord reset() {
+        type = null;
+        id = null;
+        hasPublished = false;
+        actor = null;
+        provider = null;
+        object = null;
+        target = null;
+        result = null;
+        return this;
+    }
+
+    public ActivityRecord type(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Sets the ID of the activity. If it is not set, an ID is generated by {@link IdGenerators#getDefault()} when the
+     * record is tracked.
+     *
+     * @param id The ID of the activity
+     * @return The record
+     */
+    public ActivityRecord id(String id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Sets the time the activity was published. If it is not set, the time the record is tracked is used.
+     *
+     * @param millis The milliseconds since the epoch
+     * @return The record
+     */
+    public ActivityRecord published(long millis) {
+        this.published = millis;
+        this.hasPublished = true;
+        return this;
+    }
+
+    public ActivityRecord actor(Actor actor) {
+        this.actor = actor;
+        return this;
+    }
+
+    public ActivityRecord provider(Provider provider) {
+        this.provider = provider;
+        return this;
+    }
+
+    public ActivityRecord object(ASObject object) {
+        this.object = object;
+        return this;
+    }
+
+    public ActivityRecord target(ASObject target) {
+        this.target = target;
+        return this;
+    }
+
+    public ActivityRecord result(ASObject result) {
+        this.result = result;
+        return this;
+    }
+
+    public List<Object> getContext() {
+        return Activity.CONTEXT;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the activity. An ID is generated the first time it is read, if it has not been set.
+     *
+     * @return The ID of the activity
+     */
+    public String getId() {
+        if (id == null) {
+            id = IdGenerators.getDefault().generateId();
+        }
+        return id;
+    }
+
+    /**
+     * Returns the time the activity was published. The current time is used the first time it is read, if it has not
+     * been set.
+     *
+     * @return The milliseconds since the epoch
+     */
+    public long getPublished() {
+        if (!hasPublished) {
+            published(System.currentTimeMillis());
+        }
+        return published;
+    }
+
+    public Actor getActor() {
+        return actor;
+    }
+
+    public Provider getProvider() {
+        return provider;
+    }
+
+    public ASObject getObject() {
+        return object;
+    }
+
+    public ASObject getTarget() {
+        return target;
+    }
+
+    public ASObject getResult() {
+        return result;
+    }
+
+    /**
+     * Creates an activity with the fields of the record, including its ID and published time. Used for senders that
+     * cannot enqueue records.
+     *
+     * @return An activity with the fields of the record
+     * @throws IllegalStateException if a required field is missing
+     */
+    public Activity toActivity() {
+        validate();
+        return new Activity(getId(), type, TimestampFormat.format(new Date(getPublished())), actor, provider, object,
+                target, result);
+    }
+
+    /**
+     * Checks that the record has the fields an activity must have
+     *
+     * @throws IllegalStateException if a required field is missing
+     */
+    public void validate() {
+        if (provider == null) {
+            throw new IllegalStateException("Provider must be not null");
+        }
+        if (object == null) {
+            throw new IllegalStateException("Object must be not null");
+        }
+        if (actor == null) {
+            throw new IllegalStateException("Actor must be not null");
+        }
+        if (type == null || type.isEmpty()) {
+            throw new IllegalStateException("Type must be not null and not empty");
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package no.spt.sdk.models;
 
-import java.util.UUID;
-
 /**
  * Represents an Activity Streams 2.0 Actor
  *
@@ -32,15 +30,15 @@ public class Actor extends ASObject {
     }
 
     private static String toIriVisitorId(String visitorId) {
-        return "urn:schibsted.com:person:" + (!visitorId.isEmpty() ? visitorId : UUID.randomUUID().toString());
+        return "urn:schibsted.com:person:" + (!visitorId.isEmpty() ? visitorId : IdGenerators.getDefault().generateId());
     }
 
     private static String toIriEnvironmentId(String environmentId) {
-        return "urn:schibsted.com:environment:" + (!environmentId.isEmpty() ? environmentId : UUID.randomUUID().toString());
+        return "urn:schibsted.com:environment:" + (!environmentId.isEmpty() ? environmentId : IdGenerators.getDefault().generateId());
     }
 
     private static String toIriSessionId(String sessionId) {
-        return "urn:schibsted.com:session:" + (!sessionId.isEmpty() ? sessionId : UUID.randomUUID().toString());
+        return "urn:schibsted.com:session:" + (!sessionId.isEmpty() ? sessionId : IdGenerators.getDefault().generateId());
     }
 
 }
@@ -0,0 +1,17 @@
+package no.spt.sdk.models;
+
+/**
+ * Generates the IDs of activities, and of visitors, sessions and environments that have no ID. Implementations must
+ * be thread safe.
+ *
+ * @see IdGenerators
+ */
+public interface IdGenerator {
+
+    /**
+     * Generates a new, unique ID
+     *
+     * @return The ID
+     */
+    String generateId();
+}
@@ -0,0 +1,133 @@
+package no.spt.sdk.models;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * The built-in {@link IdGenerator}s, and the generator that is used when activities and actors are built.
+ * <p>
+ * {@link #SECURE_RANDOM_UUID} is used unless another generator is set. It shares one {@link SecureRandom} between all
+ * threads, which is synchronized and can block while waiting for entropy. When many activities are built
+ * concurrently, {@link #RANDOM_UUID} or {@link #TIME_ORDERED_UUID} can be used instead.
+ */
+public final class IdGenerators {
+
+    /**
+     * Random (version 4) UUIDs from {@link UUID#randomUUID()}
+     */
+    public static final IdGenerator SECURE_RANDOM_UUID = new IdGenerator() {
+        @Override
+        public String generateId() {
+            return UUID.randomUUID().toString();
+        }
+    };
+
+    /**
+     * Random (version 4) UUIDs from a random generator for each thread, which is seeded from a {@link SecureRandom}
+     * once. The IDs are unique, but they are not suitable as secrets.
+     */
+    public static final IdGenerator RANDOM_UUID = new IdGenerator() {
+        @Override
+        public String generateId() {
+            SplitMix64 random = RANDOM.get();
+            return format((random.nextLong() & ~0xF000L) | 0x4000L, (random.nextLong() & ~(3L << 62)) | (1L << 63));
+        }
+    };
+
+    /**
+     * Time-ordered (version 7) UUIDs that start with the current time in milliseconds, followed by random bits from a
+     * random generator for each thread. IDs from different milliseconds sort in the order they were generated. IDs
+     * from the same millisecond are not ordered.
+     */
+    public static final IdGenerator TIME_ORDERED_UUID = new IdGenerator() {
+        @Override
+        public String generateId() {
+            SplitMix64 random = RANDOM.get();
+            long mostSigBits = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0xFFFL);
+            return format(mostSigBits, (random.nextLong() & ~(3L << 62)) | (1L << 63));
+        }
+    };
+
+    private static final SecureRandom SEEDS = new SecureRandom();
+
+    private static final ThreadLocal<SplitMix64> RANDOM = new ThreadLocal<SplitMix64>() {
+        @Override
+        protected SplitMix64 initialValue() {
+            synchronized (SEEDS) {
+                return new SplitMix64(SEEDS.nextLong());
+            }
+        }
+    };
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    private static volatile IdGenerator defaultGenerator = SECURE_RANDOM_UUID;
+
+    private IdGenerators() {
+    }
+
+    /**
+     * Returns the generator that is used when activities and actors are built
+     *
+     * @return The generator
+     */
+    public static IdGenerator getDefault() {
+        return defaultGenerator;
+    }
+
+    /**
+     * Sets the generator that is used when activities and actors are built. It applies to every activity built
+     * afterwards, in all threads.
+     *
+     * @param generator The generator
+     */
+    public static void setDefault(IdGenerator generator) {
+        if (generator == null) {
+            throw new IllegalArgumentException("Generator must be not null");
+        }
+        defaultGenerator = generator;
+    }
+
+    /**
+     * Formats the bits of a UUID the same way as {@link UUID#toString()}
+     */
+    static String format(long mostSigBits, long leastSigBits) {
+        char[] chars = new char[36];
+        hex(chars, 0, mostSigBits >>> 32, 8);
+        chars[8] = '-';
+        hex(chars, 9, mostSigBits >>> 16, 4);
+        chars[13] = '-';
+        hex(chars, 14, mostSigBits, 4);
+        chars[18] = '-';
+        hex(chars, 19, leastSigBits >>> 48, 4);
+        chars[23] = '-';
+        hex(chars, 24, leastSigBits, 12);
+        return new String(chars);
+    }
+
+    private static void hex(char[] chars, int offset, long value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            chars[i] = DIGITS[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    /**
+     * The SplitMix64 generator. It is small and fast, and every seed gives a sequence with a period of 2^64.
+     */
+    private static final class SplitMix64 {
+
+        private long state;
+
+        private SplitMix64(long seed) {
+            this.state = seed;
+        }
+
+        long nextLong() {
+            long z = (state += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -1,27 +1,35 @@
 package no.spt.sdk.serializers;
 
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.*;
 import com.google.gson.reflect.TypeToken;
+import no.spt.sdk.TimestampFormat;
 import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
 import no.spt.sdk.models.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Field;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Date;
 
 /**
  * A JSON converter that uses {@link com.google.gson}
  */
-public class GsonASJsonConverter implements ASJsonConverter {
+public class GsonASJsonConverter implements StreamingASJsonConverter {
 
     private final Gson gson;
 
     public GsonASJsonConverter() {
         this.gson = new GsonBuilder()
-            .registerTypeAdapter(ASObject.class, new ASObjectTypeConverter())
-            .registerTypeAdapter(Actor.class, new ASObjectTypeConverter())
-            .registerTypeAdapter(Provider.class, new ASObjectTypeConverter())
-            .registerTypeAdapter(Target.class, new ASObjectTypeConverter())
+            .registerTypeAdapter(Activity.class, new ActivityTypeConverter())
+            .registerTypeAdapter(ActivityRecord.class, new ActivityRecordTypeConverter())
+            .registerTypeHierarchyAdapter(ASObject.class, new ASObjectTypeConverter())
             .registerTypeAdapter(Link.class, new LinkTypeConverter())
             .registerTypeAdapter(JsonString.class, new JsonStringTypeConverter())
             .setFieldNamingStrategy(new ActivityNamingStrategy())
@@ -54,11 +62,95 @@ public class GsonASJsonConverter implements ASJsonConverter {
         return gson.fromJson(json, DataCollectorResponseType);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataCollectorResponse deserializeDataCollectorResponse(InputStream json) throws IOException {
+        Type DataCollectorResponseType = new TypeToken<DataCollectorResponse>(){}.getType();
+        Reader reader = new InputStreamReader(json, Charset.forName("UTF-8"));
+        try {
+            return gson.fromJson(reader, DataCollectorResponseType);
+        } catch (JsonParseException e) {
+            throw new IOException(e);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Serializes an activity with the shared context converted to JSON once, instead of converting the context of
+     * every activity
+     */
+    private static class ActivityTypeConverter implements JsonSerializer<Activity> {
+
+        private static final JsonElement CONTEXT = new Gson().toJsonTree(Activity.CONTEXT);
+
+        @Override
+        public JsonElement serialize(Activity src, Type srcType, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+            json.add("@context", src.getContext() == Activity.CONTEXT ? CONTEXT : context.serialize(src
+                    .getContext()));
+            add(json, "@id", src.getId(), context);
+            add(json, "@type", src.getType(), context);
+            add(json, "published", src.getPublished(), context);
+            add(json, "actor", src.getActor(), context);
+            add(json, "provider", src.getProvider(), context);
+            add(json, "object", src.getObject(), context);
+            add(json, "target", src.getTarget(), context);
+            add(json, "result", src.getResult(), context);
+            return json;
+        }
+
+        private static void add(JsonObject json, String name, Object value, JsonSerializationContext context) {
+            if (value != null) {
+                json.add(name, context.serialize(value));
+            }
+        }
+    }
+
+    /**
+     * Serializes an activity record the same way as an activity
+     */
+    private static class ActivityRecordTypeConverter implements JsonSerializer<ActivityRecord> {
+
+        @Override
+        public JsonElement serialize(ActivityRecord src, Type srcType, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+            json.add("@context", ActivityTypeConverter.CONTEXT);
+            json.addProperty("@id", src.getId());
+            ActivityTypeConverter.add(json, "@type", src.getType(), context);
+            json.addProperty("published", TimestampFormat.format(new Date(src.getPublished())));
+            ActivityTypeConverter.add(json, "actor", src.getActor(), context);
+            ActivityTypeConverter.add(json, "provider", src.getProvider(), context);
+            ActivityTypeConverter.add(json, "object", src.getObject(), context);
+            ActivityTypeConverter.add(json, "target", src.getTarget(), context);
+            ActivityTypeConverter.add(json, "result", src.getResult(), context);
+            return json;
+        }
+    }
+
+    /**
+     * Serializes an object from its properties. A frozen object is converted to JSON the first time it is serialized,
+     * and the JSON is reused after that.
+     */
     private static class ASObjectTypeConverter implements JsonSerializer<ASObject> {
 
+        private static final Cache<ASObject, JsonElement> FROZEN_JSON = CacheBuilder.newBuilder()
+                .weakKeys()
+                .build();
+
         @Override
         public JsonElement serialize(ASObject src, Type srcType, JsonSerializationContext context) {
-            return context.serialize(src.getMap());
+            if (!src.isFrozen()) {
+                return context.serialize(src.getMap());
+            }
+            JsonElement json = FROZEN_JSON.getIfPresent(src);
+            if (json == null) {
+                json = context.serialize(src.getMap());
+                FROZEN_JSON.put(src, json);
+            }
+            return json;
         }
 
     }
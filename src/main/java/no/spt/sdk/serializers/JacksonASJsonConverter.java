@@ -2,26 +2,42 @@ package no.spt.sdk.serializers;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
 import com.fasterxml.jackson.databind.type.MapType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import no.spt.sdk.TimestampFormat;
 import no.spt.sdk.client.DataCollectorResponse.DataCollectorError;
 import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
 import no.spt.sdk.models.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
- * A JSON converter that uses {@link com.fasterxml.jackson}
+ * A JSON converter that uses {@link com.fasterxml.jackson}. Activities and the objects they are made of are written by
+ * hand-written serializers with pre-encoded field names, rather than through bean introspection. The JSON of frozen
+ * objects is written once and reused. Activity records are written to buffers that are reused by each thread.
  */
-public class JacksonASJsonConverter implements  ASJsonConverter {
+public class JacksonASJsonConverter implements StreamingASJsonConverter {
 
     private final ObjectMapper mapper;
+    private final ObjectWriter activityWriter;
+    private final ObjectWriter activityListWriter;
+    private final ActivityRecordSerializer activityRecordSerializer;
+    private final ThreadLocal<RecordBuffer> recordBuffers = new ThreadLocal<RecordBuffer>();
 
     private static final MapType MAP_TYPE =
             TypeFactory.defaultInstance().constructMapType(Map.class, String.class, Object.class);
@@ -29,22 +45,70 @@ public class JacksonASJsonConverter implements  ASJsonConverter {
     private static final JavaType TRACKING_IDENTITY_TYPE =
             TypeFactory.defaultInstance().constructType(TrackingIdentity.class);
 
+    private static final JavaType ACTIVITY_LIST_TYPE =
+            TypeFactory.defaultInstance().constructCollectionType(List.class, Activity.class);
+
     private static final JavaType DATA_COLLECTOR_RESPONSE_TYPE =
             TypeFactory.defaultInstance().constructType(DataCollectorResponse.class);
 
+    /**
+     * Field names that are used by most objects, encoded once
+     */
+    private static final Map<String, SerializedString> FIELD_NAMES = new HashMap<String, SerializedString>();
+
+    static {
+        for (String name : new String[]{"@id", "@type", "displayName", "title", "url", "content", "published",
+                "href", "mediaType", "items", "spt:sessionId", "spt:environmentId", "spt:userId", "spt",
+                "spt:sdkType", "spt:sdkVersion"}) {
+            FIELD_NAMES.put(name, new SerializedString(name));
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+
+    /**
+     * The JSON of frozen objects. The objects are weakly referenced, so a template can be dropped by the application.
+     */
+    private static final Cache<ASObject, SerializedString> FROZEN_JSON = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
     public JacksonASJsonConverter() {
         this.mapper = new ObjectMapper();
         mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
         mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
         SimpleModule module = new SimpleModule();
-        module.addSerializer(ASObject.class, new ASObjectSerializer());
+        ASObjectSerializer asObjectSerializer = new ASObjectSerializer();
+        SerializedString encodedContext = encodeContext();
+        module.addSerializer(Activity.class, new ActivitySerializer(encodedContext));
+        this.activityRecordSerializer = new ActivityRecordSerializer(encodedContext);
+        module.addSerializer(ActivityRecord.class, activityRecordSerializer);
+        module.addSerializer(ASObject.class, asObjectSerializer);
+        module.addSerializer(Actor.class, asObjectSerializer);
+        module.addSerializer(Provider.class, asObjectSerializer);
+        module.addSerializer(Target.class, asObjectSerializer);
+        module.addSerializer(Result.class, asObjectSerializer);
+        module.addSerializer(Collection.class, asObjectSerializer);
         module.addSerializer(Link.class, new LinkSerializer());
         module.addSerializer(JsonString.class, new JsonStringSerializer());
         mapper.registerModule(module);
-        mapper.addMixIn(Activity.class, ActivityMixIn.class);
         mapper.addMixIn(TrackingIdentity.class, TrackingIdentityMixIn.class);
         mapper.addMixIn(DataCollectorResponse.class, DataCollectorResponseMixIn.class);
         mapper.addMixIn(DataCollectorError.class, DataCollectorErrorMixIn.class);
+        this.activityWriter = mapper.writerFor(Activity.class);
+        this.activityListWriter = mapper.writerFor(ACTIVITY_LIST_TYPE);
+    }
+
+    /**
+     * Encodes the context that is shared by all activities
+     */
+    private static SerializedString encodeContext() {
+        try {
+            return new SerializedString(new ObjectMapper().writeValueAsString(Activity.CONTEXT));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("The activity context cannot be serialized", e);
+        }
     }
 
     /**
@@ -52,9 +116,47 @@ public class JacksonASJsonConverter implements  ASJsonConverter {
      */
     @Override
     public String serialize(Object object) throws IOException{
+        if (object instanceof Activity) {
+            return activityWriter.writeValueAsString(object);
+        }
+        if (object instanceof ActivityRecord) {
+            return serializeRecord((ActivityRecord) object);
+        }
+        if (object instanceof List && isActivityList((List<?>) object)) {
+            return activityListWriter.writeValueAsString(object);
+        }
         return mapper.writeValueAsString(object);
     }
 
+    private String serializeRecord(ActivityRecord record) throws IOException {
+        RecordBuffer buffer = recordBuffers.get();
+        if (buffer == null) {
+            buffer = new RecordBuffer(mapper, activityRecordSerializer);
+            recordBuffers.set(buffer);
+        }
+        try {
+            return buffer.write(record);
+        } catch (IOException e) {
+            recordBuffers.remove();
+            throw e;
+        } catch (RuntimeException e) {
+            recordBuffers.remove();
+            throw e;
+        }
+    }
+
+    private static boolean isActivityList(List<?> list) {
+        if (list.isEmpty()) {
+            return false;
+        }
+        for (Object element : list) {
+            if (!(element instanceof Activity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -71,11 +173,194 @@ public class JacksonASJsonConverter implements  ASJsonConverter {
         return mapper.readValue(json, DATA_COLLECTOR_RESPONSE_TYPE);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataCollectorResponse deserializeDataCollectorResponse(InputStream json) throws IOException {
+        return mapper.readValue(json, DATA_COLLECTOR_RESPONSE_TYPE);
+    }
+
+    /**
+     * Writes an activity field by field, without bean introspection. The fields are written in the same order as the
+     * bean serializer wrote them, so the JSON is unchanged. The shared context is written as JSON that was encoded
+     * once.
+     */
+    private static class ActivitySerializer extends JsonSerializer<Activity> {
+
+        private static final SerializedString CONTEXT = new SerializedString("@context");
+        private static final SerializedString ID = new SerializedString("@id");
+        private static final SerializedString TYPE = new SerializedString("@type");
+        private static final SerializedString PUBLISHED = new SerializedString("published");
+        private static final SerializedString ACTOR = new SerializedString("actor");
+        private static final SerializedString PROVIDER = new SerializedString("provider");
+        private static final SerializedString OBJECT = new SerializedString("object");
+        private static final SerializedString TARGET = new SerializedString("target");
+        private static final SerializedString RESULT = new SerializedString("result");
+
+        private final SerializedString encodedContext;
+
+        /**
+         * @param encodedContext The JSON of {@link no.spt.sdk.models.Activity#CONTEXT}
+         */
+        private ActivitySerializer(SerializedString encodedContext) {
+            this.encodedContext = encodedContext;
+        }
+
+        @Override
+        public void serialize(Activity value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            jgen.writeStartObject();
+            writeField(PUBLISHED, value.getPublished(), jgen, provider);
+            writeField(ACTOR, value.getActor(), jgen, provider);
+            writeField(PROVIDER, value.getProvider(), jgen, provider);
+            writeField(OBJECT, value.getObject(), jgen, provider);
+            writeField(TARGET, value.getTarget(), jgen, provider);
+            writeField(RESULT, value.getResult(), jgen, provider);
+            if (value.getContext() == Activity.CONTEXT) {
+                jgen.writeFieldName(CONTEXT);
+                jgen.writeRawValue(encodedContext);
+            } else {
+                writeField(CONTEXT, value.getContext(), jgen, provider);
+            }
+            writeField(ID, value.getId(), jgen, provider);
+            writeField(TYPE, value.getType(), jgen, provider);
+            jgen.writeEndObject();
+        }
+
+        private static void writeField(SerializedString name, Object value, JsonGenerator jgen,
+                                       SerializerProvider provider) throws IOException {
+            if (value != null) {
+                jgen.writeFieldName(name);
+                writeValue(value, jgen, provider);
+            }
+        }
+    }
+
+    /**
+     * Writes an activity record the same way as {@link ActivitySerializer} writes an activity. The published time is
+     * formatted into a buffer instead of into a String.
+     */
+    private static class ActivityRecordSerializer extends JsonSerializer<ActivityRecord> {
+
+        private final SerializedString encodedContext;
+
+        /**
+         * @param encodedContext The JSON of {@link no.spt.sdk.models.Activity#CONTEXT}
+         */
+        private ActivityRecordSerializer(SerializedString encodedContext) {
+            this.encodedContext = encodedContext;
+        }
+
+        @Override
+        public void serialize(ActivityRecord value, JsonGenerator jgen, SerializerProvider provider)
+                throws IOException {
+            write(value, jgen, provider, new char[TimestampFormat.MAX_LENGTH]);
+        }
+
+        /**
+         * @param published A buffer to format the published time in
+         */
+        void write(ActivityRecord value, JsonGenerator jgen, SerializerProvider provider, char[] published)
+                throws IOException {
+            jgen.writeStartObject();
+            jgen.writeFieldName(ActivitySerializer.PUBLISHED);
+            jgen.writeString(published, 0, TimestampFormat.format(value.getPublished(), published));
+            ActivitySerializer.writeField(ActivitySerializer.ACTOR, value.getActor(), jgen, provider);
+            ActivitySerializer.writeField(ActivitySerializer.PROVIDER, value.getProvider(), jgen, provider);
+            ActivitySerializer.writeField(ActivitySerializer.OBJECT, value.getObject(), jgen, provider);
+            ActivitySerializer.writeField(ActivitySerializer.TARGET, value.getTarget(), jgen, provider);
+            ActivitySerializer.writeField(ActivitySerializer.RESULT, value.getResult(), jgen, provider);
+            jgen.writeFieldName(ActivitySerializer.CONTEXT);
+            jgen.writeRawValue(encodedContext);
+            ActivitySerializer.writeField(ActivitySerializer.ID, value.getId(), jgen, provider);
+            ActivitySerializer.writeField(ActivitySerializer.TYPE, value.getType(), jgen, provider);
+            jgen.writeEndObject();
+        }
+    }
+
+    /**
+     * The buffers and the generator that activity records are written with. They belong to one thread and are reused
+     * for every record it writes. Each record is written as another root value of the same generator, without a
+     * separator, so the generator and its buffers are not created again.
+     */
+    private static class RecordBuffer extends Writer {
+
+        private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+        private final char[] published = new char[TimestampFormat.MAX_LENGTH];
+        private final ActivityRecordSerializer serializer;
+        private final JsonGenerator generator;
+        private final SerializerProvider provider;
+        private StringBuilder json = new StringBuilder(1024);
+
+        private RecordBuffer(ObjectMapper mapper, ActivityRecordSerializer serializer) throws IOException {
+            this.serializer = serializer;
+            this.generator = mapper.getFactory().createGenerator(this);
+            this.generator.setRootValueSeparator(null);
+            this.provider = ((DefaultSerializerProvider) mapper.getSerializerProvider()).createInstance(mapper
+                    .getSerializationConfig(), mapper.getSerializerFactory());
+        }
+
+        /**
+         * Writes a record
+         *
+         * @param record The record to write
+         * @return The record as JSON
+         * @throws IOException If the record cannot be written. The buffer must not be used after that.
+         */
+        String write(ActivityRecord record) throws IOException {
+            reset();
+            serializer.write(record, generator, provider, published);
+            generator.flush();
+            return json.toString();
+        }
+
+        void reset() {
+            if (json.capacity() > MAX_RETAINED_CAPACITY) {
+                json = new StringBuilder(1024);
+            } else {
+                json.setLength(0);
+            }
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            json.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) {
+            json.append(string, offset, offset + length);
+        }
+
+        @Override
+        public void write(int c) {
+            json.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return json.toString();
+        }
+    }
+
+    /**
+     * Writes the properties of an object. The same serializer is used for all the subclasses of
+     * {@link no.spt.sdk.models.ASObject}, since they differ only in how they are built.
+     */
     private static class ASObjectSerializer extends JsonSerializer<ASObject> {
         @Override
         public void serialize(ASObject value, JsonGenerator jgen, SerializerProvider provider)
                 throws IOException {
-            jgen.writeObject(value.getMap());
+            writeASObject(value, jgen, provider);
         }
     }
 
@@ -83,7 +368,77 @@ public class JacksonASJsonConverter implements  ASJsonConverter {
         @Override
         public void serialize(Link value, JsonGenerator jgen, SerializerProvider provider)
                 throws IOException {
-            jgen.writeObject(value.getMap());
+            writeMap(value.getMap(), jgen, provider);
+        }
+    }
+
+    /**
+     * Writes an object. A frozen object is serialized the first time it is written, and its JSON is reused after that.
+     */
+    private static void writeASObject(ASObject value, JsonGenerator jgen, SerializerProvider provider)
+            throws IOException {
+        if (!value.isFrozen()) {
+            writeMap(value.getMap(), jgen, provider);
+            return;
+        }
+        SerializedString json = FROZEN_JSON.getIfPresent(value);
+        if (json == null) {
+            StringWriter writer = new StringWriter();
+            JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+            writeMap(value.getMap(), generator, provider);
+            generator.close();
+            json = new SerializedString(writer.toString());
+            FROZEN_JSON.put(value, json);
+        }
+        jgen.writeRawValue(json);
+    }
+
+    private static void writeMap(Map<?, ?> map, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        jgen.writeStartObject();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String name = String.valueOf(entry.getKey());
+            SerializedString encoded = FIELD_NAMES.get(name);
+            if (encoded != null) {
+                jgen.writeFieldName(encoded);
+            } else {
+                jgen.writeFieldName(name);
+            }
+            writeValue(entry.getValue(), jgen, provider);
+        }
+        jgen.writeEndObject();
+    }
+
+    /**
+     * Writes the values that activities are made of directly, and leaves any other value to Jackson
+     */
+    private static void writeValue(Object value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        if (value instanceof String) {
+            jgen.writeString((String) value);
+        } else if (value instanceof ASObject) {
+            writeASObject((ASObject) value, jgen, provider);
+        } else if (value instanceof Link) {
+            writeMap(((Link) value).getMap(), jgen, provider);
+        } else if (value instanceof JsonString) {
+            jgen.writeRawValue(((JsonString) value).getJson());
+        } else if (value instanceof Map) {
+            writeMap((Map<?, ?>) value, jgen, provider);
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            jgen.writeStartArray();
+            for (int i = 0; i < list.size(); i++) {
+                Object element = list.get(i);
+                if (element == null) {
+                    jgen.writeNull();
+                } else {
+                    writeValue(element, jgen, provider);
+                }
+            }
+            jgen.writeEndArray();
+        } else {
+            provider.defaultSerializeValue(value, jgen);
         }
     }
 
@@ -95,15 +450,6 @@ public class JacksonASJsonConverter implements  ASJsonConverter {
         }
     }
 
-    private class ActivityMixIn {
-        @JsonProperty("@context")
-        private List<Object> context;
-        @JsonProperty("@type")
-        private String type;
-        @JsonProperty("@id")
-        private String id;
-    }
-
     @JsonIgnoreProperties(ignoreUnknown = true)
     private class TrackingIdentityMixIn {
 
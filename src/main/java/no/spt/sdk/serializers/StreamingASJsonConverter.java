@@ -0,0 +1,25 @@
+package no.spt.sdk.serializers;
+
+
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A JSON converter that can deserialize responses from the data collector straight from the bytes that were read from
+ * the connection. Responses are decoded into a String for converters that only implement {@link ASJsonConverter}.
+ */
+public interface StreamingASJsonConverter extends ASJsonConverter {
+
+    /**
+     * Deserialize a UTF-8 JSON stream from the data collector to a
+     * {@link no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse} object, without decoding it into a String
+     * first
+     *
+     * @param json The response from the data collector
+     * @return A DataCollectorResponse object
+     * @throws IOException If the JSON could not be read or deserialized
+     */
+    public DataCollectorResponse deserializeDataCollectorResponse(InputStream json) throws IOException;
+}
@@ -0,0 +1,350 @@
+package no.spt.sdk.spool;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An append-only log of serialized activities stored in memory-mapped segment files on disk.
+ *
+ * Records are appended to the newest segment, and a new segment is created when it is full, as long as the total size
+ * of all segments stays within the disk budget. Records are read in the order they were appended. The read position
+ * is only persisted when it is committed, so after a restart reading resumes from the last committed position and
+ * records that were read but never committed are read again. Segments that lie entirely before the committed position
+ * are deleted.
+ *
+ * A position is a long that holds the segment ID in the upper 32 bits and the offset within the segment in the lower
+ * 32 bits, so positions can be compared directly.
+ */
+public class ActivitySpool {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 4;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final File directory;
+    private final long maxSize;
+    private final int segmentSize;
+    private final TreeMap<Long, Segment> segments = new TreeMap<Long, Segment>();
+    private final RandomAccessFile checkpointFile;
+    private final MappedByteBuffer checkpoint;
+    private Segment writeSegment;
+    private Segment readSegment;
+    private int readOffset;
+    private long committedPosition;
+    private long appendedCount;
+    private long readCount;
+    private boolean closed;
+
+    /**
+     * Opens the spool in the given directory, recovering any records that were appended but not committed before
+     *
+     * @param directory   The directory to store segment files in. Created if it does not exist.
+     * @param maxSize     The maximum number of bytes all segment files may use together
+     * @param segmentSize The size in bytes of each segment file
+     * @throws IOException If the spool cannot be opened
+     */
+    public ActivitySpool(File directory, long maxSize, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Spool segment size is too small.");
+        }
+        if (maxSize < segmentSize) {
+            throw new IllegalArgumentException("Spool max size must be at least the size of one segment.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create spool directory " + directory);
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        this.checkpointFile = new RandomAccessFile(new File(directory, CHECKPOINT_FILE), "rw");
+        this.checkpoint = checkpointFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, 8);
+        recover();
+    }
+
+    /**
+     * Appends a record to the spool
+     *
+     * @param record The record to append
+     * @return true if the record was appended, false if the disk budget does not allow it or the spool is closed
+     * @throws IOException If a new segment file cannot be created
+     */
+    public synchronized boolean append(byte[] record) throws IOException {
+        if (closed) {
+            return false;
+        }
+        int needed = HEADER_SIZE + record.length;
+        if (needed > segmentSize - HEADER_SIZE) {
+            return false;
+        }
+        if (writeSegment == null || writeSegment.remaining() < needed) {
+            if ((long) (segments.size() + 1) * segmentSize > maxSize) {
+                return false;
+            }
+            long id = writeSegment == null ? segmentOf(committedPosition) : writeSegment.id + 1;
+            if (writeSegment != null) {
+                writeSegment.seal();
+            }
+            writeSegment = openSegment(id, segmentSize);
+            if (readSegment == null) {
+                readSegment = writeSegment;
+                readOffset = 0;
+            }
+        }
+        writeSegment.write(record);
+        appendedCount++;
+        return true;
+    }
+
+    /**
+     * Reads the next record from the spool and advances the read position
+     *
+     * @return The next record, or null if all appended records have been read
+     */
+    public synchronized byte[] read() {
+        while (readSegment != null) {
+            int length = readOffset + HEADER_SIZE > readSegment.capacity() ? END_OF_SEGMENT :
+                    readSegment.buffer.getInt(readOffset);
+            if (length == 0) {
+                return null;
+            }
+            if (length == END_OF_SEGMENT) {
+                Map.Entry<Long, Segment> next = segments.higherEntry(readSegment.id);
+                if (next == null) {
+                    return null;
+                }
+                readSegment = next.getValue();
+                readOffset = 0;
+                continue;
+            }
+            byte[] record = readSegment.read(readOffset + HEADER_SIZE, length);
+            readOffset += HEADER_SIZE + length;
+            readCount++;
+            return record;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the current read position, which can later be committed
+     *
+     * @return The current read position
+     */
+    public synchronized long getReadPosition() {
+        return readSegment == null ? committedPosition : position(readSegment.id, readOffset);
+    }
+
+    /**
+     * Persists the given read position, so records before it are not read again after a restart, and deletes
+     * segments that are no longer needed. Positions lower than the currently committed position are ignored.
+     *
+     * @param position A position returned by {@link #getReadPosition()}
+     */
+    public synchronized void commit(long position) {
+        if (closed || position <= committedPosition) {
+            return;
+        }
+        committedPosition = position;
+        checkpoint.putLong(0, position);
+        if (segments.isEmpty() || segments.firstKey() >= segmentOf(position)) {
+            return;
+        }
+        // The checkpoint must be on disk before the segments it skips are deleted, or a crash could leave it pointing
+        // into deleted segments
+        checkpoint.force();
+        while (!segments.isEmpty() && segments.firstKey() < segmentOf(position)) {
+            Segment segment = segments.pollFirstEntry().getValue();
+            segment.close();
+            segment.file.delete();
+        }
+    }
+
+    /**
+     * Returns the number of records that have been appended but not read
+     *
+     * @return The number of records that have been appended but not read
+     */
+    public synchronized int size() {
+        return (int) Math.min(Integer.MAX_VALUE, appendedCount - readCount);
+    }
+
+    /**
+     * Returns the total number of records that have been appended, including records recovered when the spool was
+     * opened
+     *
+     * @return The total number of records that have been appended
+     */
+    public synchronized long getAppendedCount() {
+        return appendedCount;
+    }
+
+    /**
+     * Returns the total number of records that have been read
+     *
+     * @return The total number of records that have been read
+     */
+    public synchronized long getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * Returns the number of bytes used by segment files
+     *
+     * @return The number of bytes used by segment files
+     */
+    public synchronized long getDiskUsage() {
+        long usage = 0;
+        for (Segment segment : segments.values()) {
+            usage += segment.capacity();
+        }
+        return usage;
+    }
+
+    /**
+     * Flushes all segments to disk and closes the spool
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.close();
+        }
+        segments.clear();
+        writeSegment = null;
+        readSegment = null;
+        checkpoint.force();
+        try {
+            checkpointFile.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private void recover() throws IOException {
+        committedPosition = checkpoint.getLong(0);
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length()));
+                    if (id < segmentOf(committedPosition)) {
+                        file.delete();
+                    } else {
+                        openSegment(id, (int) file.length());
+                    }
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            return;
+        }
+        writeSegment = segments.lastEntry().getValue();
+        readSegment = segments.firstEntry().getValue();
+        readOffset = readSegment.id == segmentOf(committedPosition) ? offsetOf(committedPosition) : 0;
+        long recovered = 0;
+        int offset = readOffset;
+        for (Segment segment : segments.tailMap(readSegment.id).values()) {
+            while (offset < segment.writeOffset) {
+                offset += HEADER_SIZE + segment.buffer.getInt(offset);
+                recovered++;
+            }
+            offset = 0;
+        }
+        appendedCount = recovered;
+    }
+
+    private Segment openSegment(long id, int size) throws IOException {
+        File file = new File(directory, SEGMENT_PREFIX + String.format("%020d", id) + SEGMENT_SUFFIX);
+        Segment segment = new Segment(id, file, size);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private static long position(long segmentId, int offset) {
+        return (segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static long segmentOf(long position) {
+        return position >>> 32;
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /**
+     * A memory-mapped segment file
+     */
+    private static class Segment {
+
+        private final long id;
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private int writeOffset;
+
+        private Segment(long id, File file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            while (writeOffset + HEADER_SIZE <= size) {
+                int length = buffer.getInt(writeOffset);
+                if (length <= 0) {
+                    break;
+                }
+                writeOffset += HEADER_SIZE + length;
+            }
+        }
+
+        private int capacity() {
+            return buffer.capacity();
+        }
+
+        private int remaining() {
+            return capacity() - writeOffset;
+        }
+
+        /**
+         * Writes the record before its length, so a partially written record is never visible
+         */
+        private void write(byte[] record) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(writeOffset + HEADER_SIZE);
+            view.put(record);
+            buffer.putInt(writeOffset, record.length);
+            writeOffset += HEADER_SIZE + record.length;
+        }
+
+        private byte[] read(int offset, int length) {
+            byte[] record = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(record);
+            return record;
+        }
+
+        private void seal() {
+            if (remaining() >= HEADER_SIZE) {
+                buffer.putInt(writeOffset, END_OF_SEGMENT);
+            }
+        }
+
+        private void close() {
+            try {
+                randomAccessFile.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+}
@@ -1,32 +1,31 @@
 package no.spt.sdk.stats;
 
-import com.google.common.util.concurrent.AtomicLongMap;
-
 /**
- * DataTrackingStats keeps counters of events that occur in the client
+ * DataTrackingStats keeps counters of events that occur in the client. Each counter is striped, so threads that
+ * track activities at the same time do not contend on one value.
  */
 public class DataTrackingStats implements DataTrackingClientStats {
 
-    private static final String QUEUED_KEY = "queued";
-    private static final String BATCHES_SENT_KEY = "batches_sent";
-    private static final String SUCCESSFUL_KEY = "successful";
-    private static final String VALIDATION_FAILED_KEY = "validation_failed";
-    private static final String SENDING_FAILED_KEY = "sending_failed";
-    private static final String DROPPED_KEY = "dropped";
-    private static final String ERROR_REPORTS_SENT_KEY = "error_reports_sent";
-
-    private final AtomicLongMap<String> counters = AtomicLongMap.create();
+    private final StripedCounter queued = new StripedCounter();
+    private final StripedCounter batchesSent = new StripedCounter();
+    private final StripedCounter successful = new StripedCounter();
+    private final StripedCounter validationFailed = new StripedCounter();
+    private final StripedCounter sendingFailed = new StripedCounter();
+    private final StripedCounter dropped = new StripedCounter();
+    private final StripedCounter errorReportsSent = new StripedCounter();
+    private final StripedCounter uncompressedBytes = new StripedCounter();
+    private final StripedCounter compressedBytes = new StripedCounter();
 
     /**
      * {@inheritDoc}
      */
     @Override
     public long getQueuedActivitiesCount() {
-        return counters.get(QUEUED_KEY);
+        return queued.sum();
     }
 
     public void incrementQueuedActivities() {
-        counters.incrementAndGet(QUEUED_KEY);
+        queued.increment();
     }
 
     /**
@@ -34,11 +33,11 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getSentBatchesCount() {
-        return counters.get(BATCHES_SENT_KEY);
+        return batchesSent.sum();
     }
 
     public void incrementSentBatches() {
-        counters.incrementAndGet(BATCHES_SENT_KEY);
+        batchesSent.increment();
     }
 
     /**
@@ -46,15 +45,15 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getSuccessfulCount() {
-        return counters.get(SUCCESSFUL_KEY);
+        return successful.sum();
     }
 
     public void incrementSuccessful() {
-        counters.incrementAndGet(SUCCESSFUL_KEY);
+        successful.increment();
     }
 
     public void addToSuccessful(long count) {
-        counters.addAndGet(SUCCESSFUL_KEY, count);
+        successful.add(count);
     }
 
     /**
@@ -62,15 +61,15 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getValidationFailedCount() {
-        return counters.get(VALIDATION_FAILED_KEY);
+        return validationFailed.sum();
     }
 
     public void incrementValidationFailed() {
-        counters.incrementAndGet(VALIDATION_FAILED_KEY);
+        validationFailed.increment();
     }
 
     public void addToValidationFailed(long count) {
-        counters.addAndGet(VALIDATION_FAILED_KEY, count);
+        validationFailed.add(count);
     }
 
     /**
@@ -78,15 +77,15 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getSendingFailedCount() {
-        return counters.get(SENDING_FAILED_KEY);
+        return sendingFailed.sum();
     }
 
     public void incrementSendingFailed() {
-        counters.incrementAndGet(SENDING_FAILED_KEY);
+        sendingFailed.increment();
     }
 
     public void addToSendingFailed(long count) {
-        counters.addAndGet(SENDING_FAILED_KEY, count);
+        sendingFailed.add(count);
     }
 
     /**
@@ -94,15 +93,15 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getDroppedCount() {
-        return counters.get(DROPPED_KEY);
+        return dropped.sum();
     }
 
     public void incrementDropped() {
-        counters.incrementAndGet(DROPPED_KEY);
+        dropped.increment();
     }
 
     public void addToDropped(long count) {
-        counters.addAndGet(DROPPED_KEY, count);
+        dropped.add(count);
     }
 
     /**
@@ -110,27 +109,69 @@ public class DataTrackingStats implements DataTrackingClientStats {
      */
     @Override
     public long getErrorReportsCount() {
-        return counters.get(ERROR_REPORTS_SENT_KEY);
+        return errorReportsSent.sum();
     }
 
     public void incrementErrorReports() {
-        counters.incrementAndGet(ERROR_REPORTS_SENT_KEY);
+        errorReportsSent.increment();
     }
 
     public void addToErrorReports(long count) {
-        counters.addAndGet(ERROR_REPORTS_SENT_KEY, count);
+        errorReportsSent.add(count);
+    }
+
+    /**
+     * Returns the number of bytes of activity batches that have been sent to the data collector, before compression
+     *
+     * @return The number of bytes of activity batches before compression
+     */
+    public long getUncompressedBytesCount() {
+        return uncompressedBytes.sum();
+    }
+
+    public void addToUncompressedBytes(long count) {
+        uncompressedBytes.add(count);
+    }
+
+    /**
+     * Returns the number of bytes of activity batches that have been sent to the data collector, after compression.
+     * Batches that were not compressed are counted with their uncompressed size.
+     *
+     * @return The number of bytes of activity batches after compression
+     */
+    public long getCompressedBytesCount() {
+        return compressedBytes.sum();
+    }
+
+    public void addToCompressedBytes(long count) {
+        compressedBytes.add(count);
+    }
+
+    /**
+     * Returns an immutable snapshot of the counters, which can be compared with an earlier snapshot to get the number
+     * of events per second. The outcomes of sent activities are read before the number of queued activities, so a
+     * snapshot does not show more activities sent than queued.
+     *
+     * @return A snapshot of the counters
+     */
+    public DataTrackingStatsSnapshot snapshot() {
+        long time = System.currentTimeMillis();
+        long nanoTime = System.nanoTime();
+        long compressedBytes = this.compressedBytes.sum();
+        long uncompressedBytes = this.uncompressedBytes.sum();
+        long errorReports = errorReportsSent.sum();
+        long successful = this.successful.sum();
+        long validationFailed = this.validationFailed.sum();
+        long sendingFailed = this.sendingFailed.sum();
+        long sentBatches = batchesSent.sum();
+        long dropped = this.dropped.sum();
+        long queuedActivities = queued.sum();
+        return new DataTrackingStatsSnapshot(time, nanoTime, queuedActivities, sentBatches, successful,
+                validationFailed, sendingFailed, dropped, errorReports, uncompressedBytes, compressedBytes);
     }
 
     @Override
     public String toString() {
-        return "------------------------ Data Tracking Stats ------------------------" + "\n" +
-            getQueuedActivitiesCount() + " activities have been added to the tracking queue \n" +
-            getSentBatchesCount() + " batches have been sent to the data collector \n" +
-            getSuccessfulCount() + " activities have been successfully sent to the data collector \n" +
-            getValidationFailedCount() + " activities have been rejected by the data collector due to validation errors \n" +
-            getSendingFailedCount() + " activities could not be sent to the data collector due to error(s) \n" +
-            getDroppedCount() + " activities have been dropped because the activity queue was full \n" +
-            getErrorReportsCount() + " error reports have been sent to the error reporting service \n" +
-            "---------------------------------------------------------------------";
+        return snapshot().toString();
     }
 }
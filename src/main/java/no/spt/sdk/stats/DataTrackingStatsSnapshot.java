@@ -0,0 +1,215 @@
+package no.spt.sdk.stats;
+
+/**
+ * An immutable snapshot of the stats of the client. Every counter of a snapshot is read once when the snapshot is
+ * taken, so monitoring can read all of them without the counters changing in between. The difference between two
+ * snapshots, and the rate of events per second between them, are returned by {@link #delta} and the rate methods.
+ */
+public class DataTrackingStatsSnapshot implements DataTrackingClientStats {
+
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private final long time;
+    private final long nanoTime;
+    private final long queuedActivities;
+    private final long sentBatches;
+    private final long successful;
+    private final long validationFailed;
+    private final long sendingFailed;
+    private final long dropped;
+    private final long errorReports;
+    private final long uncompressedBytes;
+    private final long compressedBytes;
+
+    DataTrackingStatsSnapshot(long time, long nanoTime, long queuedActivities, long sentBatches, long successful,
+                              long validationFailed, long sendingFailed, long dropped, long errorReports,
+                              long uncompressedBytes, long compressedBytes) {
+        this.time = time;
+        this.nanoTime = nanoTime;
+        this.queuedActivities = queuedActivities;
+        this.sentBatches = sentBatches;
+        this.successful = successful;
+        this.validationFailed = validationFailed;
+        this.sendingFailed = sendingFailed;
+        this.dropped = dropped;
+        this.errorReports = errorReports;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+    }
+
+    /**
+     * Returns the time the snapshot was taken
+     *
+     * @return The milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getQueuedActivitiesCount() {
+        return queuedActivities;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSentBatchesCount() {
+        return sentBatches;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSuccessfulCount() {
+        return successful;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getValidationFailedCount() {
+        return validationFailed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSendingFailedCount() {
+        return sendingFailed;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getErrorReportsCount() {
+        return errorReports;
+    }
+
+    /**
+     * Returns the number of bytes of activity batches that have been sent to the data collector, before compression
+     *
+     * @return The number of bytes of activity batches before compression
+     */
+    public long getUncompressedBytesCount() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of activity batches that have been sent to the data collector, after compression.
+     * Batches that were not compressed are counted with their uncompressed size.
+     *
+     * @return The number of bytes of activity batches after compression
+     */
+    public long getCompressedBytesCount() {
+        return compressedBytes;
+    }
+
+    /**
+     * Returns the counts of events that occurred between an earlier snapshot and this snapshot. The time of the
+     * returned snapshot is the time of this snapshot.
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return A snapshot of the counts since the earlier snapshot
+     */
+    public DataTrackingStatsSnapshot delta(DataTrackingStatsSnapshot earlier) {
+        return new DataTrackingStatsSnapshot(time, nanoTime,
+                queuedActivities - earlier.queuedActivities,
+                sentBatches - earlier.sentBatches,
+                successful - earlier.successful,
+                validationFailed - earlier.validationFailed,
+                sendingFailed - earlier.sendingFailed,
+                dropped - earlier.dropped,
+                errorReports - earlier.errorReports,
+                uncompressedBytes - earlier.uncompressedBytes,
+                compressedBytes - earlier.compressedBytes);
+    }
+
+    /**
+     * Returns the number of seconds between an earlier snapshot and this snapshot, measured with
+     * {@link System#nanoTime()}, so it is not affected by changes to the clock
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return The number of seconds between the snapshots
+     */
+    public double getElapsedSeconds(DataTrackingStatsSnapshot earlier) {
+        return (nanoTime - earlier.nanoTime) / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Returns the number of activities per second that were added to the tracking queue since an earlier snapshot
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return The number of activities per second, or 0 if no time has passed
+     */
+    public double getQueuedActivitiesRate(DataTrackingStatsSnapshot earlier) {
+        return rate(queuedActivities - earlier.queuedActivities, earlier);
+    }
+
+    /**
+     * Returns the number of batches per second that were sent to the data collector since an earlier snapshot
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return The number of batches per second, or 0 if no time has passed
+     */
+    public double getSentBatchesRate(DataTrackingStatsSnapshot earlier) {
+        return rate(sentBatches - earlier.sentBatches, earlier);
+    }
+
+    /**
+     * Returns the number of activities per second that were successfully sent to the data collector since an earlier
+     * snapshot
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return The number of activities per second, or 0 if no time has passed
+     */
+    public double getSuccessfulRate(DataTrackingStatsSnapshot earlier) {
+        return rate(successful - earlier.successful, earlier);
+    }
+
+    /**
+     * Returns the number of activities per second that were dropped since an earlier snapshot
+     *
+     * @param earlier A snapshot that was taken before this snapshot
+     * @return The number of activities per second, or 0 if no time has passed
+     */
+    public double getDroppedRate(DataTrackingStatsSnapshot earlier) {
+        return rate(dropped - earlier.dropped, earlier);
+    }
+
+    private double rate(long count, DataTrackingStatsSnapshot earlier) {
+        double seconds = getElapsedSeconds(earlier);
+        return seconds > 0 ? count / seconds : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "------------------------ Data Tracking Stats ------------------------" + "\n" +
+            queuedActivities + " activities have been added to the tracking queue \n" +
+            sentBatches + " batches have been sent to the data collector \n" +
+            successful + " activities have been successfully sent to the data collector \n" +
+            validationFailed + " activities have been rejected by the data collector due to validation errors \n" +
+            sendingFailed + " activities could not be sent to the data collector due to error(s) \n" +
+            dropped + " activities have been dropped because the activity queue was full \n" +
+            errorReports + " error reports have been sent to the error reporting service \n" +
+            uncompressedBytes + " bytes of activities have been sent as " + compressedBytes +
+            " bytes after compression \n" +
+            "---------------------------------------------------------------------";
+    }
+}
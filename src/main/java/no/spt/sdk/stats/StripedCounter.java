@@ -0,0 +1,58 @@
+package no.spt.sdk.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is spread over a number of cells, so that threads that count at the same time do not all update the
+ * same value. Each thread adds to the cell picked by its ID, and the count is the sum of all the cells. The cells are
+ * padded apart so that they are not on the same cache line.
+ */
+final class StripedCounter {
+
+    private static final int PADDING = 16;
+    private static final int MAX_CELLS = 64;
+    private static final int CELLS = cells(Runtime.getRuntime().availableProcessors());
+
+    private final AtomicLongArray cells = new AtomicLongArray(CELLS * PADDING);
+
+    void increment() {
+        add(1L);
+    }
+
+    void add(long count) {
+        cells.getAndAdd(index(Thread.currentThread().getId()), count);
+    }
+
+    /**
+     * Returns the sum of the cells. Counts that are added while the cells are summed may or may not be included.
+     *
+     * @return The count
+     */
+    long sum() {
+        long sum = 0L;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the index of the cell of a thread. Thread IDs are mostly consecutive, so they are mixed before the cell
+     * is picked.
+     */
+    static int index(long threadId) {
+        int hash = (int) (threadId ^ (threadId >>> 32)) * 0x9E3779B9;
+        return ((hash >>> 16) & (CELLS - 1)) * PADDING;
+    }
+
+    /**
+     * Returns the number of cells for a number of processors, as a power of two
+     */
+    static int cells(int processors) {
+        int cells = 1;
+        while (cells < processors && cells < MAX_CELLS) {
+            cells <<= 1;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,187 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.exceptions.DataTrackingException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The Http2ClientConnection wraps a {@link java.net.http.HttpClient} and is responsible for HTTP connections. It
+ * prefers HTTP/2, so concurrent requests to the same host are multiplexed over a single connection instead of opening
+ * a connection for each of them. Hosts that do not speak HTTP/2 are sent HTTP/1.1 requests.
+ * It is only available on Java 11 and later, and is created through {@link Http2ConnectionFactory}.
+ */
+class Http2ClientConnection implements AsyncHttpConnection {
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final int maxResponseBodySize;
+
+    /**
+     * Constructs an Http2ClientConnection using the provided options
+     *
+     * @param options The options used to configure the connector
+     */
+    Http2ClientConnection(Options options) {
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "data-collector-http2");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeout = Duration.ofMillis(options.getTimeout());
+        this.maxResponseBodySize = options.getMaxResponseBodySize();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest} and waits for the response
+     *
+     * @return a {@link no.spt.sdk.client.DataTrackingResponse}
+     * @throws IOException If sending fails
+     */
+    @Override
+    public DataTrackingResponse send(DataTrackingPostRequest request) throws IOException {
+        try {
+            return sendAsync(request, null).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        } catch (CancellationException e) {
+            throw new InterruptedIOException("Request was cancelled");
+        } catch (ExecutionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * Sends a {@link no.spt.sdk.client.DataTrackingPostRequest} without waiting for the response
+     *
+     * @param request  The request to send
+     * @param callback A callback that is told when the response is received or sending fails, or null
+     * @return A future that completes with the {@link no.spt.sdk.client.DataTrackingResponse}
+     */
+    @Override
+    public Future<DataTrackingResponse> sendAsync(DataTrackingPostRequest request, ResponseCallback callback) {
+        CompletableFuture<DataTrackingResponse> future;
+        try {
+            boolean discardSuccessBody = request.isDiscardSuccessBody();
+            HttpResponse.BodyHandler<InputStream> bodyHandler = info -> HttpClientConnection
+                    .DataTrackingResponseHandler.isBodyDiscarded(info.statusCode(), discardSuccessBody) ?
+                    HttpResponse.BodySubscribers.replacing(null) : HttpResponse.BodySubscribers.ofInputStream();
+            future = httpClient.sendAsync(createRequest(request), bodyHandler)
+                    .handleAsync((response, failure) -> {
+                        if (failure != null) {
+                            throw new CompletionException(toIOException(failure));
+                        }
+                        try {
+                            return toDataTrackingResponse(response, maxResponseBodySize);
+                        } catch (IOException e) {
+                            throw new CompletionException(e);
+                        }
+                    }, executor);
+        } catch (IOException | RuntimeException e) {
+            future = CompletableFuture.failedFuture(toIOException(e));
+        }
+        if (callback != null) {
+            future.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    callback.completed(response);
+                } else {
+                    callback.failed(toIOException(failure));
+                }
+            });
+        }
+        return future;
+    }
+
+    private HttpRequest createRequest(DataTrackingPostRequest request) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()))
+                .timeout(timeout)
+                .header("Content-Type", "application/json; charset=utf-8");
+        if (request.getHeaders() != null) {
+            for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(getBodyBytes(request))).build();
+    }
+
+    /**
+     * Renders the body of a request. The body is written to memory first, since the JDK client only streams bodies
+     * from an input stream.
+     */
+    private static byte[] getBodyBytes(DataTrackingPostRequest request) throws IOException {
+        if (request.getBody() == null) {
+            return request.getRawBody().getBytes(StandardCharsets.UTF_8);
+        }
+        long length = request.getBody().getContentLength();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length > 0 && length < Integer.MAX_VALUE ? (int)
+                length : 8192);
+        request.getBody().writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Turns a response into a {@link no.spt.sdk.client.DataTrackingResponse}, keeping up to the maximum body size of
+     * the body. Header names are case-insensitive, and headers that occur more than once are joined with a comma.
+     */
+    static DataTrackingResponse toDataTrackingResponse(HttpResponse<InputStream> response, int maxBodySize)
+            throws IOException {
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            if (!header.getKey().startsWith(":")) {
+                headers.put(header.getKey(), String.join(", ", header.getValue()));
+            }
+        }
+        if (response.body() == null) {
+            return new DataTrackingResponse(response.statusCode(), headers, null);
+        }
+        try (InputStream content = response.body()) {
+            return HttpClientConnection.DataTrackingResponseHandler.readResponse(response.statusCode(), headers,
+                    content, HttpClientConnection.DataTrackingResponseHandler.getCharset(response.headers()
+                            .firstValue("Content-Type").orElse(null)), maxBodySize);
+        }
+    }
+
+    private static IOException toIOException(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause()
+                : failure;
+        return cause instanceof IOException ? (IOException) cause : new IOException(cause);
+    }
+
+    /**
+     * Stops the threads of the HTTP client. Requests that are in flight are abandoned.
+     *
+     * @throws DataTrackingException never
+     */
+    @Override
+    public void close() throws DataTrackingException {
+        executor.shutdownNow();
+    }
+}
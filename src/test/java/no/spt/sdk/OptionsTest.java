@@ -2,6 +2,8 @@ package no.spt.sdk;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+
 public class OptionsTest {
 
     @Test(expected = IllegalArgumentException.class)
@@ -74,4 +76,158 @@ public class OptionsTest {
                 .setRetries(-1)
                 .build();
     }
-}
\ No newline at end of file
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxInFlightBatchesToZero() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxInFlightBatches(0)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLingerTimeToNegativeValue() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setLingerTime(-1)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxRequestSizeTooSmall() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxRequestSize(100)
+                .build();
+    }
+
+    @Test
+    public void testSetMaxActivityBatchSizeAboveTwenty() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxActivityBatchSize(500)
+                .build();
+        assertEquals(500, options.getMaxActivityBatchSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLowWatermarkAboveHighWatermark() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setQueueWatermarks(100, 200, null)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetHighWatermarkAboveMaxQueueSize() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxQueueSize(10)
+                .setQueueWatermarks(100, 5, null)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetOverflowPolicyToNull() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setOverflowPolicy(null)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetFlushTimeoutToZero() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setFlushTimeout(0)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxRetryBackoffBelowRetryBackoff() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setRetryBackoff(1000, 100)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetCircuitBreakerThresholdToZero() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setCircuitBreaker(0, 30000)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddNullBatchStage() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .addBatchStage(null)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetCompressionToNull() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setCompression(null)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNegativeCompressionThreshold() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setCompressionThreshold(-1)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetCompressionLevelAboveNine() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setCompressionLevel(10)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxConnectionsBelowMaxConnectionsPerRoute() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxConnections(5, 10)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetKeepAliveToZero() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setKeepAlive(0)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetNegativeIdleConnectionTimeout() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setIdleConnectionTimeout(-1)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetSocketBufferSizeTooSmall() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setSocketBufferSize(100)
+                .build();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxResponseBodySizeTooSmall() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl(Defaults.DATA_COLLECTOR_URL)
+                .setCISUrl(Defaults.CIS_URL)
+                .setMaxResponseBodySize(100)
+                .build();
+    }
+}
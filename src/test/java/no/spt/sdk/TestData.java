@@ -223,6 +223,57 @@ public class TestData {
             "                    }";
     }
 
+    public static String getDataCollectorPartialFailureAsJsonString() {
+        return "{\n" +
+            "                        \"code\": 207,\n" +
+            "                        \"status\": \"PARTIAL SUCCESS\",\n" +
+            "                        \"type\": \"\",\n" +
+            "                        \"errors\": [\n" +
+            "                            {\n" +
+            "                                \"status\": \"ERROR\",\n" +
+            "                                \"index\": 0,\n" +
+            "                                \"errors\": [\n" +
+            "                                    {\n" +
+            "                                        \"field\": \"data.actor\",\n" +
+            "                                        \"message\": \"is required\"\n" +
+            "                                    }\n" +
+            "                                ],\n" +
+            "                                \"type\": \"invalid_activitystream_format\"\n" +
+            "                            },\n" +
+            "                            {\n" +
+            "                                \"status\": \"ERROR\",\n" +
+            "                                \"code\": 503,\n" +
+            "                                \"index\": 1,\n" +
+            "                                \"errors\": [],\n" +
+            "                                \"type\": \"storage_unavailable\"\n" +
+            "                            }\n" +
+            "                        ],\n" +
+            "                        \"success\": [\n" +
+            "                            {\n" +
+            "                                \"status\": \"SUCCESS\"\n" +
+            "                            }\n" +
+            "                        ]\n" +
+            "                    }";
+    }
+
+    public static String getDataCollectorTransientFailureAsJsonString() {
+        return "{\n" +
+            "                        \"code\": 207,\n" +
+            "                        \"status\": \"PARTIAL SUCCESS\",\n" +
+            "                        \"type\": \"\",\n" +
+            "                        \"errors\": [\n" +
+            "                            {\n" +
+            "                                \"status\": \"ERROR\",\n" +
+            "                                \"code\": 503,\n" +
+            "                                \"index\": 0,\n" +
+            "                                \"errors\": [],\n" +
+            "                                \"type\": \"storage_unavailable\"\n" +
+            "                            }\n" +
+            "                        ],\n" +
+            "                        \"success\": []\n" +
+            "                    }";
+    }
+
     public static String getDataCollectorBadRequestAsJsonString() {
         return "{\n" +
             "                        \"code\": 400,\n" +
@@ -0,0 +1,108 @@
+package no.spt.sdk;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimestampFormatTest {
+
+    @Test
+    public void testFormatIsTheSameAsSimpleDateFormat() throws Exception {
+        for (String zone : new String[]{"UTC", "Europe/Oslo", "America/St_Johns", "Asia/Kolkata"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            TimestampFormat format = new TimestampFormat(timeZone);
+            SimpleDateFormat expected = createSimpleDateFormat(timeZone);
+            Random random = new Random(42);
+            for (int i = 0; i < 10000; i++) {
+                long millis = (long) (random.nextDouble() * 4000000000000L) - 1000000000000L;
+                assertEquals(expected.format(new Date(millis)), format.format(millis));
+                assertEquals(expected.format(new Date(millis + 1)), format.format(millis + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testFormatAcrossSecondsAndDaylightSavingTime() throws Exception {
+        TimeZone timeZone = TimeZone.getTimeZone("Europe/Oslo");
+        TimestampFormat format = new TimestampFormat(timeZone);
+        SimpleDateFormat expected = createSimpleDateFormat(timeZone);
+        long changeToSummerTime = 1427590800000L;
+        for (long millis = changeToSummerTime - 2500; millis < changeToSummerTime + 2500; millis += 7) {
+            assertEquals(expected.format(new Date(millis)), format.format(millis));
+        }
+    }
+
+    @Test
+    public void testFormatBeforeEpoch() throws Exception {
+        TimestampFormat format = new TimestampFormat(TimeZone.getTimeZone("UTC"));
+        assertEquals("1969-12-31T23:59:59.999Z", format.format(-1L));
+        assertEquals("1970-01-01T00:00:00.000Z", format.format(0L));
+    }
+
+    @Test
+    public void testNow() throws Exception {
+        SimpleDateFormat expected = createSimpleDateFormat(TimeZone.getDefault());
+        long before = System.currentTimeMillis();
+        long now = expected.parse(TimestampFormat.now()).getTime();
+        long after = System.currentTimeMillis();
+        assertTrue(now >= before && now <= after);
+    }
+
+    @Test
+    public void testFormatFromManyThreads() throws Exception {
+        final TimeZone timeZone = TimeZone.getTimeZone("Europe/Oslo");
+        final TimestampFormat format = new TimestampFormat(timeZone);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int thread = 0; thread < 4; thread++) {
+                final long start = 1420070400000L + thread * 1500L;
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        SimpleDateFormat expected = createSimpleDateFormat(timeZone);
+                        int mismatches = 0;
+                        for (long millis = start; millis < start + 100000; millis += 3) {
+                            if (!expected.format(new Date(millis)).equals(format.format(millis))) {
+                                mismatches++;
+                            }
+                        }
+                        return mismatches;
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(0), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static SimpleDateFormat createSimpleDateFormat(TimeZone timeZone) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSXXX", Locale.US);
+        format.setTimeZone(timeZone);
+        return format;
+    }
+
+    @Test
+    public void testFormatIntoBuffer() throws Exception {
+        char[] chars = new char[TimestampFormat.MAX_LENGTH];
+        long millis = 1427590800123L;
+        int length = TimestampFormat.format(millis, chars);
+        assertEquals(TimestampFormat.format(new Date(millis)), new String(chars, 0, length));
+    }
+}
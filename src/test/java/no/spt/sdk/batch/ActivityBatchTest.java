@@ -0,0 +1,60 @@
+package no.spt.sdk.batch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ActivityBatchTest {
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        ActivityBatch batch = new ActivityBatch(20, 1024);
+        assertTrue(batch.isEmpty());
+        assertFalse(batch.isFull());
+        assertEquals("[]", batch.toJson());
+        assertEquals(2, batch.getByteSize());
+    }
+
+    @Test
+    public void testToJson() throws Exception {
+        ActivityBatch batch = new ActivityBatch(20, 1024);
+        assertTrue(batch.add("{\"a\":1}"));
+        assertTrue(batch.add("{\"b\":2}"));
+        assertEquals("[{\"a\":1},{\"b\":2}]", batch.toJson());
+        assertEquals(batch.toJson().length(), batch.getByteSize());
+    }
+
+    @Test
+    public void testFullByCount() throws Exception {
+        ActivityBatch batch = new ActivityBatch(2, 1024);
+        assertTrue(batch.add("{}"));
+        assertTrue(batch.add("{}"));
+        assertTrue(batch.isFull());
+        assertFalse(batch.add("{}"));
+        assertEquals(2, batch.size());
+    }
+
+    @Test
+    public void testFullBySize() throws Exception {
+        ActivityBatch batch = new ActivityBatch(20, 20);
+        assertTrue(batch.add("{\"a\":\"1234\"}"));
+        assertFalse(batch.add("{\"b\":\"1234\"}"));
+        assertTrue(batch.isFull());
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    public void testOversizedActivityIsAcceptedAlone() throws Exception {
+        ActivityBatch batch = new ActivityBatch(20, 10);
+        assertTrue(batch.add("{\"a\":\"a long value\"}"));
+        assertTrue(batch.isFull());
+        assertFalse(batch.add("{}"));
+    }
+
+    @Test
+    public void testMultiByteCharactersAreCountedAsUtf8() throws Exception {
+        ActivityBatch batch = new ActivityBatch(20, 1024);
+        batch.add("\"æ€😀\"");
+        assertEquals(2 + 2 + 2 + 3 + 4, batch.getByteSize());
+    }
+}
@@ -11,17 +11,30 @@ import no.spt.sdk.exceptions.error.ActivitySendingError;
 import no.spt.sdk.models.Activity;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.serializers.GsonASJsonConverter;
+import no.spt.sdk.spool.ActivitySpool;
 import no.spt.sdk.stats.DataTrackingStats;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -37,6 +50,8 @@ public class AutomaticBatchSenderTest {
     private AutomaticBatchSender batchSender;
     private Options options;
     private DataTrackingStats stats = new DataTrackingStats();
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Before
     public void setUp() throws Exception {
@@ -145,6 +160,57 @@ public class AutomaticBatchSenderTest {
         assertEquals(2, stats.getValidationFailedCount());
     }
 
+    @Test
+    public void testSerializeOnEnqueue() throws Exception {
+        ASJsonConverter countingConverter = spy(new GsonASJsonConverter());
+        batchSender.close();
+        batchSender = new AutomaticBatchSender(new Options.Builder("abc123").setDataCollectorUrl
+                ("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setSerializeOnEnqueue(true)
+                .build(), dataCollectorConnector, errorCollector, countingConverter, stats);
+        batchSender.init();
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        verify(countingConverter, times(1)).serialize(any(Activity.class));
+        batchSender.flush();
+        verify(countingConverter, times(1)).serialize(any(Activity.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testFlushAfterUnserializableActivity() throws Exception {
+        ASJsonConverter failingConverter = mock(ASJsonConverter.class);
+        batchSender.close();
+        batchSender = new AutomaticBatchSender(new Options.Builder("abc123").setDataCollectorUrl
+                ("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setFlushTimeout(1000)
+                .build(), dataCollectorConnector, errorCollector, failingConverter, stats);
+        batchSender.init();
+        doThrow(new IOException()).when(failingConverter).serialize(any(Activity.class));
+        batchSender.enqueue(TestData.getTestActivity());
+        long start = System.currentTimeMillis();
+        batchSender.flush();
+        assertTrue(System.currentTimeMillis() - start < 500);
+        verify(dataCollectorConnector, never()).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSendingFailedCount());
+    }
+
+    @Test
+    public void testTransientFailuresInMultiStatusAreRetried() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (207, null, TestData.getDataCollectorTransientFailureAsJsonString()), new DataTrackingResponse(200,
+                null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        verify(errorCollector, never()).collect(any(DataTrackingException.class));
+        assertEquals(0, stats.getValidationFailedCount());
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
     @Test
     public void testHttpConnectionReturnsUnexpectedResponse() throws Exception {
         Activity activity = TestData.getTestActivity();
@@ -166,12 +232,359 @@ public class AutomaticBatchSenderTest {
         Activity activity = TestData.getTestActivity();
         when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException());
         batchSender.enqueue(activity);
-        sleep(100);
+        sleep(1000);
         verify(errorCollector, times(1)).collect(any(DataTrackingException.class));
         assertEquals(0, stats.getSentBatchesCount());
         assertEquals(1, stats.getSendingFailedCount());
     }
 
+    @Test
+    public void testConcurrentInFlightBatches() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(1000)
+            .setMaxInFlightBatches(4)
+            .build());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new
+            Answer<DataTrackingResponse>() {
+            @Override
+            public DataTrackingResponse answer(InvocationOnMock invocation) throws Throwable {
+                int current = inFlight.incrementAndGet();
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                sleep(50);
+                inFlight.decrementAndGet();
+                return new DataTrackingResponse(200, null, "OK");
+            }
+        });
+        int noActivities = options.getMaxActivityBatchSize() * 8;
+        for (int i = 0; i < noActivities; i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+        }
+        batchSender.flush();
+        assertEquals(noActivities, stats.getSuccessfulCount());
+        assertEquals(0, batchSender.getQueueDepth());
+        assertTrue(maxInFlight.get() > 1);
+        assertTrue(maxInFlight.get() <= options.getMaxInFlightBatches());
+    }
+
+    @Test
+    public void testLingerFillsBatch() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setLingerTime(300)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        for (int i = 0; i < 3; i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+            sleep(20);
+        }
+        sleep(500);
+        assertEquals(1, stats.getSentBatchesCount());
+        assertEquals(3, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testLingerSendsFullBatchImmediately() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setLingerTime(5000)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        for (int i = 0; i < options.getMaxActivityBatchSize(); i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+        }
+        sleep(200);
+        assertEquals(1, stats.getSentBatchesCount());
+    }
+
+    @Test
+    public void testFlushDoesNotWaitForLinger() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setLingerTime(60000)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        long start = System.currentTimeMillis();
+        batchSender.flush();
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testBatchesAreCutByRequestSize() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxActivityBatchSize(1000)
+            .setMaxRequestSize(2048)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        Activity activity = TestData.getTestActivity();
+        int activitySize = jsonConverter.serialize(activity).length();
+        int noActivities = 10;
+        for (int i = 0; i < noActivities; i++) {
+            batchSender.enqueue(activity);
+        }
+        batchSender.flush();
+        int perBatch = (2048 - 2) / (activitySize + 1);
+        ArgumentCaptor<DataTrackingPostRequest> requests = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector, atLeast((int) Math.ceil((double) noActivities / perBatch))).send(requests
+            .capture());
+        for (DataTrackingPostRequest request : requests.getAllValues()) {
+            assertTrue(request.getRawBody().length() <= 2048);
+        }
+        assertEquals(noActivities, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testSpooledActivitiesAreSent() throws Exception {
+        File spoolDirectory = temporaryFolder.newFolder();
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setSpoolDirectory(spoolDirectory.getPath())
+            .setSpoolSegmentSize(64 * 1024)
+            .setMaxSpoolSize(256 * 1024)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        Activity activity = TestData.getTestActivity();
+        int noActivities = 50;
+        for (int i = 0; i < noActivities; i++) {
+            batchSender.enqueue(activity);
+        }
+        batchSender.flush();
+        assertEquals(noActivities, stats.getSuccessfulCount());
+        assertEquals(0, batchSender.getQueueDepth());
+    }
+
+    @Test
+    public void testSpooledActivitiesAreSentAfterRestart() throws Exception {
+        File spoolDirectory = temporaryFolder.newFolder();
+        ActivitySpool spool = new ActivitySpool(spoolDirectory, 256 * 1024, 64 * 1024);
+        byte[] record = jsonConverter.serialize(TestData.getTestActivity()).getBytes("UTF-8");
+        for (int i = 0; i < 5; i++) {
+            spool.append(record);
+        }
+        spool.close();
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setSpoolDirectory(spoolDirectory.getPath())
+            .setSpoolSegmentSize(64 * 1024)
+            .setMaxSpoolSize(256 * 1024)
+            .build());
+        batchSender.flush();
+        assertEquals(5, stats.getSuccessfulCount());
+        batchSender.close();
+
+        spool = new ActivitySpool(spoolDirectory, 256 * 1024, 64 * 1024);
+        assertEquals(0, spool.size());
+        spool.close();
+    }
+
+    @Test
+    public void testBlockWaitsForRoomInQueue() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(5)
+            .setOverflowPolicy(OverflowPolicy.BLOCK)
+            .setEnqueueTimeout(5000)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new
+            Answer<DataTrackingResponse>() {
+            @Override
+            public DataTrackingResponse answer(InvocationOnMock invocation) throws Throwable {
+                sleep(5);
+                return new DataTrackingResponse(200, null, "OK");
+            }
+        });
+        Activity activity = TestData.getTestActivity();
+        for (int i = 0; i < 50; i++) {
+            batchSender.enqueue(activity);
+        }
+        batchSender.flush();
+        assertEquals(0, stats.getDroppedCount());
+        assertEquals(50, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testFlushAsync() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new
+            Answer<DataTrackingResponse>() {
+            @Override
+            public DataTrackingResponse answer(InvocationOnMock invocation) throws Throwable {
+                sleep(100);
+                return new DataTrackingResponse(200, null, "OK");
+            }
+        });
+        batchSender.enqueue(TestData.getTestActivity());
+        Future<Void> first = batchSender.flushAsync();
+        Future<Void> second = batchSender.flushAsync();
+        assertTrue(first == second);
+        assertFalse(first.isDone());
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, stats.getSuccessfulCount());
+        assertTrue(batchSender.flushAsync().isDone());
+    }
+
+    @Test
+    public void testFlushTimeout() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setFlushTimeout(100)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new
+            Answer<DataTrackingResponse>() {
+            @Override
+            public DataTrackingResponse answer(InvocationOnMock invocation) throws Throwable {
+                sleep(500);
+                return new DataTrackingResponse(200, null, "OK");
+            }
+        });
+        batchSender.enqueue(TestData.getTestActivity());
+        try {
+            batchSender.flush();
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.FLUSH_TIMEOUT_ERROR, exception.getError());
+        }
+        sleep(600);
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testCloseCompletesFlushOfScheduledRetry() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setFlushTimeout(200)
+            .setRetryBackoff(10000, 10000)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException());
+        batchSender.enqueue(TestData.getTestActivity());
+        Future<Void> future = batchSender.flushAsync();
+        try {
+            batchSender.close();
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.FLUSH_TIMEOUT_ERROR, exception.getError());
+        }
+        assertTrue(future.isDone());
+        future.get();
+        verify(dataCollectorConnector, times(1)).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSendingFailedCount());
+    }
+
+    @Test
+    public void testRetryAfterBackoff() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException())
+            .thenReturn(new DataTrackingResponse(200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        verify(errorCollector, never()).collect(any(DataTrackingException.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testRetryServiceUnavailableAfterRetryAfter() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (503, Collections.singletonMap("Retry-After", "1"), "Unavailable"), new DataTrackingResponse(200,
+                null, "OK"));
+        long start = System.currentTimeMillis();
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        verify(errorCollector, never()).collect(any(DataTrackingException.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testCircuitBreakerStopsSending() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setRetries(0)
+            .setCircuitBreaker(1, 500)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException())
+            .thenReturn(new DataTrackingResponse(200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        sleep(100);
+        batchSender.enqueue(TestData.getTestActivity());
+        sleep(100);
+        verify(dataCollectorConnector, times(1)).send(any(DataTrackingPostRequest.class));
+        batchSender.flush();
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSendingFailedCount());
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testStageThatRefusesProbeReleasesCircuitBreaker() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setRetries(0)
+            .setCircuitBreaker(1, 200)
+            .addBatchStage(new BatchStage() {
+                @Override
+                public void process(BatchContext context) throws DataTrackingException {
+                    if (attempts.incrementAndGet() == 2) {
+                        throw new DataTrackingException("Refused", ActivitySendingError.GENERAL_ACTIVITY_SENDING_ERROR);
+                    }
+                }
+            })
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException())
+            .thenReturn(new DataTrackingResponse(200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        sleep(300);
+        batchSender.enqueue(TestData.getTestActivity());
+        sleep(100);
+        assertEquals(2, attempts.get());
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        assertEquals(3, attempts.get());
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testRetriesWaitWhileCircuitIsOpen() throws Exception {
+        restartSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setRetries(3)
+            .setRetryBackoff(10, 10)
+            .setCircuitBreaker(1, 500)
+            .build());
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException())
+            .thenReturn(new DataTrackingResponse(200, null, "OK"));
+        long start = System.currentTimeMillis();
+        batchSender.enqueue(TestData.getTestActivity());
+        sleep(200);
+        verify(dataCollectorConnector, times(1)).send(any(DataTrackingPostRequest.class));
+        batchSender.flush();
+        assertTrue(System.currentTimeMillis() - start >= 500);
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    private void restartSender(Options options) throws Exception {
+        batchSender.close();
+        this.options = options;
+        batchSender = new AutomaticBatchSender(options, dataCollectorConnector, errorCollector, jsonConverter, stats);
+        batchSender.init();
+    }
+
     private void sleep(int millis) {
         try {
             Thread.sleep(millis);
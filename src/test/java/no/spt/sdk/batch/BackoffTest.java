@@ -0,0 +1,32 @@
+package no.spt.sdk.batch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BackoffTest {
+
+    @Test
+    public void testDelayGrowsExponentially() throws Exception {
+        Backoff backoff = new Backoff(100, 10000);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(backoff.delayMillis(1) < 100);
+            assertTrue(backoff.delayMillis(3) < 400);
+        }
+    }
+
+    @Test
+    public void testDelayIsCapped() throws Exception {
+        Backoff backoff = new Backoff(100, 1000);
+        for (int i = 0; i < 100; i++) {
+            long delay = backoff.delayMillis(50);
+            assertTrue(delay >= 0 && delay < 1000);
+        }
+    }
+
+    @Test
+    public void testZeroBackoff() throws Exception {
+        assertEquals(0, new Backoff(0, 0).delayMillis(3));
+    }
+}
@@ -0,0 +1,36 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.TestData;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchContextTest {
+
+    private final List<String> activities = Arrays.asList("{\"a\":1}", "{\"b\":\"bl\u00e5\"}");
+
+    @Test
+    public void testKnownByteSizeIsUsedForUnchangedActivities() throws Exception {
+        BatchContext context = new BatchContext(TestData.getDefaultOptions(), activities, 1234);
+        assertEquals(1234, context.getActivitiesByteSize());
+    }
+
+    @Test
+    public void testByteSizeIsMeasuredWhenUnknown() throws Exception {
+        BatchContext context = new BatchContext(TestData.getDefaultOptions(), activities);
+        assertEquals(ActivityBatch.byteSize(activities), context.getActivitiesByteSize());
+        assertEquals(2 + 7 + 1 + 12, context.getActivitiesByteSize());
+    }
+
+    @Test
+    public void testByteSizeIsMeasuredAgainWhenActivitiesChange() throws Exception {
+        BatchContext context = new BatchContext(TestData.getDefaultOptions(), activities, 1234);
+        context.getActivities().set(1, "{}");
+        assertEquals(2 + 7 + 1 + 2, context.getActivitiesByteSize());
+        context.getActivities().remove(1);
+        assertEquals(2 + 7, context.getActivitiesByteSize());
+    }
+}
@@ -0,0 +1,62 @@
+package no.spt.sdk.batch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAfterConsecutiveFailures() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, 10000);
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+        assertTrue(circuitBreaker.getRemainingOpenMillis() > 0);
+    }
+
+    @Test
+    public void testAllowsSingleProbeAfterResetTimeout() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+        circuitBreaker.recordFailure();
+        assertFalse(circuitBreaker.allowRequest());
+        Thread.sleep(100);
+        assertTrue(circuitBreaker.allowRequest());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testFailedProbeReopens() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(5, 50);
+        for (int i = 0; i < 5; i++) {
+            circuitBreaker.recordFailure();
+        }
+        Thread.sleep(100);
+        assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.allowRequest());
+    }
+
+    @Test
+    public void testReleasedProbeAllowsAnotherProbe() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 50);
+        circuitBreaker.recordFailure();
+        Thread.sleep(100);
+        assertTrue(circuitBreaker.allowRequest());
+        assertFalse(circuitBreaker.allowRequest());
+        circuitBreaker.releaseProbe();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.allowRequest());
+    }
+}
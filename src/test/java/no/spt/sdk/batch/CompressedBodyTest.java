@@ -0,0 +1,79 @@
+package no.spt.sdk.batch;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedBodyTest {
+
+    private JsonArrayBody source = new JsonArrayBody(createActivities());
+
+    @Test
+    public void testGzipRoundTrip() throws Exception {
+        CompressedBody body = new CompressedBody(source, Compression.GZIP, 6);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals(expected(), decompress(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        assertEquals(source.getContentLength(), body.getUncompressedBytes());
+        assertEquals(out.size(), body.getCompressedBytes());
+        assertTrue(body.getCompressedBytes() < body.getUncompressedBytes());
+    }
+
+    @Test
+    public void testDeflateRoundTrip() throws Exception {
+        CompressedBody body = new CompressedBody(source, Compression.DEFLATE, 9);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals(expected(), decompress(new InflaterInputStream(new ByteArrayInputStream(out.toByteArray()))));
+        assertEquals(source.getContentLength(), body.getUncompressedBytes());
+        assertEquals(out.size(), body.getCompressedBytes());
+    }
+
+    @Test
+    public void testContentLengthIsUnknown() throws Exception {
+        assertEquals(-1, new CompressedBody(source, Compression.GZIP, 6).getContentLength());
+    }
+
+    @Test
+    public void testCanBeWrittenMoreThanOnce() throws Exception {
+        CompressedBody body = new CompressedBody(source, Compression.GZIP, 1);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        body.writeTo(first);
+        body.writeTo(second);
+        assertEquals(expected(), decompress(new GZIPInputStream(new ByteArrayInputStream(second.toByteArray()))));
+        assertEquals(second.size(), body.getCompressedBytes());
+    }
+
+    private String expected() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        source.writeTo(out);
+        return out.toString("UTF-8");
+    }
+
+    private static String decompress(InputStream in) throws Exception {
+        try {
+            return new String(ByteStreams.toByteArray(in), "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+
+    private static List<String> createActivities() {
+        List<String> activities = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            activities.add("{\"@type\":\"Read\",\"object\":{\"@id\":\"urn:test:article:" + i + "\"}}");
+        }
+        return activities;
+    }
+}
@@ -0,0 +1,41 @@
+package no.spt.sdk.batch;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonArrayBodyTest {
+
+    @Test
+    public void testWritesJsonArray() throws Exception {
+        JsonArrayBody body = new JsonArrayBody(Arrays.asList("{\"a\":1}", "{\"b\":2}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals("[{\"a\":1},{\"b\":2}]", out.toString("UTF-8"));
+        assertEquals(out.size(), body.getContentLength());
+    }
+
+    @Test
+    public void testContentLengthMatchesEncodedBytes() throws Exception {
+        JsonArrayBody body = new JsonArrayBody(Arrays.asList("{\"name\":\"bl\u00e5b\u00e6r\"}",
+                "{\"emoji\":\"\ud83d\ude00\"}", "{\"broken\":\"\ud83d\"}"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        assertEquals(out.size(), body.getContentLength());
+    }
+
+    @Test
+    public void testCanBeWrittenMoreThanOnce() throws Exception {
+        JsonArrayBody body = new JsonArrayBody(Collections.singletonList("{}"));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        body.writeTo(first);
+        body.writeTo(second);
+        assertEquals("[{}]", first.toString("UTF-8"));
+        assertEquals("[{}]", second.toString("UTF-8"));
+    }
+}
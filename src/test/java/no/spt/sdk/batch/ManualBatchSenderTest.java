@@ -5,9 +5,11 @@ import no.spt.sdk.TestData;
 import no.spt.sdk.client.DataTrackingPostRequest;
 import no.spt.sdk.client.DataTrackingResponse;
 import no.spt.sdk.connection.HttpClientConnection;
+import no.spt.sdk.exceptions.CommunicationDataTrackingException;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.exceptions.error.ActivitySendingError;
 import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.serializers.GsonASJsonConverter;
 import no.spt.sdk.stats.DataTrackingStats;
@@ -15,14 +17,21 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
@@ -97,6 +106,26 @@ public class ManualBatchSenderTest {
         verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
     }
 
+    @Test
+    public void testBatchesAreCutByRequestSize() throws Exception {
+        options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxActivityBatchSize(1000)
+            .setMaxRequestSize(1024)
+            .build();
+        batchSender = new ManualBatchSender(options, dataCollectorConnector, jsonConverter, stats);
+        Activity activity = TestData.getTestActivity();
+        int activitySize = jsonConverter.serialize(activity).length();
+        for (int i = 0; i < 5; i++) {
+            batchSender.enqueue(activity);
+        }
+        batchSender.flush();
+        int perBatch = Math.max(1, (1024 - 2) / (activitySize + 1));
+        assertEquals((int) Math.ceil(5.0 / perBatch), stats.getSentBatchesCount());
+        assertEquals(5, stats.getSuccessfulCount());
+        assertEquals(0, batchSender.getQueueDepth());
+    }
+
     @Test
     public void testEnqueueMoreThanMaxQueueSize() throws Exception {
         Activity activity = TestData.getTestActivity();
@@ -189,6 +218,67 @@ public class ManualBatchSenderTest {
         assertEquals(2, stats.getValidationFailedCount());
     }
 
+    @Test
+    public void testSerializeOnEnqueue() throws Exception {
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setSerializeOnEnqueue(true)
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+            (200, null, "OK"));
+        Activity activity = TestData.getTestActivity();
+        batchSender.enqueue(activity);
+        batchSender.enqueue(activity);
+        batchSender.flush();
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        String json = jsonConverter.serialize(activity);
+        assertEquals("[" + json + "," + json + "]", request.getValue().getRawBody());
+        assertEquals(2, stats.getSuccessfulCount());
+        batchSender = new ManualBatchSender(options, dataCollectorConnector, jsonConverter, stats);
+    }
+
+    @Test
+    public void testSerializationErrorOnEnqueueDropsActivity() throws Exception {
+        ASJsonConverter failingConverter = mock(ASJsonConverter.class);
+        when(failingConverter.serialize(any(Activity.class))).thenThrow(new IOException());
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setSerializeOnEnqueue(true)
+            .build(), dataCollectorConnector, failingConverter, stats);
+        try {
+            batchSender.enqueue(TestData.getTestActivity());
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.SERIALIZATION_ERROR, exception.getError());
+        }
+        assertEquals(0, batchSender.getQueueDepth());
+        assertEquals(1, stats.getDroppedCount());
+        batchSender = new ManualBatchSender(options, dataCollectorConnector, jsonConverter, stats);
+    }
+
+    @Test
+    public void testOnlyTransientFailuresInMultiStatusAreRetried() throws Exception {
+        Activity activity = TestData.getTestActivity();
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+            (207, null, TestData.getDataCollectorPartialFailureAsJsonString()), new DataTrackingResponse(200, null,
+            "OK"));
+        for (int i = 0; i < 3; i++) {
+            batchSender.enqueue(activity);
+        }
+        try {
+            batchSender.flush();
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.VALIDATION_ERROR, exception.getError());
+        }
+        ArgumentCaptor<DataTrackingPostRequest> requests = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector, times(2)).send(requests.capture());
+        assertEquals("[" + jsonConverter.serialize(activity) + "]", requests.getAllValues().get(1).getRawBody());
+        assertEquals(1, stats.getValidationFailedCount());
+        assertEquals(2, stats.getSuccessfulCount());
+    }
+
     @Test
     public void testHttpConnectionReturnsUnexpectedResponse() throws Exception {
         Activity activity = TestData.getTestActivity();
@@ -204,8 +294,216 @@ public class ManualBatchSenderTest {
         assertEquals(1, stats.getSendingFailedCount());
     }
 
+    @Test
+    public void testDropOldestWhenQueueIsFull() throws Exception {
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(2)
+            .setOverflowPolicy(OverflowPolicy.DROP_OLDEST)
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        for (int i = 0; i < 5; i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+        }
+        assertEquals(2, batchSender.getQueueDepth());
+        assertEquals(5, stats.getQueuedActivitiesCount());
+        assertEquals(3, stats.getDroppedCount());
+    }
+
+    @Test
+    public void testActivityBeingBatchedIsNotDroppedByProducer() throws Exception {
+        ASJsonConverter enqueuingConverter = mock(ASJsonConverter.class);
+        when(enqueuingConverter.serialize(any(Activity.class))).thenAnswer(new Answer<String>() {
+            private boolean enqueued;
+
+            @Override
+            public String answer(InvocationOnMock invocation) throws Throwable {
+                if (!enqueued) {
+                    enqueued = true;
+                    batchSender.enqueue(TestData.getTestActivity());
+                }
+                return jsonConverter.serialize(invocation.getArguments()[0]);
+            }
+        });
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(1)
+            .setOverflowPolicy(OverflowPolicy.DROP_OLDEST)
+            .build(), dataCollectorConnector, enqueuingConverter, stats);
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        assertEquals(0, stats.getDroppedCount());
+        assertEquals(2, stats.getSuccessfulCount());
+        assertEquals(0, batchSender.getQueueDepth());
+    }
+
+    @Test
+    public void testBlockWhenQueueIsFull() throws Exception {
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(1)
+            .setOverflowPolicy(OverflowPolicy.BLOCK)
+            .setEnqueueTimeout(100)
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        batchSender.enqueue(TestData.getTestActivity());
+        long start = System.currentTimeMillis();
+        try {
+            batchSender.enqueue(TestData.getTestActivity());
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.QUEUE_MAX_SIZE_REACHED, exception.getError());
+        }
+        assertTrue(System.currentTimeMillis() - start >= 90);
+        assertEquals(1, stats.getDroppedCount());
+    }
+
+    @Test
+    public void testShedWhenQueueIsFull() throws Exception {
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(100)
+            .setOverflowPolicy(OverflowPolicy.SHED)
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        for (int i = 0; i < 50; i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+        }
+        int shed = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                batchSender.enqueue(TestData.getTestActivity());
+            } catch (DataTrackingException exception) {
+                assertEquals(ActivitySendingError.QUEUE_LOAD_SHED, exception.getError());
+                shed++;
+            }
+        }
+        assertTrue(batchSender.getQueueDepth() <= 100);
+        assertEquals(200 - (batchSender.getQueueDepth() - 50), shed);
+    }
+
+    @Test
+    public void testQueueWatermarks() throws Exception {
+        final AtomicInteger high = new AtomicInteger();
+        final AtomicInteger low = new AtomicInteger();
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setMaxQueueSize(100)
+            .setMaxActivityBatchSize(5)
+            .setQueueWatermarks(10, 2, new QueueWatermarkListener() {
+                @Override
+                public void onHighWatermark(int queueDepth) {
+                    high.incrementAndGet();
+                }
+
+                @Override
+                public void onLowWatermark(int queueDepth) {
+                    low.incrementAndGet();
+                }
+            })
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        for (int i = 0; i < 15; i++) {
+            batchSender.enqueue(TestData.getTestActivity());
+        }
+        assertEquals(1, high.get());
+        assertEquals(0, low.get());
+        batchSender.flush();
+        assertEquals(1, high.get());
+        assertEquals(1, low.get());
+    }
+
+    @Test
+    public void testFlushAsync() throws Exception {
+        batchSender.enqueue(TestData.getTestActivity());
+        Future<Void> future = batchSender.flushAsync();
+        assertTrue(future.isDone());
+        future.get();
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testFlushAsyncFails() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+            (409, null, "Unexpected error"));
+        batchSender.enqueue(TestData.getTestActivity());
+        Future<Void> future = batchSender.flushAsync();
+        try {
+            future.get();
+            fail("Expected an ExecutionException to be thrown");
+        } catch (ExecutionException exception) {
+            assertEquals(ActivitySendingError.UNEXPECTED_RESPONSE, ((DataTrackingException) exception.getCause())
+                .getError());
+        }
+    }
+
+    @Test
+    public void testRetryTooManyRequests() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (429, null, "Slow down"), new DataTrackingResponse(200, null, "OK"));
+        batchSender.enqueue(TestData.getTestActivity());
+        batchSender.flush();
+        verify(dataCollectorConnector, times(2)).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testGiveUpOnServiceUnavailable() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (503, null, "Unavailable"));
+        batchSender.enqueue(TestData.getTestActivity());
+        try {
+            batchSender.flush();
+            fail("Expected a CommunicationDataTrackingException to be thrown");
+        } catch (CommunicationDataTrackingException exception) {
+            assertEquals(ActivitySendingError.UNEXPECTED_RESPONSE, exception.getError());
+            assertEquals(Integer.valueOf(503), exception.getResponseCode());
+        }
+        verify(dataCollectorConnector, times(options.getRetries())).send(any(DataTrackingPostRequest.class));
+        assertEquals(1, stats.getSendingFailedCount());
+    }
+
+    @Test
+    public void testCircuitBreakerKeepsActivitiesQueued() throws Exception {
+        batchSender = new ManualBatchSender(new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+            .setCISUrl("http://localhost:8091/")
+            .setRetries(1)
+            .setCircuitBreaker(1, 60000)
+            .build(), dataCollectorConnector, jsonConverter, stats);
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException());
+        batchSender.enqueue(TestData.getTestActivity());
+        try {
+            batchSender.flush();
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.HTTP_CONNECTION_ERROR, exception.getError());
+        }
+        batchSender.enqueue(TestData.getTestActivity());
+        try {
+            batchSender.flush();
+            fail("Expected a DataTrackingException to be thrown");
+        } catch (DataTrackingException exception) {
+            assertEquals(ActivitySendingError.CIRCUIT_BREAKER_OPEN, exception.getError());
+        }
+        assertEquals(1, batchSender.getQueueDepth());
+        verify(dataCollectorConnector, times(1)).send(any(DataTrackingPostRequest.class));
+        batchSender = new ManualBatchSender(options, dataCollectorConnector, jsonConverter, stats);
+    }
+
     private DataTrackingPostRequest asRequest(List<Activity> activities) throws IOException {
         return new DataTrackingPostRequest(options.getDataCollectorUrl(), null, jsonConverter.serialize(activities));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testEnqueueActivityRecord() throws Exception {
+        ActivityRecord record = new ActivityRecord().type("Read")
+                .provider(TestData.createProvider())
+                .actor(TestData.createActor())
+                .object(TestData.createObject());
+        batchSender.enqueue(record);
+        record.reset();
+        assertEquals(1, batchSender.getQueueDepth());
+        assertEquals(1, stats.getQueuedActivitiesCount());
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        batchSender.flush();
+        verify(dataCollectorConnector, times(1)).send(request.capture());
+        assertTrue(request.getValue().getRawBody().contains("\"@type\":\"Read\""));
+        assertEquals(1, stats.getSuccessfulCount());
+    }
+}
@@ -0,0 +1,58 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorError;
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PartialResponseTest {
+
+    @Test
+    public void testTransientErrorsAreRetried() throws Exception {
+        List<String> batch = Arrays.asList("{\"a\":1}", "{\"b\":2}", "{\"c\":3}");
+        DataCollectorResponse response = createResponse(1, createError(503, 2), createError(null, 0),
+                createError(429, 2));
+        PartialResponse partial = PartialResponse.of(batch, response);
+        assertEquals(Arrays.asList("{\"c\":3}"), partial.getRetryActivities());
+        assertEquals(1, partial.getRejected());
+        assertEquals(1, partial.getAccepted());
+    }
+
+    @Test
+    public void testErrorsWithoutValidIndexAreRejected() throws Exception {
+        List<String> batch = Arrays.asList("{\"a\":1}");
+        DataCollectorResponse response = createResponse(0, createError(503, null), createError(503, 5),
+                createError(400, 0));
+        PartialResponse partial = PartialResponse.of(batch, response);
+        assertTrue(partial.getRetryActivities().isEmpty());
+        assertEquals(3, partial.getRejected());
+    }
+
+    private static DataCollectorResponse createResponse(int successes, DataCollectorError... errors) {
+        DataCollectorResponse response = new DataCollectorResponse();
+        response.setCode(207);
+        response.setErrors(Arrays.asList(errors));
+        List<Map<String, String>> success = new ArrayList<Map<String, String>>();
+        for (int i = 0; i < successes; i++) {
+            success.add(Collections.singletonMap("status", "SUCCESS"));
+        }
+        response.setSuccess(success);
+        return response;
+    }
+
+    private static DataCollectorError createError(Integer code, Integer index) {
+        DataCollectorError error = new DataCollectorError();
+        error.setStatus("ERROR");
+        error.setCode(code);
+        error.setIndex(index);
+        return error;
+    }
+}
@@ -0,0 +1,42 @@
+package no.spt.sdk.batch;
+
+import org.apache.http.client.utils.DateUtils;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class RetryableResponseExceptionTest {
+
+    @Test
+    public void testIsRetryable() throws Exception {
+        assertTrue(RetryableResponseException.isRetryable(429));
+        assertTrue(RetryableResponseException.isRetryable(503));
+        assertTrue(RetryableResponseException.isRetryable(504));
+        assertFalse(RetryableResponseException.isRetryable(200));
+        assertFalse(RetryableResponseException.isRetryable(400));
+        assertFalse(RetryableResponseException.isRetryable(501));
+    }
+
+    @Test
+    public void testParseRetryAfterSeconds() throws Exception {
+        assertEquals(120000, RetryableResponseException.parseRetryAfter("120", 0));
+        assertEquals(0, RetryableResponseException.parseRetryAfter(" 0 ", 0));
+    }
+
+    @Test
+    public void testParseRetryAfterDate() throws Exception {
+        long now = 1420070400000L;
+        String date = DateUtils.formatDate(new Date(now + 30000));
+        assertEquals(30000, RetryableResponseException.parseRetryAfter(date, now));
+        assertEquals(0, RetryableResponseException.parseRetryAfter(date, now + 60000));
+    }
+
+    @Test
+    public void testParseInvalidRetryAfter() throws Exception {
+        assertEquals(-1, RetryableResponseException.parseRetryAfter(null, 0));
+        assertEquals(-1, RetryableResponseException.parseRetryAfter("-5", 0));
+        assertEquals(-1, RetryableResponseException.parseRetryAfter("soon", 0));
+    }
+}
@@ -0,0 +1,137 @@
+package no.spt.sdk.batch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void testOfferAndPoll() throws Exception {
+        RingBuffer<String> buffer = new RingBuffer<String>(4);
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertEquals(2, buffer.size());
+        assertEquals("a", buffer.poll());
+        assertEquals("b", buffer.poll());
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testOfferWhenFull() throws Exception {
+        RingBuffer<String> buffer = new RingBuffer<String>(3);
+        assertTrue(buffer.offer("a"));
+        assertTrue(buffer.offer("b"));
+        assertTrue(buffer.offer("c"));
+        assertFalse(buffer.offer("d"));
+        assertEquals(3, buffer.size());
+        buffer.poll();
+        assertTrue(buffer.offer("d"));
+    }
+
+    @Test
+    public void testWrapsAround() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<Integer>(2);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(buffer.offer(i));
+            assertEquals(Integer.valueOf(i), buffer.poll());
+        }
+        assertEquals(100, buffer.getProducerSequence());
+        assertEquals(100, buffer.getConsumerSequence());
+    }
+
+    @Test
+    public void testDrainTo() throws Exception {
+        RingBuffer<Integer> buffer = new RingBuffer<Integer>(10);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Integer> drained = new ArrayList<Integer>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(3, drained.size());
+        assertEquals(2, buffer.size());
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testOfferNull() throws Exception {
+        new RingBuffer<String>(1).offer(null);
+    }
+
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final RingBuffer<Integer> buffer = new RingBuffer<Integer>(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        long consumed = 0;
+        long sum = 0;
+        while (consumed < producers * perProducer) {
+            Integer value = buffer.poll();
+            if (value != null) {
+                consumed++;
+                sum += value;
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals((long) producers * perProducer * (perProducer - 1) / 2, sum);
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentPollers() throws Exception {
+        final RingBuffer<Integer> buffer = new RingBuffer<Integer>(100000);
+        for (int i = 0; i < 100000; i++) {
+            buffer.offer(i);
+        }
+        final AtomicLong polled = new AtomicLong();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < 4; p++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (buffer.poll() != null) {
+                        polled.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(100000, polled.get());
+        assertTrue(buffer.isEmpty());
+    }
+}
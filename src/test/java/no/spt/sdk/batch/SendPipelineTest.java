@@ -0,0 +1,259 @@
+package no.spt.sdk.batch;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.TestData;
+import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.connection.HttpClientConnection;
+import no.spt.sdk.exceptions.CommunicationDataTrackingException;
+import no.spt.sdk.exceptions.error.ActivitySendingError;
+import no.spt.sdk.serializers.ASJsonConverter;
+import no.spt.sdk.serializers.GsonASJsonConverter;
+import no.spt.sdk.stats.DataTrackingStats;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SendPipelineTest {
+
+    @Mock
+    private HttpClientConnection dataCollectorConnector;
+    private static ASJsonConverter jsonConverter = new GsonASJsonConverter();
+    private DataTrackingStats stats;
+    private List<String> activities = Arrays.asList("{\"a\":1}", "{\"b\":2}");
+
+    @Before
+    public void setUp() throws Exception {
+        stats = new DataTrackingStats();
+    }
+
+    @Test
+    public void testSendsBatchAsJsonArray() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        BatchContext context = createPipeline(TestData.getDefaultOptions()).send(activities);
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        assertEquals("[{\"a\":1},{\"b\":2}]", request.getValue().getRawBody());
+        assertEquals(2, context.getAccepted());
+        assertNull(context.getError());
+        assertEquals(1, stats.getSentBatchesCount());
+        assertEquals(2, stats.getSuccessfulCount());
+    }
+
+    @Test
+    public void testCustomStagesRunBeforeSending() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .addBatchStage(new BatchStage() {
+                    @Override
+                    public void process(BatchContext context) {
+                        context.getActivities().remove(0);
+                    }
+                })
+                .addBatchStage(new BatchStage() {
+                    @Override
+                    public void process(BatchContext context) {
+                        context.getHeaders().put("X-Batch-Size", String.valueOf(context.getActivities().size()));
+                    }
+                })
+                .build();
+        createPipeline(options).send(activities);
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        assertEquals("[{\"b\":2}]", request.getValue().getRawBody());
+        assertEquals("1", request.getValue().getHeaders().get("X-Batch-Size"));
+        assertEquals(2, activities.size());
+    }
+
+    @Test
+    public void testNothingIsSentIfAllActivitiesAreRemoved() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .addBatchStage(new BatchStage() {
+                    @Override
+                    public void process(BatchContext context) {
+                        context.getActivities().clear();
+                    }
+                })
+                .build();
+        BatchContext context = createPipeline(options).send(activities);
+        verify(dataCollectorConnector, never()).send(any(DataTrackingPostRequest.class));
+        assertNull(context.getResponse());
+        assertEquals(0, stats.getSentBatchesCount());
+    }
+
+    @Test
+    public void testUnexpectedResponseIsCountedAsFailed() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (409, null, "Conflict"));
+        BatchContext context = createPipeline(TestData.getDefaultOptions()).send(activities);
+        assertEquals(ActivitySendingError.UNEXPECTED_RESPONSE, context.getError().getError());
+        assertEquals(2, stats.getSendingFailedCount());
+    }
+
+    @Test(expected = RetryableResponseException.class)
+    public void testRetryableResponseIsThrownAfterStats() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (503, null, "Unavailable"));
+        try {
+            createPipeline(TestData.getDefaultOptions()).send(activities);
+        } finally {
+            assertEquals(1, stats.getSentBatchesCount());
+            assertEquals(0, stats.getSendingFailedCount());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testConnectionFailureIsThrown() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenThrow(new IOException());
+        createPipeline(TestData.getDefaultOptions()).send(activities);
+    }
+
+    @Test
+    public void testCompressesLargeBodies() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new WritingAnswer(200));
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setCompression(Compression.GZIP)
+                .setCompressionThreshold(0)
+                .build();
+        createPipeline(options).send(activities);
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        assertEquals("gzip", request.getValue().getHeaders().get("Content-Encoding"));
+        assertTrue(request.getValue().getBody() instanceof CompressedBody);
+        assertEquals(17, stats.getUncompressedBytesCount());
+        assertTrue(stats.getCompressedBytesCount() > 0);
+    }
+
+    @Test
+    public void testDoesNotCompressBodiesBelowThreshold() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new WritingAnswer(200));
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setCompression(Compression.GZIP)
+                .build();
+        createPipeline(options).send(activities);
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        assertFalse(request.getValue().getBody() instanceof CompressedBody);
+        assertEquals("[{\"a\":1},{\"b\":2}]", request.getValue().getRawBody());
+        assertEquals(17, stats.getUncompressedBytesCount());
+        assertEquals(17, stats.getCompressedBytesCount());
+    }
+
+    @Test
+    public void testErrorsKeepUncompressedBody() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenAnswer(new WritingAnswer(409));
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setCompression(Compression.DEFLATE)
+                .setCompressionThreshold(0)
+                .build();
+        BatchContext context = createPipeline(options).send(activities);
+        assertEquals("[{\"a\":1},{\"b\":2}]", ((CommunicationDataTrackingException) context.getError())
+                .getRequestBody());
+    }
+
+    @Test
+    public void testSuccessBodyIsDiscarded() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (200, null, "OK"));
+        createPipeline(TestData.getDefaultOptions()).send(activities);
+        ArgumentCaptor<DataTrackingPostRequest> request = ArgumentCaptor.forClass(DataTrackingPostRequest.class);
+        verify(dataCollectorConnector).send(request.capture());
+        assertTrue(request.getValue().isDiscardSuccessBody());
+    }
+
+    @Test
+    public void testMultiStatusResponseIsParsedFromBytes() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (207, null, TestData.getDataCollectorMultiStatusAsJsonString().getBytes("UTF-8"), Charset
+                        .forName("UTF-8"), false));
+        BatchContext context = createPipeline(TestData.getDefaultOptions()).send(activities);
+        assertEquals(0, context.getFailed());
+        assertTrue(context.getRejected() > 0);
+        assertEquals(ActivitySendingError.VALIDATION_ERROR, context.getError().getError());
+    }
+
+    @Test
+    public void testMultiStatusResponseIsParsedAsStringByOtherConverters() throws Exception {
+        ASJsonConverter stringConverter = mock(ASJsonConverter.class);
+        when(stringConverter.deserializeDataCollectorResponse(any(String.class))).thenAnswer(new
+                Answer<DataCollectorResponse>() {
+            @Override
+            public DataCollectorResponse answer(InvocationOnMock invocation) throws Throwable {
+                return jsonConverter.deserializeDataCollectorResponse((String) invocation.getArguments()[0]);
+            }
+        });
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (207, null, TestData.getDataCollectorMultiStatusAsJsonString().getBytes("UTF-8"), Charset
+                        .forName("UTF-8"), false));
+        BatchContext context = SendPipeline.create(TestData.getDefaultOptions(), dataCollectorConnector,
+                stringConverter, stats).send(activities);
+        verify(stringConverter).deserializeDataCollectorResponse(TestData.getDataCollectorMultiStatusAsJsonString());
+        assertEquals(0, context.getFailed());
+        assertTrue(context.getRejected() > 0);
+        assertEquals(ActivitySendingError.VALIDATION_ERROR, context.getError().getError());
+    }
+
+    @Test
+    public void testTruncatedBadRequestIsCountedAsFailed() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (400, null, "{\"code\":".getBytes("UTF-8"), Charset.forName("UTF-8"), true));
+        BatchContext context = createPipeline(TestData.getDefaultOptions()).send(activities);
+        assertEquals(ActivitySendingError.UNEXPECTED_RESPONSE, context.getError().getError());
+        assertEquals(2, stats.getSendingFailedCount());
+    }
+
+    @Test
+    public void testMultiStatusWithoutBodyIsCountedAsFailed() throws Exception {
+        when(dataCollectorConnector.send(any(DataTrackingPostRequest.class))).thenReturn(new DataTrackingResponse
+                (207, null, null));
+        BatchContext context = createPipeline(TestData.getDefaultOptions()).send(activities);
+        assertEquals(ActivitySendingError.UNEXPECTED_RESPONSE, context.getError().getError());
+        assertEquals(2, stats.getSendingFailedCount());
+    }
+
+    private SendPipeline createPipeline(Options options) {
+        return SendPipeline.create(options, dataCollectorConnector, jsonConverter, stats);
+    }
+
+    /**
+     * Writes the request body like a connection would, and responds with the given status
+     */
+    private static class WritingAnswer implements Answer<DataTrackingResponse> {
+
+        private final int status;
+
+        private WritingAnswer(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public DataTrackingResponse answer(InvocationOnMock invocation) throws Throwable {
+            ((DataTrackingPostRequest) invocation.getArguments()[0]).getBody().writeTo(new ByteArrayOutputStream());
+            return new DataTrackingResponse(status, null, "");
+        }
+    }
+}
@@ -3,6 +3,7 @@ package no.spt.sdk.client;
 
 import no.spt.sdk.Options;
 import no.spt.sdk.TestData;
+import no.spt.sdk.connection.HttpAsyncClientConnection;
 import no.spt.sdk.models.Activity;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.serializers.GsonASJsonConverter;
@@ -91,6 +92,22 @@ public class ManualDataTrackingClientTest {
         assertEquals(0, client.getQueueDepth());
     }
 
+    @Test
+    public void testSendingWithAsyncConnection() throws Exception {
+        client.close();
+        client = new DataTrackingClient.Builder()
+                .withOptions(options)
+                .withManualActivitySender()
+                .withJsonConverter(jsonConverter)
+                .withHttpConnection(new HttpAsyncClientConnection(options))
+                .build();
+        Activity activity = TestData.getTestActivity();
+        client.send(activity);
+        mockServer.verify(request().withPath("/")
+                                   .withHeaders(new Header("Content-Type", "application/json; charset=utf-8"))
+                                   .withBody(jsonConverter.serialize(Arrays.asList(activity))), VerificationTimes.exactly(1));
+    }
+
     private void sleep(int millis) {
         try {
             Thread.sleep(millis);
@@ -2,6 +2,8 @@ package no.spt.sdk.client;
 
 import no.spt.sdk.Options;
 import no.spt.sdk.TestData;
+import no.spt.sdk.batch.AsyncSender;
+import no.spt.sdk.batch.FlushFuture;
 import no.spt.sdk.batch.Sender;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.exceptions.ErrorCollector;
@@ -9,20 +11,28 @@ import no.spt.sdk.exceptions.error.TrackingIdentityError;
 import no.spt.sdk.identity.IdentityCallback;
 import no.spt.sdk.identity.IdentityConnector;
 import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
 import no.spt.sdk.models.TrackingIdentity;
+import no.spt.sdk.stats.DataTrackingStatsSnapshot;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static no.spt.sdk.models.Makers.activity;
 import static no.spt.sdk.models.Makers.actor;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -83,6 +93,50 @@ public class MockedDataTrackingClientTest {
         verify(errorCollector, times(1)).collect(any(DataTrackingException.class));
     }
 
+    @Test
+    public void testSendAsyncFlushesSenderSynchronously() throws Exception {
+        Future<Void> future = client.sendAsync();
+        verify(sender, times(1)).flush();
+        assertTrue(future.isDone());
+        future.get();
+    }
+
+    @Test
+    public void testSendAsyncSenderFlushThrowsException() throws Exception {
+        DataTrackingException exception = TestData.getDataTrackingException();
+        doThrow(exception).when(sender).flush();
+        try {
+            client.sendAsync().get();
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+            return;
+        }
+        throw new AssertionError("Expected the future to fail");
+    }
+
+    @Test
+    public void testSendAsyncWithAsyncSender() throws Exception {
+        AsyncSender asyncSender = mock(AsyncSender.class);
+        Future<Void> future = FlushFuture.completed();
+        when(asyncSender.flushAsync()).thenReturn(future);
+        DataTrackingClient asyncClient = new DataTrackingClient.Builder()
+                .withOptions(options)
+                .withActivitySender(asyncSender)
+                .withErrorCollector(errorCollector)
+                .withIdentityConnector(identityConnector)
+                .build();
+        assertSame(future, asyncClient.sendAsync());
+        verify(asyncSender, never()).flush();
+        asyncClient.close();
+    }
+
+    @Test
+    public void testGetStatsSnapshot() throws Exception {
+        DataTrackingStatsSnapshot snapshot = client.getStatsSnapshot();
+        assertEquals(client.getStats().getQueuedActivitiesCount(), snapshot.getQueuedActivitiesCount());
+        assertEquals(client.getStats().getDroppedCount(), snapshot.getDroppedCount());
+    }
+
     @Test
     public void testGetTrackingId() throws DataTrackingException {
         when(identityConnector.getTrackingId(any(Map.class))).thenReturn(new TrackingIdentity(getDummyMap()));
@@ -126,4 +180,57 @@ public class MockedDataTrackingClientTest {
         }
     }
 
+    @Test
+    public void testTrackingActivityRecord() throws Exception {
+        ActivityRecord record = client.activityRecord().type("Read")
+                .provider(TestData.createProvider())
+                .actor(TestData.createActor())
+                .object(TestData.createObject());
+        String id = record.getId();
+        client.track(record);
+        ArgumentCaptor<Activity> activity = ArgumentCaptor.forClass(Activity.class);
+        verify(sender, times(1)).enqueue(activity.capture());
+        assertEquals("Read", activity.getValue().getType());
+        assertEquals(id, activity.getValue().getId());
+        assertNull(record.getType());
+        assertSame(record, client.activityRecord());
+    }
+
+    @Test
+    public void testTrackingActivityRecordWithAsyncSender() throws Exception {
+        AsyncSender asyncSender = mock(AsyncSender.class);
+        DataTrackingClient asyncClient = new DataTrackingClient.Builder()
+                .withOptions(options)
+                .withActivitySender(asyncSender)
+                .withErrorCollector(errorCollector)
+                .withIdentityConnector(identityConnector)
+                .build();
+        ActivityRecord record = asyncClient.activityRecord().type("Read")
+                .provider(TestData.createProvider())
+                .actor(TestData.createActor())
+                .object(TestData.createObject());
+        asyncClient.track(record);
+        verify(asyncSender, times(1)).enqueue(record);
+        verify(asyncSender, never()).enqueue(any(Activity.class));
+        asyncClient.close();
+    }
+
+    @Test
+    public void testTrackingActivityRecordSenderEnqueueThrowsException() throws Exception {
+        doThrow(TestData.getDataTrackingException()).when(sender).enqueue(any(Activity.class));
+        ActivityRecord record = client.activityRecord().type("Read")
+                .provider(TestData.createProvider())
+                .actor(TestData.createActor())
+                .object(TestData.createObject());
+        client.track(record);
+        verify(errorCollector, times(1)).collect(any(DataTrackingException.class));
+        assertNull(record.getType());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTrackingActivityRecordWithoutType() throws Exception {
+        client.track(client.activityRecord().provider(TestData.createProvider())
+                .actor(TestData.createActor())
+                .object(TestData.createObject()));
+    }
 }
@@ -0,0 +1,153 @@
+package no.spt.sdk.client;
+
+import no.spt.sdk.TestData;
+import no.spt.sdk.batch.AsyncSender;
+import no.spt.sdk.exceptions.DataTrackingException;
+import no.spt.sdk.exceptions.error.ActivitySendingError;
+import no.spt.sdk.models.ASObject;
+import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
+import no.spt.sdk.models.Actor;
+import no.spt.sdk.models.IdGenerators;
+import no.spt.sdk.models.Provider;
+import no.spt.sdk.serializers.ASJsonConverter;
+import no.spt.sdk.serializers.JacksonASJsonConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static no.spt.sdk.models.Makers.*;
+
+/**
+ * Compares the bytes allocated by tracking an activity built with builders and by tracking an activity record with
+ * frozen objects. Activities are serialized when they are tracked, like with
+ * {@link no.spt.sdk.Options#isSerializeOnEnqueue()}, and then dropped, so only the tracking path is measured. It is
+ * not run as part of the tests. Run it with the GC profiler after compiling the tests with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) org.openjdk.jmh.Main \
+ *     TrackingAllocationBenchmark -prof gc
+ * </pre>
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per tracked activity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrackingAllocationBenchmark {
+
+    private DataTrackingClient client;
+    private Provider provider;
+    private Actor actor;
+    private ASObject object;
+
+    @Setup
+    public void setUp() {
+        IdGenerators.setDefault(IdGenerators.RANDOM_UUID);
+        client = new DataTrackingClient.Builder()
+                .withOptions(TestData.getDefaultOptions())
+                .withActivitySender(new SerializingSender(new JacksonASJsonConverter()))
+                .build();
+        provider = provider("Organization", "urn:schibsted.com:4cf36fa274dea2117e030000").freeze();
+        actor = actor("Person", "urn:schibsted.com:person:286668").set("spt:userAgent", "Mozilla/5.0").freeze();
+        object = object("Article", "urn:schibsted.com:article:1").displayName("An article").freeze();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        IdGenerators.setDefault(IdGenerators.SECURE_RANDOM_UUID);
+    }
+
+    @Benchmark
+    public void trackActivity() {
+        client.track(activity("Read", provider("Organization", "urn:schibsted.com:4cf36fa274dea2117e030000").build(),
+                actor("Person", "urn:schibsted.com:person:286668").set("spt:userAgent", "Mozilla/5.0").build(),
+                object("Article", "urn:schibsted.com:article:1").displayName("An article").build()).build());
+    }
+
+    @Benchmark
+    public void trackRecord() {
+        client.track(client.activityRecord()
+                .type("Read")
+                .provider(provider)
+                .actor(actor)
+                .object(object));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TrackingAllocationBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+
+    /**
+     * Serializes every activity when it is enqueued and drops it
+     */
+    private static class SerializingSender implements AsyncSender {
+
+        private final ASJsonConverter jsonConverter;
+        private volatile String last;
+
+        private SerializingSender(ASJsonConverter jsonConverter) {
+            this.jsonConverter = jsonConverter;
+        }
+
+        @Override
+        public void enqueue(Activity activity) throws DataTrackingException {
+            last = serialize(activity);
+        }
+
+        @Override
+        public void enqueue(ActivityRecord record) throws DataTrackingException {
+            last = serialize(record);
+        }
+
+        private String serialize(Object activity) throws DataTrackingException {
+            try {
+                return jsonConverter.serialize(activity);
+            } catch (IOException e) {
+                throw new DataTrackingException(e, ActivitySendingError.SERIALIZATION_ERROR);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public Future<Void> flushAsync() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return 0;
+        }
+
+        @Override
+        public void init() {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.Header;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.mockserver.integration.ClientAndServer.startClientAndServer;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+public class Http2ConnectionFactoryTest {
+
+    private ClientAndServer mockServer;
+    private Options options;
+
+    @Before
+    public void setup() {
+        options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setTimeout(1000)
+                .build();
+        mockServer = startClientAndServer(8090);
+        mockServer.when(request().withPath("/"))
+                  .respond(response().withStatusCode(202)
+                                     .withHeaders(new Header("X-Request-Id", "abc"))
+                                     .withBody("Accepted"));
+    }
+
+    @After
+    public void tearDownMockServer() throws Exception {
+        mockServer.stop();
+    }
+
+    @Test
+    public void testIsAvailableFromJava11() throws Exception {
+        assertEquals(!System.getProperty("java.specification.version").startsWith("1."),
+                Http2ConnectionFactory.isAvailable());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCreateFailsBeforeJava11() throws Exception {
+        assumeTrue(!Http2ConnectionFactory.isAvailable());
+        Http2ConnectionFactory.create(options);
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        assumeTrue(Http2ConnectionFactory.isAvailable());
+        AsyncHttpConnection connection = Http2ConnectionFactory.create(options);
+        try {
+            DataTrackingResponse response = connection.send(new DataTrackingPostRequest(options
+                    .getDataCollectorUrl(), Collections.singletonMap("X-Batch-Size", "1"), "[{}]"));
+            assertEquals(202, response.getResponseCode());
+            assertEquals("Accepted", response.getRawBody());
+            assertEquals("abc", response.getHeader("x-request-id"));
+            mockServer.verify(request().withPath("/")
+                                       .withHeaders(new Header("Content-Type", "application/json; charset=utf-8"),
+                                               new Header("X-Batch-Size", "1"))
+                                       .withBody("[{}]"), VerificationTimes.exactly(1));
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testSendAsyncTellsCallback() throws Exception {
+        assumeTrue(Http2ConnectionFactory.isAvailable());
+        AsyncHttpConnection connection = Http2ConnectionFactory.create(options);
+        final AtomicReference<DataTrackingResponse> received = new AtomicReference<DataTrackingResponse>();
+        final CountDownLatch done = new CountDownLatch(1);
+        try {
+            Future<DataTrackingResponse> future = connection.sendAsync(new DataTrackingPostRequest(options
+                    .getDataCollectorUrl(), null, "[{}]"), new ResponseCallback() {
+                @Override
+                public void completed(DataTrackingResponse response) {
+                    received.set(response);
+                    done.countDown();
+                }
+
+                @Override
+                public void failed(IOException e) {
+                    done.countDown();
+                }
+            });
+            assertEquals(202, future.get(1, TimeUnit.SECONDS).getResponseCode());
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals(202, received.get().getResponseCode());
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testConnectionFailureIsThrown() throws Exception {
+        assumeTrue(Http2ConnectionFactory.isAvailable());
+        AsyncHttpConnection connection = Http2ConnectionFactory.create(options);
+        try {
+            connection.send(new DataTrackingPostRequest("http://localhost:8093/", null, "[{}]"));
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package no.spt.sdk.connection;
+
+import no.spt.sdk.Options;
+import no.spt.sdk.TestData;
+import no.spt.sdk.client.DataTrackingPostRequest;
+import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.exceptions.DataTrackingException;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.BasicFuture;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HttpAsyncClientConnectionTest {
+
+    @Mock
+    CloseableHttpAsyncClient httpClient;
+    HttpAsyncClientConnection connection;
+    Options options;
+    private BasicFuture<HttpResponse> exchange;
+
+    @Before
+    public void setUp() throws Exception {
+        this.options = TestData.getDefaultOptions();
+        connection = new HttpAsyncClientConnection(options, httpClient);
+        when(httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(new
+                Answer<Future<HttpResponse>>() {
+            @Override
+            public Future<HttpResponse> answer(InvocationOnMock invocation) throws Throwable {
+                exchange = new BasicFuture<HttpResponse>((FutureCallback<HttpResponse>) invocation.getArguments()[1]);
+                return exchange;
+            }
+        });
+    }
+
+    @Test
+    public void testStartsClient() throws Exception {
+        verify(httpClient).start();
+    }
+
+    @Test
+    public void testSendAsyncCompletesWhenResponseArrives() throws Exception {
+        Future<DataTrackingResponse> future = connection.sendAsync(asRequest(), null);
+        assertFalse(future.isDone());
+        exchange.completed(createResponse(HttpStatus.SC_OK, "OK"));
+        assertTrue(future.isDone());
+        assertEquals(HttpStatus.SC_OK, future.get().getResponseCode());
+        assertEquals("OK", future.get().getRawBody());
+        assertEquals("abc", future.get().getHeader("x-request-id"));
+    }
+
+    @Test
+    public void testSendAsyncSendsRequest() throws Exception {
+        connection.sendAsync(asRequest(), null);
+        ArgumentCaptor<HttpUriRequest> request = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(request.capture(), any(FutureCallback.class));
+        assertEquals(options.getDataCollectorUrl(), request.getValue().getURI().toString());
+        assertEquals("application/json; charset=utf-8", request.getValue().getFirstHeader("Content-Type").getValue());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((HttpEntityEnclosingRequest) request.getValue()).getEntity().writeTo(out);
+        assertEquals("[{}]", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testCallbackIsTold() throws Exception {
+        final AtomicReference<DataTrackingResponse> received = new AtomicReference<DataTrackingResponse>();
+        final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+        ResponseCallback callback = new ResponseCallback() {
+            @Override
+            public void completed(DataTrackingResponse response) {
+                received.set(response);
+            }
+
+            @Override
+            public void failed(IOException e) {
+                failure.set(e);
+            }
+        };
+        connection.sendAsync(asRequest(), callback);
+        exchange.completed(createResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, "Unavailable"));
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, received.get().getResponseCode());
+        connection.sendAsync(asRequest(), callback);
+        ConnectException cause = new ConnectException();
+        exchange.failed(cause);
+        assertSame(cause, failure.get());
+    }
+
+    @Test
+    public void testSendAsyncFailsWithIOException() throws Exception {
+        Future<DataTrackingResponse> future = connection.sendAsync(asRequest(), null);
+        ConnectException cause = new ConnectException();
+        exchange.failed(cause);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(cause, e.getCause());
+        }
+    }
+
+    @Test
+    public void testCancelCancelsRequest() throws Exception {
+        Future<DataTrackingResponse> future = connection.sendAsync(asRequest(), null);
+        assertTrue(future.cancel(true));
+        assertTrue(exchange.isCancelled());
+        assertTrue(future.isCancelled());
+        assertTrue(future.isDone());
+    }
+
+    @Test(expected = ConnectException.class)
+    public void testSendThrowsCause() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(new
+                Answer<Future<HttpResponse>>() {
+            @Override
+            public Future<HttpResponse> answer(InvocationOnMock invocation) throws Throwable {
+                exchange = new BasicFuture<HttpResponse>((FutureCallback<HttpResponse>) invocation.getArguments()[1]);
+                exchange.failed(new ConnectException());
+                return exchange;
+            }
+        });
+        connection.send(asRequest());
+    }
+
+    @Test
+    public void testSendReturnsResponse() throws Exception {
+        when(httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(new
+                Answer<Future<HttpResponse>>() {
+            @Override
+            public Future<HttpResponse> answer(InvocationOnMock invocation) throws Throwable {
+                exchange = new BasicFuture<HttpResponse>((FutureCallback<HttpResponse>) invocation.getArguments()[1]);
+                exchange.completed(createResponse(HttpStatus.SC_OK, "OK"));
+                return exchange;
+            }
+        });
+        assertEquals(HttpStatus.SC_OK, connection.send(asRequest()).getResponseCode());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        connection.close();
+        verify(httpClient, times(1)).close();
+    }
+
+    @Test(expected = DataTrackingException.class)
+    public void testCloseThrowsIOE() throws Exception {
+        doThrow(new IOException()).when(httpClient).close();
+        connection.close();
+    }
+
+    private DataTrackingPostRequest asRequest() {
+        return new DataTrackingPostRequest(options.getDataCollectorUrl(), null, "[{}]");
+    }
+
+    private static HttpResponse createResponse(int status, String body) throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+        response.addHeader("X-Request-Id", "abc");
+        response.setEntity(new StringEntity(body));
+        return response;
+    }
+}
@@ -4,27 +4,40 @@ import no.spt.sdk.Options;
 import no.spt.sdk.TestData;
 import no.spt.sdk.client.DataTrackingPostRequest;
 import no.spt.sdk.client.DataTrackingResponse;
+import no.spt.sdk.client.RequestBody;
 import no.spt.sdk.exceptions.DataTrackingException;
 import no.spt.sdk.models.Activity;
 import no.spt.sdk.serializers.ASJsonConverter;
 import no.spt.sdk.serializers.GsonASJsonConverter;
 import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
 import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHttpResponse;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
@@ -83,6 +96,162 @@ public class HttpClientConnectionTest {
         assertEquals("NotImplementedExample", resp.getRawBody());
     }
 
+    @Test
+    public void testSendStreamsRequestBody() throws Exception {
+        when(httpClient.execute(any(HttpPost.class), any(ResponseHandler.class))).thenReturn(new DataTrackingResponse
+                (HttpStatus.SC_OK, null, "OK"));
+        RequestBody body = new RequestBody() {
+            @Override
+            public long getContentLength() {
+                return 4;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write("[{}]".getBytes("UTF-8"));
+            }
+        };
+        connection.send(new DataTrackingPostRequest(options.getDataCollectorUrl(), null, body));
+        ArgumentCaptor<HttpPost> post = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient).execute(post.capture(), any(ResponseHandler.class));
+        assertEquals(4, post.getValue().getEntity().getContentLength());
+        assertTrue(post.getValue().getEntity().isRepeatable());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        post.getValue().getEntity().writeTo(out);
+        assertEquals("[{}]", out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testResponseHandlerKeepsHeaders() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE,
+                "Service Unavailable");
+        response.addHeader("Retry-After", "120");
+        response.addHeader("Via", "proxy1");
+        response.addHeader("Via", "proxy2");
+        response.setEntity(new StringEntity("Unavailable"));
+        DataTrackingResponse resp = new HttpClientConnection.DataTrackingResponseHandler().handleResponse(response);
+        assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, resp.getResponseCode());
+        assertEquals("120", resp.getHeader("retry-after"));
+        assertEquals("proxy1, proxy2", resp.getHeaders().get("Via"));
+        assertEquals("Unavailable", resp.getRawBody());
+    }
+
+    @Test
+    public void testResponseHandlerDiscardsSuccessBody() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        response.setEntity(new StringEntity("{}"));
+        DataTrackingResponse resp = new HttpClientConnection.DataTrackingResponseHandler(1024, true)
+                .handleResponse(response);
+        assertEquals(HttpStatus.SC_OK, resp.getResponseCode());
+        assertNull(resp.getRawBody());
+        assertNull(resp.getBodyStream());
+    }
+
+    @Test
+    public void testResponseHandlerKeepsMultiStatusBodyWhenDiscarding() throws Exception {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_MULTI_STATUS,
+                "Multi-Status");
+        response.setEntity(new StringEntity(TestData.getDataCollectorMultiStatusAsJsonString()));
+        DataTrackingResponse resp = new HttpClientConnection.DataTrackingResponseHandler(1024 * 1024, true)
+                .handleResponse(response);
+        assertEquals(TestData.getDataCollectorMultiStatusAsJsonString(), resp.getRawBody());
+        assertFalse(resp.isBodyTruncated());
+    }
+
+    @Test
+    public void testResponseHandlerTruncatesLargeBody() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            body.append('x');
+        }
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_BAD_REQUEST,
+                "Bad Request");
+        response.setEntity(new StringEntity(body.toString()));
+        DataTrackingResponse resp = new HttpClientConnection.DataTrackingResponseHandler(1024, false)
+                .handleResponse(response);
+        assertTrue(resp.isBodyTruncated());
+        assertEquals(1024, resp.getRawBody().length());
+    }
+
+    @Test
+    public void testResponseHandlerDoesNotTruncateBodyOfMaxSize() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1024; i++) {
+            body.append('x');
+        }
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_BAD_REQUEST,
+                "Bad Request");
+        response.setEntity(new StringEntity(body.toString()));
+        DataTrackingResponse resp = new HttpClientConnection.DataTrackingResponseHandler(1024, false)
+                .handleResponse(response);
+        assertFalse(resp.isBodyTruncated());
+        assertEquals(body.toString(), resp.getRawBody());
+    }
+
+    @Test
+    public void testCharsetIsTakenFromContentType() throws Exception {
+        assertEquals(Charset.forName("ISO-8859-1"), HttpClientConnection.DataTrackingResponseHandler.getCharset(
+                "application/json; charset=\"ISO-8859-1\""));
+        assertEquals(Charset.forName("UTF-8"), HttpClientConnection.DataTrackingResponseHandler.getCharset(
+                "application/json"));
+        assertEquals(Charset.forName("UTF-8"), HttpClientConnection.DataTrackingResponseHandler.getCharset(
+                "application/json; charset=unknown-charset"));
+        assertEquals(Charset.forName("UTF-8"), HttpClientConnection.DataTrackingResponseHandler.getCharset(null));
+    }
+
+    @Test
+    public void testRequestConfigIsTakenFromOptions() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setTimeout(1500)
+                .setStaleConnectionCheck(false)
+                .build();
+        RequestConfig config = HttpClientConnection.createRequestConfig(options);
+        assertEquals(1500, config.getSocketTimeout());
+        assertEquals(1500, config.getConnectTimeout());
+        assertEquals(1500, config.getConnectionRequestTimeout());
+        assertFalse(config.isStaleConnectionCheckEnabled());
+    }
+
+    @Test
+    public void testConnectionManagerIsTakenFromOptions() throws Exception {
+        Options options = new Options.Builder("abc123").setDataCollectorUrl("http://localhost:8090/")
+                .setCISUrl("http://localhost:8091/")
+                .setMaxConnections(30, 15)
+                .setTcpNoDelay(false)
+                .setSocketBufferSize(16384)
+                .build();
+        PoolingHttpClientConnectionManager connectionManager = HttpClientConnection.createConnectionManager(options);
+        try {
+            assertEquals(30, connectionManager.getMaxTotal());
+            assertEquals(15, connectionManager.getDefaultMaxPerRoute());
+            assertFalse(connectionManager.getDefaultSocketConfig().isTcpNoDelay());
+            assertTrue(connectionManager.getDefaultSocketConfig().isSoKeepAlive());
+            assertEquals(16384, connectionManager.getDefaultConnectionConfig().getBufferSize());
+        } finally {
+            connectionManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetPoolStats() throws Exception {
+        HttpClientConnection pooled = new HttpClientConnection(options);
+        try {
+            ConnectionPoolStats stats = pooled.getPoolStats();
+            assertEquals(0, stats.getLeased());
+            assertEquals(0, stats.getPending());
+            assertEquals(0, stats.getAvailable());
+            assertEquals(options.getMaxConnections(), stats.getMax());
+        } finally {
+            pooled.close();
+        }
+    }
+
+    @Test
+    public void testGetPoolStatsWithoutConnectionManager() throws Exception {
+        assertNull(connection.getPoolStats());
+    }
+
     @Test
     public void testClose() throws Exception {
         connection.close();
@@ -0,0 +1,36 @@
+package no.spt.sdk.connection;
+
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IdleConnectionEvictorTest {
+
+    @Mock
+    HttpClientConnectionManager connectionManager;
+
+    @Test
+    public void testClosesExpiredAndIdleConnections() throws Exception {
+        new IdleConnectionEvictor(connectionManager, 1000).run();
+        verify(connectionManager).closeExpiredConnections();
+        verify(connectionManager).closeIdleConnections(1000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testEvictsInBackground() throws Exception {
+        IdleConnectionEvictor evictor = new IdleConnectionEvictor(connectionManager, 20);
+        evictor.start();
+        try {
+            verify(connectionManager, timeout(1000).atLeast(2)).closeIdleConnections(20, TimeUnit.MILLISECONDS);
+        } finally {
+            evictor.shutdown();
+        }
+    }
+}
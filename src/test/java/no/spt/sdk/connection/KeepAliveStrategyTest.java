@@ -0,0 +1,39 @@
+package no.spt.sdk.connection;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeepAliveStrategyTest {
+
+    private KeepAliveStrategy strategy = new KeepAliveStrategy(30000);
+
+    @Test
+    public void testUsesConfiguredKeepAliveWithoutHeader() throws Exception {
+        assertEquals(30000, strategy.getKeepAliveDuration(createResponse(null), new BasicHttpContext()));
+    }
+
+    @Test
+    public void testUsesShorterKeepAliveFromServer() throws Exception {
+        assertEquals(5000, strategy.getKeepAliveDuration(createResponse("timeout=5, max=100"),
+                new BasicHttpContext()));
+    }
+
+    @Test
+    public void testCapsLongerKeepAliveFromServer() throws Exception {
+        assertEquals(30000, strategy.getKeepAliveDuration(createResponse("timeout=600"), new BasicHttpContext()));
+    }
+
+    private static HttpResponse createResponse(String keepAlive) {
+        BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+}
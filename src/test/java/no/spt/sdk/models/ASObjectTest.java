@@ -119,4 +119,40 @@ public class ASObjectTest {
         return object(OBJECT_TYPE, OBJECT_ID);
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testFreezeASObject() {
+        ASObject template = builder().freeze();
+        assertTrue(template.isFrozen());
+        assertEquals(OBJECT_TYPE, template.getMap().get("@type"));
+        assertFalse(builder().build().isFrozen());
+    }
+
+    @Test
+    public void testBuilderIsNotFrozenAfterFreeze() {
+        ASObject.Builder builder = builder();
+        builder.freeze();
+        assertFalse(builder.build().isFrozen());
+    }
+
+    @Test
+    public void testDeriveFromTemplate() {
+        ASObject template = builder().displayName("Template").url("http://example.com").freeze();
+        ASObject variant = new ASObject.Builder(null).from(template).url("http://example.com/variant").build();
+        assertFalse(variant.isFrozen());
+        assertEquals(OBJECT_TYPE, variant.getMap().get("@type"));
+        assertEquals(OBJECT_ID, variant.getMap().get("@id"));
+        assertEquals("Template", variant.getMap().get("displayName"));
+        assertEquals("http://example.com/variant", variant.getMap().get("url"));
+        assertEquals("http://example.com", template.getMap().get("url"));
+    }
+
+    @Test
+    public void testDeriveFromTemplateKeepsTypeAndId() {
+        ASObject template = builder().displayName("Template").freeze();
+        ASObject variant = new ASObject.Builder("Page", "urn:page:1").from(template).build();
+        assertEquals("Page", variant.getMap().get("@type"));
+        assertEquals("urn:page:1", variant.getMap().get("@id"));
+        assertEquals("Template", variant.getMap().get("displayName"));
+    }
+}
@@ -0,0 +1,118 @@
+package no.spt.sdk.models;
+
+import no.spt.sdk.TimestampFormat;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static no.spt.sdk.TestData.createActor;
+import static no.spt.sdk.TestData.createObject;
+import static no.spt.sdk.TestData.createProvider;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ActivityRecordTest {
+
+    @Test
+    public void testFillingInRecord() throws Exception {
+        ASObject object = createObject();
+        Actor actor = createActor();
+        Provider provider = createProvider();
+        ActivityRecord record = new ActivityRecord().type("type")
+                .id("id")
+                .published(1000L)
+                .provider(provider)
+                .actor(actor)
+                .object(object);
+        record.validate();
+        assertEquals("type", record.getType());
+        assertEquals("id", record.getId());
+        assertEquals(1000L, record.getPublished());
+        assertSame(provider, record.getProvider());
+        assertSame(actor, record.getActor());
+        assertSame(object, record.getObject());
+        assertSame(Activity.CONTEXT, record.getContext());
+    }
+
+    @Test
+    public void testToActivity() throws Exception {
+        ASObject object = createObject();
+        ASObject target = createObject();
+        ActivityRecord record = new ActivityRecord().type("type")
+                .id("id")
+                .published(1000L)
+                .provider(createProvider())
+                .actor(createActor())
+                .object(object)
+                .target(target);
+        Activity activity = record.toActivity();
+        assertEquals("type", activity.getType());
+        assertEquals("id", activity.getId());
+        assertEquals(TimestampFormat.format(new Date(1000L)), activity.getPublished());
+        assertSame(record.getProvider(), activity.getProvider());
+        assertSame(record.getActor(), activity.getActor());
+        assertSame(object, activity.getObject());
+        assertSame(target, activity.getTarget());
+        assertNull(activity.getResult());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testToActivityWithoutType() throws Exception {
+        new ActivityRecord().provider(createProvider()).actor(createActor()).object(createObject()).toActivity();
+    }
+
+    @Test
+    public void testIdAndPublishedAreCreatedWhenRead() throws Exception {
+        ActivityRecord record = new ActivityRecord();
+        long before = System.currentTimeMillis();
+        String id = record.getId();
+        long published = record.getPublished();
+        assertNotNull(id);
+        assertEquals(id, record.getId());
+        assertTrue(published >= before);
+        assertEquals(published, record.getPublished());
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        ActivityRecord record = new ActivityRecord().type("type")
+                .id("id")
+                .provider(createProvider())
+                .actor(createActor())
+                .object(createObject())
+                .target(createObject())
+                .result(createObject());
+        assertSame(record, record.reset());
+        assertNull(record.getType());
+        assertNull(record.getProvider());
+        assertNull(record.getActor());
+        assertNull(record.getObject());
+        assertNull(record.getTarget());
+        assertNull(record.getResult());
+        assertTrue(!"id".equals(record.getId()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatProviderIsRequired() {
+        new ActivityRecord().type("type").actor(createActor()).object(createObject()).validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatActorIsRequired() {
+        new ActivityRecord().type("type").provider(createProvider()).object(createObject()).validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatObjectIsRequired() {
+        new ActivityRecord().type("type").provider(createProvider()).actor(createActor()).validate();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testThatTypeCannotBeEmpty() {
+        new ActivityRecord().type("").provider(createProvider()).actor(createActor()).object(createObject())
+                .validate();
+    }
+}
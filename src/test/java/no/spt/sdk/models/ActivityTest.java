@@ -1,9 +1,13 @@
 package no.spt.sdk.models;
 
+import no.spt.sdk.TrackingUtil;
 import org.junit.Test;
 
+import java.util.Map;
+
 import static no.spt.sdk.models.Makers.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class ActivityTest {
 
@@ -72,4 +76,19 @@ public class ActivityTest {
         return object("objectType", "objectId").build();
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testContextIsShared() throws Exception {
+        Activity first = activity("type", createProvider(), createActor(), createObject()).build();
+        Activity second = activity("type", createProvider(), createActor(), createObject()).build();
+        assertSame(Activity.CONTEXT, first.getContext());
+        assertSame(first.getContext(), second.getContext());
+        assertEquals("http://www.w3.org/ns/activitystreams", first.getContext().get(0));
+        assertEquals(TrackingUtil.getSdkVersion(), ((Map) first.getContext().get(1)).get("spt:sdkVersion"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testContextCannotBeChanged() {
+        ((Map<String, String>) Activity.CONTEXT.get(1)).put("spt:sdkType", "OTHER");
+    }
+}
@@ -0,0 +1,51 @@
+package no.spt.sdk.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the built-in {@link IdGenerator}s when several threads generate IDs at the same time. It
+ * is not run as part of the tests. Run it after compiling the tests with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) no.spt.sdk.models.IdGeneratorBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    public String secureRandomUUID() {
+        return IdGenerators.SECURE_RANDOM_UUID.generateId();
+    }
+
+    @Benchmark
+    public String randomUUID() {
+        return IdGenerators.RANDOM_UUID.generateId();
+    }
+
+    @Benchmark
+    public String timeOrderedUUID() {
+        return IdGenerators.TIME_ORDERED_UUID.generateId();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package no.spt.sdk.models;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static no.spt.sdk.models.Makers.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IdGeneratorsTest {
+
+    @After
+    public void tearDown() {
+        IdGenerators.setDefault(IdGenerators.SECURE_RANDOM_UUID);
+    }
+
+    @Test
+    public void testFormatIsTheSameAsUUID() throws Exception {
+        UUID uuid = UUID.randomUUID();
+        assertEquals(uuid.toString(), IdGenerators.format(uuid.getMostSignificantBits(), uuid
+                .getLeastSignificantBits()));
+        assertEquals("00000000-0000-0000-0000-000000000000", IdGenerators.format(0L, 0L));
+        assertEquals("ffffffff-ffff-ffff-ffff-ffffffffffff", IdGenerators.format(-1L, -1L));
+    }
+
+    @Test
+    public void testRandomUUIDIsVersion4() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            UUID uuid = UUID.fromString(IdGenerators.RANDOM_UUID.generateId());
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void testTimeOrderedUUIDIsVersion7() throws Exception {
+        long before = System.currentTimeMillis();
+        UUID uuid = UUID.fromString(IdGenerators.TIME_ORDERED_UUID.generateId());
+        long after = System.currentTimeMillis();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        long timestamp = uuid.getMostSignificantBits() >>> 16;
+        assertTrue(timestamp >= before && timestamp <= after);
+    }
+
+    @Test
+    public void testTimeOrderedUUIDsSortByTime() throws Exception {
+        String first = IdGenerators.TIME_ORDERED_UUID.generateId();
+        Thread.sleep(2);
+        String second = IdGenerators.TIME_ORDERED_UUID.generateId();
+        assertTrue(first.compareTo(second) < 0);
+    }
+
+    @Test
+    public void testIdsAreUnique() throws Exception {
+        Set<String> ids = new HashSet<String>();
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(ids.add(IdGenerators.RANDOM_UUID.generateId()));
+            assertTrue(ids.add(IdGenerators.TIME_ORDERED_UUID.generateId()));
+        }
+    }
+
+    @Test
+    public void testDefaultGeneratorIsUsedForActivitiesAndActors() throws Exception {
+        IdGenerators.setDefault(new IdGenerator() {
+            @Override
+            public String generateId() {
+                return "generated";
+            }
+        });
+        Activity activity = activity("type", provider("providerType", "providerId").build(), actor
+                ("actorType", "actorId").build(), object("objectType", "objectId").build()).build();
+        assertEquals("generated", activity.getId());
+        Actor actor = actor(new TrackingIdentity()).build();
+        assertEquals("urn:schibsted.com:person:generated", actor.getMap().get("@id"));
+        assertEquals("urn:schibsted.com:session:generated", actor.getMap().get("spt:sessionId"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDefaultGeneratorCannotBeNull() throws Exception {
+        IdGenerators.setDefault(null);
+    }
+}
@@ -0,0 +1,82 @@
+package no.spt.sdk.serializers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import no.spt.sdk.TestData;
+import no.spt.sdk.models.Activity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the hand-written serializers of {@link JacksonASJsonConverter} with serializing activities through bean
+ * introspection. It is not run as part of the tests. Run it after compiling the tests with
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) \
+ *     no.spt.sdk.serializers.ActivitySerializationBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivitySerializationBenchmark {
+
+    private JacksonASJsonConverter converter;
+    private ObjectMapper reflectiveMapper;
+    private Activity activity;
+    private List<Activity> activities;
+
+    @Setup
+    public void setUp() {
+        converter = new JacksonASJsonConverter();
+        reflectiveMapper = ReflectiveJacksonMapper.create();
+        activity = TestData.createActivity();
+        activities = new ArrayList<Activity>();
+        for (int i = 0; i < 100; i++) {
+            activities.add(TestData.createActivity());
+        }
+    }
+
+    @Benchmark
+    public String handWritten() throws IOException {
+        return converter.serialize(activity);
+    }
+
+    @Benchmark
+    public String beanIntrospection() throws IOException {
+        return reflectiveMapper.writeValueAsString(activity);
+    }
+
+    @Benchmark
+    public String handWrittenList() throws IOException {
+        return converter.serialize(activities);
+    }
+
+    @Benchmark
+    public String beanIntrospectionList() throws IOException {
+        return reflectiveMapper.writeValueAsString(activities);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ActivitySerializationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
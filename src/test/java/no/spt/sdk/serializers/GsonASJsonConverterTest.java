@@ -1,20 +1,30 @@
 package no.spt.sdk.serializers;
 
 import no.spt.sdk.TestData;
+import no.spt.sdk.TrackingUtil;
 import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
+import no.spt.sdk.models.Collection;
+import no.spt.sdk.models.Provider;
+import no.spt.sdk.models.Result;
+import no.spt.sdk.models.Target;
 import no.spt.sdk.models.TrackingIdentity;
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
 
 public class GsonASJsonConverterTest {
 
-    ASJsonConverter jsonConverter;
+    StreamingASJsonConverter jsonConverter;
 
     @Before
     public void setup() {
@@ -54,4 +64,72 @@ public class GsonASJsonConverterTest {
         assertEquals(400, response.getCode());
     }
 
+
+    @Test
+    public void testDataCollectorResponseDeSerializingFromStream() throws JSONException, IOException {
+        DataCollectorResponse response = jsonConverter.deserializeDataCollectorResponse(new ByteArrayInputStream(
+                TestData.getDataCollectorMultiStatusAsJsonString().getBytes("UTF-8")));
+        assertEquals(207, response.getCode());
+    }
+
+    @Test
+    public void testActivitySerializingMatchesJackson() throws JSONException, IOException {
+        Activity activity = TestData.getTestActivity();
+        JSONAssert.assertEquals(new JacksonASJsonConverter().serialize(activity), jsonConverter.serialize(activity),
+                true);
+    }
+
+    @Test
+    public void testContextSerializing() throws JSONException, IOException {
+        JSONAssert.assertEquals("{\"@context\":[\"http://www.w3.org/ns/activitystreams\",{\"spt\":\"http://schema" +
+                ".schibsted.com/activitystreams\",\"spt:sdkType\":\"JAVA\",\"spt:sdkVersion\":\"" + TrackingUtil
+                .getSdkVersion() + "\"}]}", jsonConverter.serialize(TestData.getTestActivity()), false);
+    }
+
+    @Test
+    public void testFullActivitySerializingMatchesJackson() throws JSONException, IOException {
+        Activity activity = new Activity.Builder("Read", TestData.createProvider(), TestData.createActor(), TestData
+                .createObject())
+                .target(new Target.Builder("Page", "urn:schibsted.com:page:1")
+                        .set("spt:link", TestData.createLink())
+                        .set("spt:tags", Arrays.asList("news", "sport"))
+                        .set("spt:items", new Collection.Builder(Arrays.asList(TestData.createObject())).build()))
+                .result(new Result.Builder("Result").displayName("result"))
+                .build();
+        JSONAssert.assertEquals(new JacksonASJsonConverter().serialize(activity), jsonConverter.serialize(activity),
+                true);
+    }
+
+    @Test
+    public void testFrozenObjectSerializing() throws JSONException, IOException {
+        Provider template = new Provider.Builder("Organization", "urn:schibsted.com:site:1").displayName("Site")
+                .freeze();
+        Activity activity = new Activity.Builder("Read", template, TestData.createActor(), TestData.createObject())
+                .build();
+        String expected = new JacksonASJsonConverter().serialize(activity);
+        JSONAssert.assertEquals(expected, jsonConverter.serialize(activity), true);
+        JSONAssert.assertEquals(expected, jsonConverter.serialize(activity), true);
+    }
+
+    @Test
+    public void testActivityRecordSerializing() throws JSONException, IOException {
+        Activity activity = new Activity.Builder("Read", TestData.createProvider(), TestData.createActor(), TestData
+                .createObject())
+                .target(new Target.Builder("Page", "urn:schibsted.com:page:1").build())
+                .result(new Result.Builder("Result").build())
+                .published(new Date(0L))
+                .build();
+        JSONAssert.assertEquals(jsonConverter.serialize(activity), jsonConverter.serialize(toRecord(activity)), true);
+    }
+
+    private static ActivityRecord toRecord(Activity activity) {
+        return new ActivityRecord().type(activity.getType())
+                .id(activity.getId())
+                .published(0L)
+                .provider(activity.getProvider())
+                .actor(activity.getActor())
+                .object(activity.getObject())
+                .target(activity.getTarget())
+                .result(activity.getResult());
+    }
 }
@@ -1,20 +1,37 @@
 package no.spt.sdk.serializers;
 
 import no.spt.sdk.TestData;
+import no.spt.sdk.TrackingUtil;
 import no.spt.sdk.client.DataCollectorResponse.DataCollectorResponse;
+import no.spt.sdk.models.ASObject;
+import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.ActivityRecord;
+import no.spt.sdk.models.Collection;
+import no.spt.sdk.models.JsonString;
+import no.spt.sdk.models.Provider;
+import no.spt.sdk.models.Result;
+import no.spt.sdk.models.Target;
 import no.spt.sdk.models.TrackingIdentity;
 import org.json.JSONException;
 import org.junit.Before;
 import org.junit.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class JacksonASJsonConverterTest {
 
-    ASJsonConverter jsonConverter;
+    StreamingASJsonConverter jsonConverter;
 
     @Before
     public void setup() {
@@ -53,4 +70,109 @@ public class JacksonASJsonConverterTest {
             .getDataCollectorBadRequestAsJsonString());
         assertEquals(400, response.getCode());
     }
+
+    @Test
+    public void testDataCollectorResponseDeSerializingFromStream() throws JSONException, IOException {
+        DataCollectorResponse response = jsonConverter.deserializeDataCollectorResponse(new ByteArrayInputStream(
+                TestData.getDataCollectorMultiStatusAsJsonString().getBytes("UTF-8")));
+        assertEquals(207, response.getCode());
+    }
+
+    @Test
+    public void testActivitySerializingMatchesBeanSerializing() throws IOException {
+        Activity activity = createFullActivity();
+        assertEquals(ReflectiveJacksonMapper.create().writeValueAsString(activity), jsonConverter.serialize(activity));
+    }
+
+    @Test
+    public void testActivityListSerializing() throws JSONException, IOException {
+        Activity first = TestData.getTestActivity();
+        Activity second = createFullActivity();
+        JSONAssert.assertEquals("[" + jsonConverter.serialize(first) + "," + jsonConverter.serialize(second) + "]",
+                jsonConverter.serialize(Arrays.asList(first, second)), true);
+    }
+
+    @Test
+    public void testMixedListSerializing() throws JSONException, IOException {
+        Activity activity = TestData.getTestActivity();
+        JSONAssert.assertEquals("[" + jsonConverter.serialize(activity) + ",\"text\"]", jsonConverter.serialize(Arrays
+                .asList(activity, "text")), true);
+    }
+
+    private static Activity createFullActivity() {
+        return new Activity.Builder("Read", TestData.createProvider(), TestData.createActor(), TestData.createObject())
+                .target(new Target.Builder("Page", "urn:schibsted.com:page:1")
+                        .set("spt:link", TestData.createLink())
+                        .set("spt:tags", Arrays.asList("news", "sport"))
+                        .set("spt:custom", new JsonString("{\"a\":[1,2,{\"b\":null}]}"))
+                        .set("spt:items", new Collection.Builder(Arrays.asList(TestData.createObject(), TestData
+                                .createObject())).build()))
+                .result(new Result.Builder("Result").displayName("Ûñíçødé \"quoted\"\n"))
+                .published(new Date(0L))
+                .build();
+    }
+
+    @Test
+    public void testContextSerializing() throws JSONException, IOException {
+        JSONAssert.assertEquals("{\"@context\":[\"http://www.w3.org/ns/activitystreams\",{\"spt\":\"http://schema" +
+                ".schibsted.com/activitystreams\",\"spt:sdkType\":\"JAVA\",\"spt:sdkVersion\":\"" + TrackingUtil
+                .getSdkVersion() + "\"}]}", jsonConverter.serialize(TestData.getTestActivity()), false);
+    }
+
+    @Test
+    public void testFrozenObjectSerializing() throws IOException {
+        Provider template = new Provider.Builder("Organization", "urn:schibsted.com:site:1").displayName("Site")
+                .set("spt:link", TestData.createLink())
+                .freeze();
+        Provider copy = new Provider.Builder("Organization", null).from(template).build();
+        String json = jsonConverter.serialize(copy);
+        assertEquals(json, jsonConverter.serialize(template));
+        assertEquals(json, jsonConverter.serialize(template));
+        Activity activity = new Activity.Builder("Read", template, TestData.createActor(), TestData.createObject())
+                .build();
+        assertTrue(jsonConverter.serialize(activity).contains("\"provider\":" + json + ","));
+    }
+
+    @Test
+    public void testFrozenObjectInsideObjectSerializing() throws JSONException, IOException {
+        ASObject template = new ASObject.Builder("Page").displayName("Front page").freeze();
+        Target target = new Target.Builder("Section", "section").set("spt:page", template).build();
+        JSONAssert.assertEquals("{\"@type\":\"Section\",\"@id\":\"section\",\"spt:page\":{\"@type\":\"Page\"," +
+                "\"displayName\":\"Front page\"}}", jsonConverter.serialize(target), true);
+    }
+
+    @Test
+    public void testActivityRecordSerializingMatchesActivitySerializing() throws IOException {
+        Activity activity = createFullActivity();
+        ActivityRecord record = toRecord(activity);
+        String expected = jsonConverter.serialize(activity);
+        assertEquals(expected, jsonConverter.serialize(record));
+        assertEquals(expected, jsonConverter.serialize(record));
+    }
+
+    @Test
+    public void testActivityRecordSerializingAfterFailure() throws IOException {
+        Activity activity = createFullActivity();
+        ASObject object = mock(ASObject.class);
+        when(object.getMap()).thenReturn(Collections.<String, Object>singletonMap("spt:bad", new Object()));
+        ActivityRecord record = toRecord(activity).object(object);
+        try {
+            jsonConverter.serialize(record);
+            fail("Expected serialization to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(jsonConverter.serialize(activity), jsonConverter.serialize(toRecord(activity)));
+    }
+
+    private static ActivityRecord toRecord(Activity activity) {
+        return new ActivityRecord().type(activity.getType())
+                .id(activity.getId())
+                .published(0L)
+                .provider(activity.getProvider())
+                .actor(activity.getActor())
+                .object(activity.getObject())
+                .target(activity.getTarget())
+                .result(activity.getResult());
+    }
 }
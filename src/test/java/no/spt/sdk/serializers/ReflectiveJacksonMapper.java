@@ -0,0 +1,67 @@
+package no.spt.sdk.serializers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import no.spt.sdk.models.ASObject;
+import no.spt.sdk.models.Activity;
+import no.spt.sdk.models.JsonString;
+import no.spt.sdk.models.Link;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Creates a mapper that serializes activities through bean introspection and mix-ins, the way
+ * {@link JacksonASJsonConverter} did before it had hand-written serializers. Used to check that the output has not
+ * changed, and as the baseline in {@link ActivitySerializationBenchmark}.
+ */
+final class ReflectiveJacksonMapper {
+
+    private ReflectiveJacksonMapper() {
+    }
+
+    static ObjectMapper create() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, true);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(ASObject.class, new JsonSerializer<ASObject>() {
+            @Override
+            public void serialize(ASObject value, JsonGenerator jgen, SerializerProvider provider)
+                    throws IOException {
+                jgen.writeObject(value.getMap());
+            }
+        });
+        module.addSerializer(Link.class, new JsonSerializer<Link>() {
+            @Override
+            public void serialize(Link value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+                jgen.writeObject(value.getMap());
+            }
+        });
+        module.addSerializer(JsonString.class, new JsonSerializer<JsonString>() {
+            @Override
+            public void serialize(JsonString value, JsonGenerator jgen, SerializerProvider provider)
+                    throws IOException {
+                jgen.writeRawValue(value.getJson());
+            }
+        });
+        mapper.registerModule(module);
+        mapper.addMixIn(Activity.class, ActivityMixIn.class);
+        return mapper;
+    }
+
+    private class ActivityMixIn {
+        @JsonProperty("@context")
+        private List<Object> context;
+        @JsonProperty("@type")
+        private String type;
+        @JsonProperty("@id")
+        private String id;
+    }
+}
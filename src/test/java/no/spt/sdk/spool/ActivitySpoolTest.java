@@ -0,0 +1,163 @@
+package no.spt.sdk.spool;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class ActivitySpoolTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = temporaryFolder.newFolder();
+    }
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 256);
+        assertTrue(spool.append("a".getBytes("UTF-8")));
+        assertTrue(spool.append("bc".getBytes("UTF-8")));
+        assertEquals(2, spool.size());
+        assertEquals("a", new String(spool.read(), "UTF-8"));
+        assertEquals("bc", new String(spool.read(), "UTF-8"));
+        assertNull(spool.read());
+        assertEquals(0, spool.size());
+        spool.close();
+    }
+
+    @Test
+    public void testRotatesSegments() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 64);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(spool.append(new byte[20]));
+        }
+        assertEquals(5 * 64, spool.getDiskUsage());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(20, spool.read().length);
+        }
+        assertNull(spool.read());
+        spool.close();
+    }
+
+    @Test
+    public void testRejectsAppendWhenBudgetIsReached() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 128, 64);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(spool.append(new byte[20]));
+        }
+        assertFalse(spool.append(new byte[20]));
+        assertFalse(spool.append(new byte[64]));
+        assertEquals(4, spool.size());
+        spool.close();
+    }
+
+    @Test
+    public void testCommitDeletesSegments() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 128, 64);
+        for (int i = 0; i < 4; i++) {
+            spool.append(new byte[20]);
+        }
+        for (int i = 0; i < 3; i++) {
+            spool.read();
+        }
+        spool.commit(spool.getReadPosition());
+        assertEquals(64, spool.getDiskUsage());
+        assertTrue(spool.append(new byte[20]));
+        spool.close();
+    }
+
+    @Test
+    public void testRecordBytesAreKept() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 128);
+        byte[] first = new byte[50];
+        byte[] second = new byte[30];
+        for (int i = 0; i < first.length; i++) {
+            first[i] = (byte) (i * 7 - 100);
+        }
+        for (int i = 0; i < second.length; i++) {
+            second[i] = (byte) (255 - i);
+        }
+        spool.append(first);
+        spool.append(second);
+        spool.append(first);
+        assertArrayEquals(first, spool.read());
+        assertArrayEquals(second, spool.read());
+        assertArrayEquals(first, spool.read());
+        spool.close();
+    }
+
+    @Test
+    public void testCommitThatDeletesSegmentsIsRecoveredWithoutClose() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 64);
+        for (int i = 0; i < 6; i++) {
+            spool.append(new byte[]{(byte) i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0});
+        }
+        for (int i = 0; i < 4; i++) {
+            spool.read();
+        }
+        spool.commit(spool.getReadPosition());
+
+        ActivitySpool recovered = new ActivitySpool(directory, 1024, 64);
+        assertEquals(2, recovered.size());
+        assertEquals(4, recovered.read()[0]);
+        assertEquals(5, recovered.read()[0]);
+        recovered.close();
+        spool.close();
+    }
+
+    @Test
+    public void testRecoversUncommittedRecords() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 64);
+        for (int i = 0; i < 6; i++) {
+            spool.append(new byte[]{(byte) i});
+        }
+        spool.read();
+        spool.read();
+        spool.commit(spool.getReadPosition());
+        spool.read();
+        spool.close();
+
+        spool = new ActivitySpool(directory, 1024, 64);
+        assertEquals(4, spool.size());
+        for (int i = 2; i < 6; i++) {
+            assertEquals(i, spool.read()[0]);
+        }
+        assertNull(spool.read());
+        assertTrue(spool.append(new byte[]{6}));
+        assertEquals(6, spool.read()[0]);
+        spool.close();
+    }
+
+    @Test
+    public void testIgnoresOlderCommits() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 64);
+        spool.append(new byte[]{1});
+        spool.append(new byte[]{2});
+        long first = spool.getReadPosition();
+        spool.read();
+        long second = spool.getReadPosition();
+        spool.commit(second);
+        spool.commit(first);
+        spool.close();
+
+        spool = new ActivitySpool(directory, 1024, 64);
+        assertEquals(1, spool.size());
+        assertEquals(2, spool.read()[0]);
+        spool.close();
+    }
+
+    @Test
+    public void testAppendAfterCloseIsRejected() throws Exception {
+        ActivitySpool spool = new ActivitySpool(directory, 1024, 64);
+        spool.close();
+        assertFalse(spool.append(new byte[]{1}));
+    }
+}
@@ -0,0 +1,45 @@
+package no.spt.sdk.stats;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class DataTrackingStatsSnapshotTest {
+
+    private static final long SECOND = 1000000000L;
+
+    private final DataTrackingStatsSnapshot earlier = new DataTrackingStatsSnapshot(1000L, 5 * SECOND, 10, 1, 8, 1,
+            1, 0, 0, 100, 50);
+    private final DataTrackingStatsSnapshot later = new DataTrackingStatsSnapshot(3000L, 7 * SECOND, 30, 5, 26, 2,
+            2, 4, 1, 300, 120);
+
+    @Test
+    public void testDelta() throws Exception {
+        DataTrackingStatsSnapshot delta = later.delta(earlier);
+        assertEquals(3000L, delta.getTime());
+        assertEquals(20, delta.getQueuedActivitiesCount());
+        assertEquals(4, delta.getSentBatchesCount());
+        assertEquals(18, delta.getSuccessfulCount());
+        assertEquals(1, delta.getValidationFailedCount());
+        assertEquals(1, delta.getSendingFailedCount());
+        assertEquals(4, delta.getDroppedCount());
+        assertEquals(1, delta.getErrorReportsCount());
+        assertEquals(200, delta.getUncompressedBytesCount());
+        assertEquals(70, delta.getCompressedBytesCount());
+    }
+
+    @Test
+    public void testRates() throws Exception {
+        assertEquals(2.0, later.getElapsedSeconds(earlier), 0.0);
+        assertEquals(10.0, later.getQueuedActivitiesRate(earlier), 0.0);
+        assertEquals(2.0, later.getSentBatchesRate(earlier), 0.0);
+        assertEquals(9.0, later.getSuccessfulRate(earlier), 0.0);
+        assertEquals(2.0, later.getDroppedRate(earlier), 0.0);
+    }
+
+    @Test
+    public void testRatesWithoutElapsedTime() throws Exception {
+        assertEquals(0.0, earlier.getQueuedActivitiesRate(earlier), 0.0);
+        assertEquals(0.0, earlier.getSentBatchesRate(earlier), 0.0);
+    }
+}
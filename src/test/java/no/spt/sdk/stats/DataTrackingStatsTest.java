@@ -2,6 +2,12 @@ package no.spt.sdk.stats;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.assertEquals;
 
 public class DataTrackingStatsTest {
@@ -114,4 +120,66 @@ public class DataTrackingStatsTest {
         stats.addToErrorReports(DELTA);
         assertEquals(DELTA, stats.getErrorReportsCount());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddToUncompressedBytes() throws Exception {
+        stats.addToUncompressedBytes(DELTA);
+        assertEquals(DELTA, stats.getUncompressedBytesCount());
+    }
+
+    @Test
+    public void testAddToCompressedBytes() throws Exception {
+        stats.addToCompressedBytes(DELTA);
+        assertEquals(DELTA, stats.getCompressedBytesCount());
+    }
+
+    @Test
+    public void testConcurrentIncrements() throws Exception {
+        final int threads = 4;
+        final int increments = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < increments; j++) {
+                        stats.incrementQueuedActivities();
+                        stats.addToUncompressedBytes(2);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertEquals(threads * increments, stats.getQueuedActivitiesCount());
+        assertEquals(2 * threads * increments, stats.getUncompressedBytesCount());
+    }
+
+    @Test
+    public void testSnapshot() throws Exception {
+        stats.incrementQueuedActivities();
+        stats.incrementSentBatches();
+        stats.addToSuccessful(DELTA);
+        stats.addToValidationFailed(2);
+        stats.addToSendingFailed(3);
+        stats.addToDropped(4);
+        stats.addToErrorReports(5);
+        stats.addToUncompressedBytes(6);
+        stats.addToCompressedBytes(7);
+        DataTrackingStatsSnapshot snapshot = stats.snapshot();
+        stats.incrementQueuedActivities();
+        assertEquals(1, snapshot.getQueuedActivitiesCount());
+        assertEquals(1, snapshot.getSentBatchesCount());
+        assertEquals(DELTA, snapshot.getSuccessfulCount());
+        assertEquals(2, snapshot.getValidationFailedCount());
+        assertEquals(3, snapshot.getSendingFailedCount());
+        assertEquals(4, snapshot.getDroppedCount());
+        assertEquals(5, snapshot.getErrorReportsCount());
+        assertEquals(6, snapshot.getUncompressedBytesCount());
+        assertEquals(7, snapshot.getCompressedBytesCount());
+        assertEquals(2, stats.getQueuedActivitiesCount());
+    }
+}
@@ -0,0 +1,43 @@
+package no.spt.sdk.stats;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedCounterTest {
+
+    @Test
+    public void testCount() throws Exception {
+        StripedCounter counter = new StripedCounter();
+        assertEquals(0, counter.sum());
+        counter.increment();
+        counter.add(41);
+        assertEquals(42, counter.sum());
+        counter.add(-2);
+        assertEquals(40, counter.sum());
+    }
+
+    @Test
+    public void testCells() throws Exception {
+        assertEquals(1, StripedCounter.cells(1));
+        assertEquals(2, StripedCounter.cells(2));
+        assertEquals(8, StripedCounter.cells(5));
+        assertEquals(64, StripedCounter.cells(1000));
+    }
+
+    @Test
+    public void testConsecutiveThreadsAreSpreadOverCells() throws Exception {
+        int cells = StripedCounter.cells(Runtime.getRuntime().availableProcessors());
+        Set<Integer> indexes = new HashSet<Integer>();
+        for (long threadId = 1; threadId <= 256; threadId++) {
+            int index = StripedCounter.index(threadId);
+            assertTrue(index >= 0 && index < cells * 16);
+            indexes.add(index);
+        }
+        assertEquals(cells, indexes.size());
+    }
+}